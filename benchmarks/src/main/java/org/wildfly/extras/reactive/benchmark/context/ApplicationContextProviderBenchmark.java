@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extras.reactive.benchmark.context;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.context.spi.ThreadContextController;
+import org.eclipse.microprofile.context.spi.ThreadContextSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.extension.microprofile.context.propagation.providers.ApplicationContextProvider;
+
+/**
+ * Benchmark of capturing the thread context class loader with {@link ApplicationContextProvider}, and of
+ * beginning and ending the captured context on a thread with another class loader or the same one, as happens
+ * for each stage run by a {@code ManagedExecutor}. The class loader stands in for a deployment's, so it is registered the way
+ * the deployment processor registers it. The thread may also have a class loader which is not registered, or none.
+ * <p>
+ * The GC profiler's {@code gc.alloc.rate.norm} should be (close to) 0 for all of these.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApplicationContextProviderBenchmark {
+
+    private static final Map<String, String> PROPS = Collections.emptyMap();
+
+    private final ApplicationContextProvider provider = new ApplicationContextProvider();
+    private ClassLoader originalClassLoader;
+    private ClassLoader deploymentClassLoader;
+    private ClassLoader workerClassLoader;
+    private ClassLoader unregisteredClassLoader;
+
+    @Setup(Level.Trial)
+    public void registerClassLoader() {
+        originalClassLoader = Thread.currentThread().getContextClassLoader();
+        deploymentClassLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        workerClassLoader = ClassLoader.getSystemClassLoader();
+        unregisteredClassLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        ApplicationContextProvider.registerClassLoader(deploymentClassLoader);
+    }
+
+    @TearDown(Level.Trial)
+    public void unregisterClassLoader() {
+        ApplicationContextProvider.unregisterClassLoader(deploymentClassLoader);
+        Thread.currentThread().setContextClassLoader(originalClassLoader);
+    }
+
+    @Benchmark
+    public ThreadContextSnapshot capture() {
+        Thread.currentThread().setContextClassLoader(deploymentClassLoader);
+        return provider.currentContext(PROPS);
+    }
+
+    @Benchmark
+    public void propagate() {
+        Thread.currentThread().setContextClassLoader(deploymentClassLoader);
+        final ThreadContextSnapshot snapshot = provider.currentContext(PROPS);
+        Thread.currentThread().setContextClassLoader(workerClassLoader);
+        final ThreadContextController controller = snapshot.begin();
+        controller.endContext();
+    }
+
+    @Benchmark
+    public void propagateToUnregisteredClassLoader() {
+        Thread.currentThread().setContextClassLoader(deploymentClassLoader);
+        final ThreadContextSnapshot snapshot = provider.currentContext(PROPS);
+        Thread.currentThread().setContextClassLoader(unregisteredClassLoader);
+        final ThreadContextController controller = snapshot.begin();
+        controller.endContext();
+    }
+
+    @Benchmark
+    public void propagateNoClassLoader() {
+        Thread.currentThread().setContextClassLoader(null);
+        final ThreadContextSnapshot snapshot = provider.currentContext(PROPS);
+        Thread.currentThread().setContextClassLoader(workerClassLoader);
+        final ThreadContextController controller = snapshot.begin();
+        controller.endContext();
+    }
+
+    @Benchmark
+    public void propagateToSameClassLoader() {
+        Thread.currentThread().setContextClassLoader(deploymentClassLoader);
+        final ThreadContextSnapshot snapshot = provider.currentContext(PROPS);
+        final ThreadContextController controller = snapshot.begin();
+        controller.endContext();
+    }
+
+    @Benchmark
+    public void clear() {
+        Thread.currentThread().setContextClassLoader(deploymentClassLoader);
+        final ThreadContextSnapshot snapshot = provider.clearedContext(PROPS);
+        final ThreadContextController controller = snapshot.begin();
+        controller.endContext();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extras.reactive.benchmark.messaging;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.spi.Extension;
+
+import io.smallrye.config.inject.ConfigExtension;
+import io.smallrye.reactive.messaging.MediatorFactory;
+import io.smallrye.reactive.messaging.extension.MediatorManager;
+import io.smallrye.reactive.messaging.extension.ReactiveMessagingExtension;
+import io.smallrye.reactive.messaging.impl.InternalChannelRegistry;
+import org.jboss.weld.environment.se.Weld;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class for benchmarks of in-memory Reactive Messaging channels. It boots a Weld SE container containing
+ * MicroProfile Config, the SmallRye Reactive Messaging beans and the beans returned by {@link #getBeanClasses()}, so the channels
+ * are wired the same way as in a deployment, just without the server around it.
+ * <p>
+ * Throughput and sampled latency (which gives the percentiles) are measured; when run via the
+ * {@link org.wildfly.extras.reactive.benchmark.BenchmarkRunner} the GC profiler reports the allocation
+ * rate per message as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class AbstractMessagingBenchmark {
+
+    private SeContainer container;
+
+    @Setup(Level.Trial)
+    public void startContainer() {
+        getConfigProperties().forEach(System::setProperty);
+        container = new Weld()
+                .disableDiscovery()
+                .addExtension(new ConfigExtension())
+                .addExtension(new ReactiveMessagingExtension())
+                .addExtensions(getExtensions())
+                .addPackage(false, MediatorFactory.class)
+                .addPackage(false, MediatorManager.class)
+                .addPackage(false, InternalChannelRegistry.class)
+                .addBeanClasses(getBeanClasses())
+                .initialize();
+        initBeans(container);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContainer() {
+        if (container != null) {
+            container.close();
+            container = null;
+        }
+        getConfigProperties().keySet().forEach(System::clearProperty);
+    }
+
+    /**
+     * The application beans making up the channels being benchmarked.
+     */
+    protected abstract Class<?>[] getBeanClasses();
+
+    /**
+     * Extensions the subsystems register for deployments, which the benchmarked channels use.
+     */
+    protected Extension[] getExtensions() {
+        return new Extension[0];
+    }
+
+    /**
+     * MicroProfile Config properties for the channels being benchmarked. They are set as system properties
+     * while the container is running.
+     */
+    protected Map<String, String> getConfigProperties() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Called once the container has started and the channels have been wired, to look up the beans used
+     * by the benchmark methods.
+     */
+    protected abstract void initBeans(SeContainer container);
+}
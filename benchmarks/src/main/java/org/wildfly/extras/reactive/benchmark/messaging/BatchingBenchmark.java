@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extras.reactive.benchmark.messaging;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.spi.Extension;
+import javax.inject.Inject;
+
+import io.smallrye.reactive.messaging.annotations.Channel;
+import io.smallrye.reactive.messaging.annotations.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.wildfly.extension.microprofile.reactive.messaging.batch.BatchingChannels;
+import org.wildfly.extension.microprofile.reactive.messaging.batch.BatchingExtension;
+
+/**
+ * Compares an {@code @Incoming} method receiving the records of the {@code prices} channel one at a time, like
+ * {@code PriceConverter} in the Kafka quickstart, with one receiving them in batches, as configured with
+ * {@code wildfly.reactive-messaging.incoming.prices.batch-size}. A {@code batchSize} of 0 is the former.
+ */
+public class BatchingBenchmark extends AbstractMessagingBenchmark {
+
+    @Param({"0", "10", "100", "500"})
+    int batchSize;
+
+    private PriceSource source;
+    private long price;
+
+    @Override
+    protected Class<?>[] getBeanClasses() {
+        return new Class<?>[]{PriceSource.class, batchSize == 0 ? PriceSink.class : BatchPriceSink.class};
+    }
+
+    @Override
+    protected Extension[] getExtensions() {
+        if (batchSize == 0) {
+            return super.getExtensions();
+        }
+        return new Extension[]{new BatchingExtension(new BatchingChannels(BatchingBenchmark.class.getClassLoader()))};
+    }
+
+    @Override
+    protected Map<String, String> getConfigProperties() {
+        if (batchSize == 0) {
+            return super.getConfigProperties();
+        }
+        return Collections.singletonMap("wildfly.reactive-messaging.incoming.prices.batch-size", Integer.toString(batchSize));
+    }
+
+    @Override
+    protected void initBeans(SeContainer container) {
+        source = container.select(PriceSource.class).get();
+    }
+
+    @Benchmark
+    public void process() {
+        source.send(price++);
+    }
+
+    @ApplicationScoped
+    public static class PriceSource {
+        @Inject
+        @Channel("prices")
+        Emitter<Long> emitter;
+
+        void send(long price) {
+            emitter.send(price);
+        }
+    }
+
+    @ApplicationScoped
+    public static class PriceSink {
+        long total;
+
+        @Incoming("prices")
+        public void process(long price) {
+            total += price;
+        }
+    }
+
+    @ApplicationScoped
+    public static class BatchPriceSink {
+        long total;
+
+        @Incoming("prices")
+        public void process(List<Long> prices) {
+            for (Long price : prices) {
+                total += price;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extras.reactive.benchmark.messaging;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.se.SeContainer;
+import javax.inject.Inject;
+
+import io.smallrye.reactive.messaging.annotations.Broadcast;
+import io.smallrye.reactive.messaging.annotations.Channel;
+import io.smallrye.reactive.messaging.annotations.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Outgoing;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures a processor method which uses {@link Broadcast} to fan each message out to two subscriber methods.
+ */
+public class BroadcastBenchmark extends AbstractMessagingBenchmark {
+
+    private Source source;
+    private FirstSink first;
+    private SecondSink second;
+    private int counter;
+
+    @Override
+    protected Class<?>[] getBeanClasses() {
+        return new Class<?>[]{Source.class, Doubler.class, FirstSink.class, SecondSink.class};
+    }
+
+    @Override
+    protected void initBeans(SeContainer container) {
+        source = container.select(Source.class).get();
+        first = container.select(FirstSink.class).get();
+        second = container.select(SecondSink.class).get();
+    }
+
+    @Benchmark
+    public int broadcast() {
+        source.send(counter++);
+        return first.last + second.last;
+    }
+
+    @ApplicationScoped
+    public static class Source {
+        @Inject
+        @Channel("source")
+        Emitter<Integer> emitter;
+
+        void send(int value) {
+            emitter.send(value);
+        }
+    }
+
+    @ApplicationScoped
+    public static class Doubler {
+        @Incoming("source")
+        @Outgoing("fan-out")
+        @Broadcast(2)
+        public int process(int value) {
+            return value * 2;
+        }
+    }
+
+    @ApplicationScoped
+    public static class FirstSink {
+        volatile int last;
+
+        @Incoming("fan-out")
+        public void consume(int value) {
+            last = value;
+        }
+    }
+
+    @ApplicationScoped
+    public static class SecondSink {
+        volatile int last;
+
+        @Incoming("fan-out")
+        public void consume(int value) {
+            last = value;
+        }
+    }
+}
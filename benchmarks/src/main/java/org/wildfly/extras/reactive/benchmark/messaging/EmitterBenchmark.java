@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extras.reactive.benchmark.messaging;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.se.SeContainer;
+import javax.inject.Inject;
+
+import io.smallrye.reactive.messaging.annotations.Channel;
+import io.smallrye.reactive.messaging.annotations.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures the cost of bridging from imperative code into a channel via an {@link Emitter}, with a single
+ * subscriber method on the other end.
+ */
+public class EmitterBenchmark extends AbstractMessagingBenchmark {
+
+    private ValueSource source;
+    private ValueSink sink;
+    private long counter;
+
+    @Override
+    protected Class<?>[] getBeanClasses() {
+        return new Class<?>[]{ValueSource.class, ValueSink.class};
+    }
+
+    @Override
+    protected void initBeans(SeContainer container) {
+        source = container.select(ValueSource.class).get();
+        sink = container.select(ValueSink.class).get();
+    }
+
+    @Benchmark
+    public Object emit() {
+        source.send(counter++);
+        return sink.last;
+    }
+
+    @ApplicationScoped
+    public static class ValueSource {
+        @Inject
+        @Channel("internal")
+        Emitter<Long> emitter;
+
+        void send(long value) {
+            emitter.send(value);
+        }
+    }
+
+    @ApplicationScoped
+    public static class ValueSink {
+        volatile Object last;
+
+        @Incoming("internal")
+        public void sink(Long value) {
+            last = value;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extras.reactive.benchmark.messaging;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.se.SeContainer;
+import javax.inject.Inject;
+
+import io.smallrye.reactive.messaging.annotations.Channel;
+import io.smallrye.reactive.messaging.annotations.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Outgoing;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Measures a message going through an emitter, a processor method and a subscriber method, i.e. the same
+ * shape as the {@code PriceConverter} in the Reactive Messaging quickstart.
+ */
+public class ProcessorBenchmark extends AbstractMessagingBenchmark {
+
+    private PriceSource source;
+    private PriceSink sink;
+    private int price;
+
+    @Override
+    protected Class<?>[] getBeanClasses() {
+        return new Class<?>[]{PriceSource.class, PriceConverter.class, PriceSink.class};
+    }
+
+    @Override
+    protected void initBeans(SeContainer container) {
+        source = container.select(PriceSource.class).get();
+        sink = container.select(PriceSink.class).get();
+    }
+
+    @Benchmark
+    public double process() {
+        source.send(price++);
+        return sink.last;
+    }
+
+    @ApplicationScoped
+    public static class PriceSource {
+        @Inject
+        @Channel("prices")
+        Emitter<Integer> emitter;
+
+        void send(int price) {
+            emitter.send(price);
+        }
+    }
+
+    @ApplicationScoped
+    public static class PriceConverter {
+        @Incoming("prices")
+        @Outgoing("converted")
+        public double process(int priceInUsd) {
+            return priceInUsd * 0.88;
+        }
+    }
+
+    @ApplicationScoped
+    public static class PriceSink {
+        volatile double last;
+
+        @Incoming("converted")
+        public void consume(double price) {
+            last = price;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extras.reactive.benchmark.messaging;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.spi.Extension;
+
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Outgoing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.reactivestreams.Publisher;
+import org.wildfly.extension.microprofile.reactive.messaging.ringbuffer.RingBufferChannels;
+import org.wildfly.extension.microprofile.reactive.messaging.ringbuffer.RingBufferExtension;
+
+/**
+ * Compares handing the messages of an in-memory channel from the thread producing them to the thread running the
+ * {@code @Incoming} method with an RxJava {@code observeOn}, with handing them over through ring buffers, as
+ * configured with {@code wildfly.reactive-messaging.incoming.prices.ring-buffer-size}. The producer runs freely, and
+ * each invocation waits for the next {@value #MESSAGES} messages to arrive.
+ */
+public class RingBufferBenchmark extends AbstractMessagingBenchmark {
+
+    static final int MESSAGES = 1000;
+
+    @Param({"rxjava", "park", "yield", "busy-spin"})
+    String handOff;
+
+    private PriceSink sink;
+    private long received;
+
+    @Override
+    protected Class<?>[] getBeanClasses() {
+        return new Class<?>[]{isRingBuffer() ? PriceSource.class : ObserveOnPriceSource.class, PriceSink.class};
+    }
+
+    @Override
+    protected Extension[] getExtensions() {
+        if (!isRingBuffer()) {
+            return super.getExtensions();
+        }
+        return new Extension[]{new RingBufferExtension(new RingBufferChannels(RingBufferBenchmark.class.getClassLoader()))};
+    }
+
+    @Override
+    protected Map<String, String> getConfigProperties() {
+        if (!isRingBuffer()) {
+            return super.getConfigProperties();
+        }
+        final Map<String, String> properties = new HashMap<>();
+        properties.put("wildfly.reactive-messaging.incoming.prices.ring-buffer-size", "1024");
+        properties.put("wildfly.reactive-messaging.incoming.prices.wait-strategy", handOff);
+        return Collections.unmodifiableMap(properties);
+    }
+
+    @Override
+    protected void initBeans(SeContainer container) {
+        sink = container.select(PriceSink.class).get();
+        received = sink.count();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long process() {
+        received += MESSAGES;
+        while (sink.count() < received) {
+            Thread.yield();
+        }
+        return received;
+    }
+
+    private boolean isRingBuffer() {
+        return !"rxjava".equals(handOff);
+    }
+
+    static Flowable<Long> prices() {
+        return Flowable.generate(() -> new long[1], (long[] state, Emitter<Long> emitter) -> emitter.onNext(state[0]++)).subscribeOn(Schedulers.single());
+    }
+
+    @ApplicationScoped
+    public static class PriceSource {
+        @Outgoing("prices")
+        public Publisher<Long> prices() {
+            return RingBufferBenchmark.prices();
+        }
+    }
+
+    @ApplicationScoped
+    public static class ObserveOnPriceSource {
+        @Outgoing("prices")
+        public Publisher<Long> prices() {
+            return RingBufferBenchmark.prices().observeOn(Schedulers.computation());
+        }
+    }
+
+    @ApplicationScoped
+    public static class PriceSink {
+        private volatile long count;
+
+        @Incoming("prices")
+        public void process(long price) {
+            count++;
+        }
+
+        // Called through the client proxy, which does not share the fields of the bean
+        long count() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extras.reactive.benchmark.operators;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wildfly.extension.microprofile.reactive.streams.operators.parallel.ParallelStages;
+
+/**
+ * Compares mapping the elements of a graph with a CPU heavy function in a plain {@code map} stage with doing it in a
+ * parallel map stage, on a {@link ForkJoinPool} with as many threads as the {@code parallelism}, as set up by the
+ * subsystem's {@code parallel-pool-size} attribute. Up to the number of cores, the throughput of the parallel map
+ * should grow with the parallelism. Each operation runs a graph of {@link #ELEMENTS} elements to completion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelMapBenchmark {
+
+    private static final int ELEMENTS = 1000;
+
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    @Param({"true", "false"})
+    boolean ordered;
+
+    /**
+     * The amount of work per element, in {@link Blackhole#consumeCPU(long)} tokens.
+     */
+    @Param({"1000"})
+    long tokens;
+
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void createPool() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long sequentialMap() throws Exception {
+        return ReactiveStreams.iterate(0L, i -> i + 1)
+                .limit(ELEMENTS)
+                .map(this::work)
+                .reduce(0L, Long::sum)
+                .run()
+                .toCompletableFuture()
+                .get();
+    }
+
+    @Benchmark
+    public long parallelMap() throws Exception {
+        return ReactiveStreams.iterate(0L, i -> i + 1)
+                .limit(ELEMENTS)
+                .via(ordered ? ParallelStages.parallelMap(parallelism, pool, this::work) : ParallelStages.parallelMapUnordered(parallelism, pool, this::work))
+                .reduce(0L, Long::sum)
+                .run()
+                .toCompletableFuture()
+                .get();
+    }
+
+    private Long work(Long element) {
+        Blackhole.consumeCPU(tokens);
+        return element;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extras.reactive.benchmark.operators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.reactive.streams.operators.ProcessorBuilder;
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.eclipse.microprofile.reactive.streams.operators.spi.ReactiveStreamsEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wildfly.extension.microprofile.reactive.streams.operators.engine.EngineType;
+import org.wildfly.extension.microprofile.reactive.streams.operators.primitive.PrimitiveStages;
+
+/**
+ * Compares converting prices, like {@code PriceConverter} in the Reactive Messaging quickstart but with a few more
+ * steps, with the usual map and filter stages, which box each price once per map stage, and with the stages of
+ * {@link PrimitiveStages}, which box it once. Each operation runs a graph of {@link #ELEMENTS} prices, so the GC
+ * profiler's {@code gc.alloc.rate.norm} divided by that is the number of bytes allocated per price. The prices are
+ * outside the range of the {@link Integer} cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveStagesBenchmark {
+
+    private static final int ELEMENTS = 1000;
+    private static final double CONVERSION_RATE = 0.88;
+
+    @Param({"smallrye", "fusing"})
+    String engine;
+
+    private ReactiveStreamsEngine reactiveStreamsEngine;
+    private List<Integer> prices;
+    private ProcessorBuilder<Integer, Double> boxed;
+    private ProcessorBuilder<Integer, Double> primitive;
+
+    @Setup
+    public void setup() {
+        reactiveStreamsEngine = EngineType.forName(engine).newEngine();
+        prices = new ArrayList<>(ELEMENTS);
+        for (int i = 0; i < ELEMENTS; i++) {
+            prices.add(1000 + i);
+        }
+        boxed = ReactiveStreams.<Integer>builder()
+                .map(price -> price * 100)
+                .filter(cents -> cents % 3 != 0)
+                .map(cents -> cents + 50)
+                .map(cents -> cents * CONVERSION_RATE)
+                .map(converted -> converted / 100);
+        primitive = PrimitiveStages.ints()
+                .map(price -> price * 100)
+                .filter(cents -> cents % 3 != 0)
+                .map(cents -> cents + 50)
+                .mapToDouble(cents -> cents * CONVERSION_RATE)
+                .map(converted -> converted / 100)
+                .boxed();
+    }
+
+    @Benchmark
+    public void boxedStages(Blackhole blackhole) throws Exception {
+        run(boxed, blackhole);
+    }
+
+    @Benchmark
+    public void primitiveStages(Blackhole blackhole) throws Exception {
+        run(primitive, blackhole);
+    }
+
+    private void run(ProcessorBuilder<Integer, Double> stages, Blackhole blackhole) throws Exception {
+        ReactiveStreams.fromIterable(prices)
+                .via(stages)
+                .forEach(blackhole::consume)
+                .run(reactiveStreamsEngine)
+                .toCompletableFuture()
+                .get();
+    }
+}
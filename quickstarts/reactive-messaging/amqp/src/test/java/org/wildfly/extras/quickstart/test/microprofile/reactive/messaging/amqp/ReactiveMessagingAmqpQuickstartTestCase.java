@@ -18,6 +18,8 @@ package org.wildfly.extras.quickstart.test.microprofile.reactive.messaging.amqp;
 
 import java.io.File;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -33,9 +35,12 @@ import org.jboss.arquillian.test.api.ArquillianResource;
 import org.jboss.as.arquillian.api.ServerSetup;
 import org.jboss.as.arquillian.container.ManagementClient;
 import org.jboss.as.test.shared.CLIServerSetupTask;
+import org.jboss.as.controller.client.helpers.Operations;
 import org.jboss.as.test.shared.TimeoutUtil;
+import org.jboss.dmr.ModelNode;
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
 import org.jboss.shrinkwrap.api.exporter.ZipExporter;
 import org.jboss.shrinkwrap.api.spec.WebArchive;
 import org.junit.Assert;
@@ -57,16 +62,31 @@ public class ReactiveMessagingAmqpQuickstartTestCase {
             .withEnv("ARTEMIS_PASSWORD", "wildfly")
             .withExposedPorts(8161, 61616, AMQP_PORT);
 
+    private static final long INITIAL_CREDIT = 200;
+    private static final long MAX_UNSETTLED_MESSAGES = 1000;
+
     @ArquillianResource
     URL url;
 
+    @ArquillianResource
+    ManagementClient managementClient;
+
     @Deployment
     public static WebArchive createWar() throws Exception {
+        String config = new String(Files.readAllBytes(new File("target/classes/META-INF/microprofile-config.properties").toPath()), StandardCharsets.UTF_8)
+                + "\n"
+                + "mp.messaging.outgoing.throughput-out.connector=smallrye-amqp\n"
+                + "mp.messaging.outgoing.throughput-out.address=throughput\n"
+                + "mp.messaging.incoming.throughput-in.connector=smallrye-amqp\n"
+                + "mp.messaging.incoming.throughput-in.address=throughput\n"
+                + "wildfly.reactive-messaging.incoming.throughput-in.initial-credit=" + INITIAL_CREDIT + "\n"
+                + "wildfly.reactive-messaging.incoming.throughput-in.max-unsettled-messages=" + MAX_UNSETTLED_MESSAGES + "\n";
         WebArchive war = ShrinkWrap.create(WebArchive.class, "quickstart-test.war")
                 .addPackage(PriceConverter.class.getPackage())
+                .addClass(ThroughputBean.class)
                 .add(new FileAsset(new File("../core/src/main/webapp/index.html")), "/index.html")
                 .addAsWebInfResource(new File("../core/src/main/webapp/WEB-INF/web.xml"))
-                .addAsWebInfResource(new File("target/classes/META-INF/microprofile-config.properties"), "classes/META-INF/microprofile-config.properties")
+                .addAsWebInfResource(new StringAsset(config), "classes/META-INF/microprofile-config.properties")
                 ;
 
         war.as(ZipExporter.class).exportTo(new File("target/" + war.getName()), true);
@@ -94,6 +114,31 @@ public class ReactiveMessagingAmqpQuickstartTestCase {
         Assert.assertTrue(size + " entries, expected at least 3", size >= 3);
     }
 
+    @Test
+    public void testFlowControlBoundsUnderLoad() throws Exception {
+        ModelNode address = Operations.createAddress("deployment", "quickstart-test.war",
+                "subsystem", "microprofile-reactive-messaging-smallrye", "channel", "throughput-in");
+        long end = System.currentTimeMillis() + TimeoutUtil.adjust(60000);
+        long successes = 0;
+        while (System.currentTimeMillis() < end && successes < ThroughputBean.MESSAGE_COUNT) {
+            ModelNode channel = readChannel(address);
+            successes = channel.get("successes").asLong();
+            // The flow control settings of the channel are never exceeded
+            Assert.assertTrue(channel.toString(), channel.get("credit").asLong() <= INITIAL_CREDIT);
+            Assert.assertTrue(channel.toString(), channel.get("unsettled").asLong() <= MAX_UNSETTLED_MESSAGES);
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(ThroughputBean.MESSAGE_COUNT, successes);
+    }
+
+    private ModelNode readChannel(ModelNode address) throws Exception {
+        ModelNode operation = Operations.createReadResourceOperation(address);
+        operation.get("include-runtime").set(true);
+        ModelNode result = managementClient.getControllerClient().execute(operation);
+        Assert.assertTrue(result.toString(), Operations.isSuccessfulOutcome(result));
+        return Operations.readResult(result);
+    }
+
     public static class KafkaBootstrapServerSetupTask extends CLIServerSetupTask {
 
         @Override
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extras.quickstart.test.microprofile.reactive.messaging.amqp;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Outgoing;
+
+import io.reactivex.Flowable;
+
+/**
+ * Sends a burst of messages through the AMQP broker, for {@link ReactiveMessagingAmqpQuickstartTestCase} to check
+ * that the flow control bounds of the {@code throughput-in} channel hold under load.
+ */
+@ApplicationScoped
+public class ThroughputBean {
+
+    static final int MESSAGE_COUNT = 20000;
+
+    @Outgoing("throughput-out")
+    public Flowable<Integer> send() {
+        return Flowable.range(0, MESSAGE_COUNT);
+    }
+
+    @Incoming("throughput-in")
+    public void receive(Integer value) {
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extras.quickstart.test.microprofile.reactive.messaging.mqtt;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.sse.SseEventSource;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.container.test.api.RunAsClient;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.arquillian.test.api.ArquillianResource;
+import org.jboss.as.arquillian.api.ServerSetup;
+import org.jboss.as.arquillian.container.ManagementClient;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.as.test.shared.CLIServerSetupTask;
+import org.jboss.as.test.shared.TimeoutUtil;
+import org.jboss.dmr.ModelNode;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.exporter.ZipExporter;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.testcontainers.containers.GenericContainer;
+import org.wildfly.extras.quickstart.microprofile.reactive.messaging.PriceConverter;
+
+/**
+ * Runs the quickstart, and a burst of QoS 1 telemetry messages, against an MQTT broker started in a container.
+ */
+@RunWith(Arquillian.class)
+@RunAsClient
+@ServerSetup(ReactiveMessagingMqttQuickstartTestCase.MqttPortSetupTask.class)
+public class ReactiveMessagingMqttQuickstartTestCase {
+    private static final int MQTT_PORT = 1883;
+    private static final GenericContainer MQTT = new GenericContainer("eclipse-mosquitto:1.6")
+            .withExposedPorts(MQTT_PORT);
+    private static final String[] CHANNELS = {
+            "mp.messaging.outgoing.generated-price", "mp.messaging.incoming.prices",
+            "mp.messaging.outgoing.telemetry-out", "mp.messaging.incoming.telemetry-in"};
+    private static final long MAX_INFLIGHT_MESSAGES = 10;
+
+    @ArquillianResource
+    URL url;
+
+    @ArquillianResource
+    ManagementClient managementClient;
+
+    @Deployment
+    public static WebArchive createWar() throws Exception {
+        String config = new String(Files.readAllBytes(new File("target/classes/META-INF/microprofile-config.properties").toPath()), StandardCharsets.UTF_8)
+                + "\n"
+                + "mp.messaging.outgoing.telemetry-out.connector=smallrye-mqtt\n"
+                + "mp.messaging.outgoing.telemetry-out.host=localhost\n"
+                + "mp.messaging.outgoing.telemetry-out.topic=telemetry/sensor-1\n"
+                + "mp.messaging.outgoing.telemetry-out.qos=1\n"
+                + "wildfly.reactive-messaging.outgoing.telemetry-out.max-inflight-messages=" + MAX_INFLIGHT_MESSAGES + "\n"
+                + "mp.messaging.incoming.telemetry-in.connector=smallrye-mqtt\n"
+                + "mp.messaging.incoming.telemetry-in.host=localhost\n"
+                + "mp.messaging.incoming.telemetry-in.topic=telemetry/+\n"
+                + "mp.messaging.incoming.telemetry-in.qos=1\n";
+        WebArchive war = ShrinkWrap.create(WebArchive.class, "quickstart-test.war")
+                .addPackage(PriceConverter.class.getPackage())
+                .addClass(TelemetryBean.class)
+                .add(new FileAsset(new File("../core/src/main/webapp/index.html")), "/index.html")
+                .addAsWebInfResource(new File("../core/src/main/webapp/WEB-INF/web.xml"))
+                .addAsWebInfResource(new StringAsset(config), "classes/META-INF/microprofile-config.properties")
+                ;
+
+        war.as(ZipExporter.class).exportTo(new File("target/" + war.getName()), true);
+
+        return war;
+    }
+
+    @Test
+    public void testPricesEventStream() throws Exception {
+        Client client = ClientBuilder.newClient();
+        WebTarget target = client.target(url.toExternalForm() + "rest/prices");
+
+        List<Double> received = new CopyOnWriteArrayList<>();
+
+        SseEventSource source = SseEventSource.target(target).build();
+        source.register(inboundSseEvent -> received.add(Double.valueOf(inboundSseEvent.readData())));
+        source.open();
+
+        long end = System.currentTimeMillis() + TimeoutUtil.adjust(20000);
+        while (System.currentTimeMillis() < end && received.size() < 3) {
+            Thread.sleep(100);
+        }
+        source.close();
+        int size = received.size();
+        Assert.assertTrue(size + " entries, expected at least 3", size >= 3);
+    }
+
+    @Test
+    public void testTelemetryThroughput() throws Exception {
+        ModelNode out = channelAddress("telemetry-out");
+        ModelNode in = channelAddress("telemetry-in");
+        long end = System.currentTimeMillis() + TimeoutUtil.adjust(60000);
+        long received = 0;
+        while (System.currentTimeMillis() < end && received < TelemetryBean.MESSAGE_COUNT) {
+            ModelNode channel = readChannel(out);
+            // The in-flight window of the QoS 1 channel is never exceeded
+            Assert.assertTrue(channel.toString(), channel.get("sends-in-flight").asLong() <= MAX_INFLIGHT_MESSAGES);
+            received = readChannel(in).get("successes").asLong();
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(TelemetryBean.MESSAGE_COUNT, received);
+
+        // The messages of the wildcard subscription are counted by the topic they were published to
+        ModelNode topics = readChannel(in).get("messages-by-topic");
+        Assert.assertEquals(topics.toString(), TelemetryBean.MESSAGE_COUNT, topics.get("telemetry/sensor-1").asLong());
+        topics = readChannel(out).get("messages-by-topic");
+        Assert.assertEquals(topics.toString(), TelemetryBean.MESSAGE_COUNT, topics.get("telemetry/sensor-1").asLong());
+    }
+
+    private static ModelNode channelAddress(String channel) {
+        return Operations.createAddress("deployment", "quickstart-test.war",
+                "subsystem", "microprofile-reactive-messaging-smallrye", "channel", channel);
+    }
+
+    private ModelNode readChannel(ModelNode address) throws Exception {
+        ModelNode operation = Operations.createReadResourceOperation(address);
+        operation.get("include-runtime").set(true);
+        ModelNode result = managementClient.getControllerClient().execute(operation);
+        Assert.assertTrue(result.toString(), Operations.isSuccessfulOutcome(result));
+        return Operations.readResult(result);
+    }
+
+    public static class MqttPortSetupTask extends CLIServerSetupTask {
+
+        @Override
+        public void setup(ManagementClient managementClient, String containerId) throws Exception {
+            MQTT.start();
+            Integer mqttPort = MQTT.getMappedPort(MQTT_PORT);
+            for (String channel : CHANNELS) {
+                this.builder.node("default")
+                        .setup("/system-property=" + channel + ".port:add(value=" + mqttPort + ")")
+                        .teardown("/system-property=" + channel + ".port:remove");
+            }
+            super.setup(managementClient, containerId);
+        }
+
+        @Override
+        public void tearDown(ManagementClient managementClient, String containerId) throws Exception {
+            try {
+                super.tearDown(managementClient, containerId);
+            } finally {
+                MQTT.stop();
+            }
+        }
+    }
+
+}
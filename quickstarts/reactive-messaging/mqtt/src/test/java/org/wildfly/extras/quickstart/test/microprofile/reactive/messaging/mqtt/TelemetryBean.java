@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extras.quickstart.test.microprofile.reactive.messaging.mqtt;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Outgoing;
+
+import io.reactivex.Flowable;
+
+/**
+ * Publishes a burst of telemetry readings through the MQTT broker, for {@link ReactiveMessagingMqttQuickstartTestCase}
+ * to measure the throughput of the {@code telemetry-in} channel.
+ */
+@ApplicationScoped
+public class TelemetryBean {
+
+    static final int MESSAGE_COUNT = 5000;
+
+    @Outgoing("telemetry-out")
+    public Flowable<Integer> send() {
+        // Give the telemetry-in channel time to subscribe, as the broker does not keep the messages of a topic
+        // nobody is subscribed to
+        return Flowable.range(0, MESSAGE_COUNT)
+                .delaySubscription(5, TimeUnit.SECONDS);
+    }
+
+    @Incoming("telemetry-in")
+    public void receive(Integer value) {
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.context.propagation;
+
+import static org.wildfly.extension.microprofile.context.propagation.MicroProfileContextPropagationExtension.SUBSYSTEM_NAME;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.jboss.as.controller.AbstractAddStepHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.AttributeMarshaller;
+import org.jboss.as.controller.AttributeParser;
+import org.jboss.as.controller.CapabilityServiceBuilder;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.PersistentResourceDefinition;
+import org.jboss.as.controller.ServiceRemoveStepHandler;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.StringListAttributeDefinition;
+import org.jboss.as.controller.capability.RuntimeCapability;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.wildfly.extension.microprofile.context.propagation._private.MicroProfileContextPropagationLogger;
+import org.wildfly.extension.microprofile.context.propagation.executor.ManagedExecutorService;
+import org.wildfly.extension.microprofile.context.propagation.executor.NamedManagedExecutor;
+import org.wildfly.extension.microprofile.context.propagation.executor.ThreadType;
+
+/**
+ * A pool of threads shared by the {@code ManagedExecutor}s injected into deployments with
+ * {@code @NamedInstance("<name>")}.
+ */
+public class ManagedExecutorResourceDefinition extends PersistentResourceDefinition {
+
+    static final String MANAGED_EXECUTOR = "managed-executor";
+    static final PathElement PATH = PathElement.pathElement(MANAGED_EXECUTOR);
+
+    public static final String MANAGED_EXECUTOR_CAPABILITY_NAME = "org.wildfly.microprofile.context-propagation.managed-executor";
+
+    static final RuntimeCapability<Void> MANAGED_EXECUTOR_CAPABILITY = RuntimeCapability.Builder
+            .of(MANAGED_EXECUTOR_CAPABILITY_NAME, true, NamedManagedExecutor.class)
+            .build();
+
+    static final SimpleAttributeDefinition MAX_ASYNC = new SimpleAttributeDefinitionBuilder("max-async", ModelType.INT)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(16))
+            .setValidator(new IntRangeValidator(1, true, true))
+            .setRestartAllServices()
+            .build();
+
+    static final SimpleAttributeDefinition MAX_QUEUED = new SimpleAttributeDefinitionBuilder("max-queued", ModelType.INT)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(-1))
+            .setValidator(new IntRangeValidator(-1, true, true))
+            .setRestartAllServices()
+            .build();
+
+    static final StringListAttributeDefinition PROPAGATED = contextTypes("propagated");
+    static final StringListAttributeDefinition CLEARED = contextTypes("cleared");
+
+    static final AttributeDefinition[] ATTRIBUTES = {MAX_ASYNC, MAX_QUEUED, PROPAGATED, CLEARED};
+
+    ManagedExecutorResourceDefinition() {
+        super(new SimpleResourceDefinition.Parameters(
+                PATH,
+                MicroProfileContextPropagationExtension.getResourceDescriptionResolver(SUBSYSTEM_NAME, MANAGED_EXECUTOR))
+                .setAddHandler(AddHandler.INSTANCE)
+                .setRemoveHandler(new ServiceRemoveStepHandler(AddHandler.INSTANCE))
+                .setCapabilities(MANAGED_EXECUTOR_CAPABILITY));
+    }
+
+    @Override
+    public Collection<AttributeDefinition> getAttributes() {
+        return Arrays.asList(ATTRIBUTES);
+    }
+
+    /**
+     * A list of context types, e.g. {@code Application} or {@code Transaction}, which if undefined falls back to the
+     * deployment's defaults from MicroProfile Config.
+     */
+    static StringListAttributeDefinition contextTypes(String name) {
+        return new StringListAttributeDefinition.Builder(name)
+                .setRequired(false)
+                .setAllowExpression(true)
+                .setAttributeParser(AttributeParser.STRING_LIST)
+                .setAttributeMarshaller(AttributeMarshaller.STRING_LIST)
+                .setRestartAllServices()
+                .build();
+    }
+
+    /**
+     * @return the resolved context types, or {@code null} if the attribute is undefined
+     */
+    static String[] resolveContextTypes(OperationContext context, ModelNode model, StringListAttributeDefinition attribute) throws OperationFailedException {
+        if (!model.hasDefined(attribute.getName())) {
+            return null;
+        }
+        final List<String> types = attribute.unwrap(context, model);
+        return types.toArray(new String[types.size()]);
+    }
+
+    static class AddHandler extends AbstractAddStepHandler {
+
+        static final AddHandler INSTANCE = new AddHandler();
+
+        private AddHandler() {
+            super(ATTRIBUTES);
+        }
+
+        @Override
+        protected void performRuntime(OperationContext context, ModelNode operation, ModelNode model) throws OperationFailedException {
+            final int maxAsync = MAX_ASYNC.resolveModelAttribute(context, model).asInt();
+            final int maxQueued = MAX_QUEUED.resolveModelAttribute(context, model).asInt();
+            if (maxQueued == 0) {
+                throw MicroProfileContextPropagationLogger.LOGGER.invalidMaxQueued(MAX_QUEUED.getName());
+            }
+            final String[] propagated = resolveContextTypes(context, model, PROPAGATED);
+            final String[] cleared = resolveContextTypes(context, model, CLEARED);
+
+            // The subsystem's thread-type is a boot time attribute, so it cannot change under an existing pool
+            final ModelNode subsystemModel = context.readResourceFromRoot(context.getCurrentAddress().getParent(), false).getModel();
+            final ThreadType threadType = ThreadType.forName(MicroProfileContextPropagationSubsystemDefinition.THREAD_TYPE.resolveModelAttribute(context, subsystemModel).asString());
+
+            final CapabilityServiceBuilder<?> builder = context.getCapabilityServiceTarget().addCapability(MANAGED_EXECUTOR_CAPABILITY);
+            final Consumer<NamedManagedExecutor> executorConsumer = builder.provides(MANAGED_EXECUTOR_CAPABILITY);
+            builder.setInstance(new ManagedExecutorService(context.getCurrentAddressValue(), threadType, maxAsync, maxQueued, propagated, cleared, executorConsumer));
+            builder.install();
+        }
+    }
+}
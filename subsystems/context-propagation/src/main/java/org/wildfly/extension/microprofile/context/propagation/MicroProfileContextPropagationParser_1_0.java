@@ -32,6 +32,13 @@ public class MicroProfileContextPropagationParser_1_0 extends PersistentResource
 
     static {
         xmlDescription = builder(MicroProfileContextPropagationExtension.SUBSYSTEM_PATH, NAMESPACE)
+                .addAttribute(MicroProfileContextPropagationSubsystemDefinition.THREAD_TYPE)
+                .addChild(
+                        builder(ManagedExecutorResourceDefinition.PATH)
+                                .addAttributes(ManagedExecutorResourceDefinition.ATTRIBUTES))
+                .addChild(
+                        builder(ThreadContextResourceDefinition.PATH)
+                                .addAttributes(ThreadContextResourceDefinition.ATTRIBUTES))
                 .build();
     }
 
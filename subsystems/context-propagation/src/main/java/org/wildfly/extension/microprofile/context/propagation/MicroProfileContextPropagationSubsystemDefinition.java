@@ -22,22 +22,33 @@ import static org.jboss.as.server.deployment.Phase.POST_MODULE;
 import static org.wildfly.extension.microprofile.context.propagation.MicroProfileContextPropagationExtension.CONFIG_CAPABILITY_NAME;
 import static org.wildfly.extension.microprofile.context.propagation.MicroProfileContextPropagationExtension.WELD_CAPABILITY_NAME;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import org.jboss.as.controller.AbstractBoottimeAddStepHandler;
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.ModelOnlyRemoveStepHandler;
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.PersistentResourceDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.capability.RuntimeCapability;
+import org.jboss.as.controller.operations.validation.EnumValidator;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.server.AbstractDeploymentChainStep;
 import org.jboss.as.server.DeploymentProcessorTarget;
 import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 import org.wildfly.extension.microprofile.context.propagation._private.MicroProfileContextPropagationLogger;
 import org.wildfly.extension.microprofile.context.propagation.deployment.ContextPropagationDependencyProcessor;
+import org.wildfly.extension.microprofile.context.propagation.deployment.ContextPropagationDeploymentProcessor;
+import org.wildfly.extension.microprofile.context.propagation.executor.ThreadType;
+import org.wildfly.extension.microprofile.context.propagation.providers.ApplicationContextProvider;
 
 /**
  * @author <a href="mailto:kabir.khan@jboss.com">Kabir Khan</a>
@@ -51,6 +62,19 @@ public class MicroProfileContextPropagationSubsystemDefinition extends Persisten
             .addRequirements(CONFIG_CAPABILITY_NAME, WELD_CAPABILITY_NAME)
             .build();
 
+    static final SimpleAttributeDefinition THREAD_TYPE = new SimpleAttributeDefinitionBuilder("thread-type", ModelType.STRING)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(ThreadType.PLATFORM.toString()))
+            .setValidator(EnumValidator.create(ThreadType.class))
+            .setRestartAllServices()
+            .build();
+
+    static final SimpleAttributeDefinition SKIPPED_CLASS_LOADER_SWAPS = new SimpleAttributeDefinitionBuilder("skipped-class-loader-swaps", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setStorageRuntime()
+            .build();
+
     public MicroProfileContextPropagationSubsystemDefinition() {
         super(
                 new SimpleResourceDefinition.Parameters(
@@ -64,7 +88,23 @@ public class MicroProfileContextPropagationSubsystemDefinition extends Persisten
 
     @Override
     public Collection<AttributeDefinition> getAttributes() {
-        return Collections.emptyList();
+        return Collections.singletonList(THREAD_TYPE);
+    }
+
+    @Override
+    protected List<? extends PersistentResourceDefinition> getChildren() {
+        return Arrays.asList(new ManagedExecutorResourceDefinition(), new ThreadContextResourceDefinition());
+    }
+
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        resourceRegistration.registerMetric(SKIPPED_CLASS_LOADER_SWAPS, new AbstractRuntimeOnlyHandler() {
+            @Override
+            protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+                context.getResult().set(ApplicationContextProvider.getSkippedClassLoaderSwaps());
+            }
+        });
     }
 
     static class AddHandler extends AbstractBoottimeAddStepHandler {
@@ -72,13 +112,18 @@ public class MicroProfileContextPropagationSubsystemDefinition extends Persisten
         static AddHandler INSTANCE = new AddHandler();
 
         private AddHandler() {
-            super(Collections.emptyList());
+            super(THREAD_TYPE);
         }
 
         @Override
         protected void performBoottime(OperationContext context, ModelNode operation, ModelNode model) throws OperationFailedException {
             super.performBoottime(context, operation, model);
 
+            final ThreadType threadType = ThreadType.forName(THREAD_TYPE.resolveModelAttribute(context, model).asString());
+            if (!threadType.isSupported()) {
+                throw MicroProfileContextPropagationLogger.LOGGER.virtualThreadsNotSupported(THREAD_TYPE.getName(), threadType.toString());
+            }
+
             context.addStep(new AbstractDeploymentChainStep() {
                 public void execute(DeploymentProcessorTarget processorTarget) {
 
@@ -86,8 +131,9 @@ public class MicroProfileContextPropagationSubsystemDefinition extends Persisten
                     final int DEPENDENCIES_MICROPROFILE_CONTEXT_PROPAGATION = 6304;
                     final int POST_MODULE_MICROPROFILE_CONTEXT_PROPAGATION = 14240;
 
+                    // The modules the deployment needs, and then what needs its module, i.e. its class loader and annotation index
                     processorTarget.addDeploymentProcessor(MicroProfileContextPropagationExtension.SUBSYSTEM_NAME, DEPENDENCIES, DEPENDENCIES_MICROPROFILE_CONTEXT_PROPAGATION, new ContextPropagationDependencyProcessor());
-                    processorTarget.addDeploymentProcessor(MicroProfileContextPropagationExtension.SUBSYSTEM_NAME, POST_MODULE, POST_MODULE_MICROPROFILE_CONTEXT_PROPAGATION, new ContextPropagationDependencyProcessor());
+                    processorTarget.addDeploymentProcessor(MicroProfileContextPropagationExtension.SUBSYSTEM_NAME, POST_MODULE, POST_MODULE_MICROPROFILE_CONTEXT_PROPAGATION, new ContextPropagationDeploymentProcessor(WELD_CAPABILITY_NAME, threadType));
                 }
             }, RUNTIME);
 
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.context.propagation;
+
+import static org.wildfly.extension.microprofile.context.propagation.ManagedExecutorResourceDefinition.contextTypes;
+import static org.wildfly.extension.microprofile.context.propagation.ManagedExecutorResourceDefinition.resolveContextTypes;
+import static org.wildfly.extension.microprofile.context.propagation.MicroProfileContextPropagationExtension.SUBSYSTEM_NAME;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import org.jboss.as.controller.AbstractAddStepHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.CapabilityServiceBuilder;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.PersistentResourceDefinition;
+import org.jboss.as.controller.ServiceRemoveStepHandler;
+import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.StringListAttributeDefinition;
+import org.jboss.as.controller.capability.RuntimeCapability;
+import org.jboss.dmr.ModelNode;
+import org.wildfly.extension.microprofile.context.propagation.executor.NamedThreadContext;
+import org.wildfly.extension.microprofile.context.propagation.executor.ThreadContextService;
+
+/**
+ * The context propagation settings of the {@code ThreadContext}s injected into deployments with
+ * {@code @NamedInstance("<name>")}.
+ */
+public class ThreadContextResourceDefinition extends PersistentResourceDefinition {
+
+    static final String THREAD_CONTEXT = "thread-context";
+    static final PathElement PATH = PathElement.pathElement(THREAD_CONTEXT);
+
+    public static final String THREAD_CONTEXT_CAPABILITY_NAME = "org.wildfly.microprofile.context-propagation.thread-context";
+
+    static final RuntimeCapability<Void> THREAD_CONTEXT_CAPABILITY = RuntimeCapability.Builder
+            .of(THREAD_CONTEXT_CAPABILITY_NAME, true, NamedThreadContext.class)
+            .build();
+
+    static final StringListAttributeDefinition PROPAGATED = contextTypes("propagated");
+    static final StringListAttributeDefinition CLEARED = contextTypes("cleared");
+    static final StringListAttributeDefinition UNCHANGED = contextTypes("unchanged");
+
+    static final AttributeDefinition[] ATTRIBUTES = {PROPAGATED, CLEARED, UNCHANGED};
+
+    ThreadContextResourceDefinition() {
+        super(new SimpleResourceDefinition.Parameters(
+                PATH,
+                MicroProfileContextPropagationExtension.getResourceDescriptionResolver(SUBSYSTEM_NAME, THREAD_CONTEXT))
+                .setAddHandler(AddHandler.INSTANCE)
+                .setRemoveHandler(new ServiceRemoveStepHandler(AddHandler.INSTANCE))
+                .setCapabilities(THREAD_CONTEXT_CAPABILITY));
+    }
+
+    @Override
+    public Collection<AttributeDefinition> getAttributes() {
+        return Arrays.asList(ATTRIBUTES);
+    }
+
+    static class AddHandler extends AbstractAddStepHandler {
+
+        static final AddHandler INSTANCE = new AddHandler();
+
+        private AddHandler() {
+            super(ATTRIBUTES);
+        }
+
+        @Override
+        protected void performRuntime(OperationContext context, ModelNode operation, ModelNode model) throws OperationFailedException {
+            final String[] propagated = resolveContextTypes(context, model, PROPAGATED);
+            final String[] cleared = resolveContextTypes(context, model, CLEARED);
+            final String[] unchanged = resolveContextTypes(context, model, UNCHANGED);
+
+            final CapabilityServiceBuilder<?> builder = context.getCapabilityServiceTarget().addCapability(THREAD_CONTEXT_CAPABILITY);
+            final Consumer<NamedThreadContext> threadContextConsumer = builder.provides(THREAD_CONTEXT_CAPABILITY);
+            builder.setInstance(new ThreadContextService(context.getCurrentAddressValue(), propagated, cleared, unchanged, threadContextConsumer));
+            builder.install();
+        }
+    }
+}
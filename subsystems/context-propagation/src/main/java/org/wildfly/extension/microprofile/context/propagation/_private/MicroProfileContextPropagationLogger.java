@@ -18,6 +18,7 @@ package org.wildfly.extension.microprofile.context.propagation._private;
 
 import static org.jboss.logging.Logger.Level.INFO;
 
+import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
 import org.jboss.logging.BasicLogger;
 import org.jboss.logging.Logger;
@@ -45,4 +46,10 @@ public interface MicroProfileContextPropagationLogger extends BasicLogger {
 
     @Message(id = 2, value = "Deployment %s requires use of the '%s' capability but it is not currently registered")
     DeploymentUnitProcessingException deploymentRequiresCapability(String deploymentName, String capabilityName);
+
+    @Message(id = 3, value = "'%s' is set to '%s', but this JVM does not support virtual threads. JDK 21 or later is required")
+    OperationFailedException virtualThreadsNotSupported(String attributeName, String value);
+
+    @Message(id = 4, value = "'%s' must be greater than 0, or -1 for no limit")
+    OperationFailedException invalidMaxQueued(String attributeName);
 }
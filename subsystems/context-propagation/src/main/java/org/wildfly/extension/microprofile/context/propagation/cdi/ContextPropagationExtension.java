@@ -0,0 +1,265 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.context.propagation.cdi;
+
+import static javax.interceptor.Interceptor.Priority.LIBRARY_BEFORE;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+import javax.annotation.Priority;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.BeforeDestroyed;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Default;
+import javax.enterprise.inject.Produces;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.Annotated;
+import javax.enterprise.inject.spi.AnnotatedField;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.InjectionPoint;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import javax.enterprise.inject.spi.ProcessInjectionPoint;
+import javax.enterprise.inject.spi.WithAnnotations;
+import javax.inject.Qualifier;
+
+import io.smallrye.context.SmallRyeContextManager;
+import io.smallrye.context.SmallRyeManagedExecutor;
+import io.smallrye.context.SmallRyeThreadContext;
+import io.smallrye.context.api.ManagedExecutorConfig;
+import io.smallrye.context.api.NamedInstance;
+import io.smallrye.context.api.ThreadContextConfig;
+import io.smallrye.context.impl.DefaultValues;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.eclipse.microprofile.context.ThreadContext;
+import org.eclipse.microprofile.context.spi.ContextManagerProvider;
+import org.wildfly.extension.microprofile.context.propagation.executor.NamedManagedExecutor;
+import org.wildfly.extension.microprofile.context.propagation.executor.NamedThreadContext;
+import org.wildfly.extension.microprofile.context.propagation.executor.SharedPoolExecutorService;
+import org.wildfly.extension.microprofile.context.propagation.executor.VirtualThreadManagedExecutorBuilder;
+
+/**
+ * CDI extension providing the {@code ManagedExecutor}s and {@code ThreadContext}s injected into a deployment.
+ * <p>
+ * The {@code managed-executor}s and {@code thread-context}s defined in the subsystem are injectable with the
+ * {@link NamedInstance} qualifier, e.g.
+ * <pre>
+ * &#64;Inject &#64;NamedInstance("batch") ManagedExecutor executor;
+ * </pre>
+ * and all the deployments injecting a {@code managed-executor} share its pool. The deployment depends on the ones it
+ * injects, as found by {@code ContextPropagationDeploymentProcessor}, so they are up until it has been stopped.
+ * Unqualified injection points all get the same application scoped instance, configured from the deployment's
+ * {@code mp.context.*} MicroProfile Config properties, unless the deployment produces its own. With the
+ * {@code virtual} thread type, the tasks of that instance run on virtual threads.
+ * <p>
+ * SmallRye's own extension would otherwise create a new instance, with its own threads, for each such injection
+ * point. The injection points are claimed first by adding {@link SubsystemDefined} to them, which SmallRye skips.
+ * Injection points annotated with SmallRye's {@code @ManagedExecutorConfig} or {@code @ThreadContextConfig} are left
+ * to SmallRye, as they ask for an instance of their own.
+ */
+public class ContextPropagationExtension implements Extension {
+
+    private final ClassLoader classLoader;
+    private final Map<String, Supplier<NamedManagedExecutor>> managedExecutors;
+    private final Map<String, Supplier<NamedThreadContext>> threadContexts;
+    private final ThreadFactory virtualThreadFactory;
+    private final Set<String> managedExecutorNames = new HashSet<>();
+    private final Set<String> threadContextNames = new HashSet<>();
+    private final List<SharedPoolExecutorService> executors = new CopyOnWriteArrayList<>();
+    private boolean deploymentProducesManagedExecutor;
+    private boolean deploymentProducesThreadContext;
+    private boolean defaultManagedExecutorInjected;
+    private boolean defaultThreadContextInjected;
+
+    /**
+     * @param classLoader the deployment's class loader
+     * @param managedExecutors the {@code managed-executor}s the deployment depends on, by name
+     * @param threadContexts the {@code thread-context}s the deployment depends on, by name
+     * @param virtualThreadFactory the factory of the threads of the unqualified {@code ManagedExecutor}, if they are
+     *                             virtual threads, or {@code null} to leave them to SmallRye
+     */
+    public ContextPropagationExtension(ClassLoader classLoader, Map<String, Supplier<NamedManagedExecutor>> managedExecutors,
+                                       Map<String, Supplier<NamedThreadContext>> threadContexts, ThreadFactory virtualThreadFactory) {
+        this.classLoader = classLoader;
+        this.managedExecutors = managedExecutors;
+        this.threadContexts = threadContexts;
+        this.virtualThreadFactory = virtualThreadFactory;
+    }
+
+    /**
+     * Types are all processed before any injection point, so this knows in time whether the deployment has its own
+     * unqualified producer, which the injection points must keep resolving to.
+     */
+    void findDefaultProducers(@Observes @WithAnnotations(Produces.class) ProcessAnnotatedType<?> pat) {
+        for (Annotated producer : getProducers(pat.getAnnotatedType())) {
+            if (isDefault(producer.getAnnotations())) {
+                deploymentProducesManagedExecutor |= producer.getBaseType() == ManagedExecutor.class;
+                deploymentProducesThreadContext |= producer.getBaseType() == ThreadContext.class;
+            }
+        }
+    }
+
+    void claimManagedExecutor(@Observes @Priority(LIBRARY_BEFORE) ProcessInjectionPoint<?, ManagedExecutor> pip) {
+        final InjectionPoint injectionPoint = pip.getInjectionPoint();
+        final String name = getName(injectionPoint.getQualifiers());
+        if (name != null && managedExecutors.containsKey(name)) {
+            pip.configureInjectionPoint().addQualifier(SubsystemDefined.Literal.INSTANCE);
+            managedExecutorNames.add(name);
+        } else if (name == null && !deploymentProducesManagedExecutor && isDefault(injectionPoint.getQualifiers())
+                && !isAnnotated(injectionPoint, ManagedExecutorConfig.class)) {
+            pip.configureInjectionPoint().addQualifier(SubsystemDefined.Literal.INSTANCE);
+            defaultManagedExecutorInjected = true;
+        }
+    }
+
+    void claimThreadContext(@Observes @Priority(LIBRARY_BEFORE) ProcessInjectionPoint<?, ThreadContext> pip) {
+        final InjectionPoint injectionPoint = pip.getInjectionPoint();
+        final String name = getName(injectionPoint.getQualifiers());
+        if (name != null && threadContexts.containsKey(name)) {
+            pip.configureInjectionPoint().addQualifier(SubsystemDefined.Literal.INSTANCE);
+            threadContextNames.add(name);
+        } else if (name == null && !deploymentProducesThreadContext && isDefault(injectionPoint.getQualifiers())
+                && !isAnnotated(injectionPoint, ThreadContextConfig.class)) {
+            pip.configureInjectionPoint().addQualifier(SubsystemDefined.Literal.INSTANCE);
+            defaultThreadContextInjected = true;
+        }
+    }
+
+    void addBeans(@Observes AfterBeanDiscovery abd) {
+        for (String name : managedExecutorNames) {
+            final Supplier<NamedManagedExecutor> managedExecutor = managedExecutors.get(name);
+            abd.addBean()
+                    .types(ManagedExecutor.class, Object.class)
+                    .qualifiers(NamedInstance.Literal.of(name), SubsystemDefined.Literal.INSTANCE)
+                    .scope(ApplicationScoped.class)
+                    .createWith(c -> newManagedExecutor(managedExecutor.get()));
+        }
+        for (String name : threadContextNames) {
+            final Supplier<NamedThreadContext> threadContext = threadContexts.get(name);
+            abd.addBean()
+                    .types(ThreadContext.class, Object.class)
+                    .qualifiers(NamedInstance.Literal.of(name), SubsystemDefined.Literal.INSTANCE)
+                    .scope(ApplicationScoped.class)
+                    .createWith(c -> newThreadContext(threadContext.get()));
+        }
+        if (defaultManagedExecutorInjected) {
+            abd.addBean()
+                    .types(ManagedExecutor.class, Object.class)
+                    .qualifiers(SubsystemDefined.Literal.INSTANCE)
+                    .scope(ApplicationScoped.class)
+                    .<ManagedExecutor>createWith(c -> newDefaultManagedExecutor())
+                    .destroyWith((executor, c) -> executor.shutdown());
+        }
+        if (defaultThreadContextInjected) {
+            abd.addBean()
+                    .types(ThreadContext.class, Object.class)
+                    .qualifiers(SubsystemDefined.Literal.INSTANCE)
+                    .scope(ApplicationScoped.class)
+                    .createWith(c -> ContextManagerProvider.instance().getContextManager(classLoader).newThreadContextBuilder().build());
+        }
+    }
+
+    void closeExecutors(@Observes @BeforeDestroyed(ApplicationScoped.class) Object event) {
+        for (SharedPoolExecutorService executor : executors) {
+            executor.close();
+        }
+    }
+
+    private ManagedExecutor newDefaultManagedExecutor() {
+        if (virtualThreadFactory != null) {
+            return new VirtualThreadManagedExecutorBuilder(getContextManager(), virtualThreadFactory).build();
+        }
+        return ContextManagerProvider.instance().getContextManager(classLoader).newManagedExecutorBuilder().build();
+    }
+
+    private ManagedExecutor newManagedExecutor(NamedManagedExecutor managedExecutor) {
+        final SmallRyeContextManager contextManager = getContextManager();
+        final DefaultValues defaults = contextManager.getDefaultValues();
+        final SmallRyeThreadContext threadContext = new SmallRyeThreadContext(contextManager,
+                valueOrDefault(managedExecutor.getPropagated(), defaults.getExecutorPropagated()),
+                SmallRyeContextManager.NO_STRING,
+                valueOrDefault(managedExecutor.getCleared(), defaults.getExecutorCleared()));
+        final SharedPoolExecutorService executor = new SharedPoolExecutorService(managedExecutor.getPool());
+        executors.add(executor);
+        return new SmallRyeManagedExecutor(managedExecutor.getMaxAsync(), managedExecutor.getMaxQueued(), threadContext, executor, managedExecutor.getName());
+    }
+
+    private ThreadContext newThreadContext(NamedThreadContext threadContext) {
+        final SmallRyeContextManager contextManager = getContextManager();
+        final DefaultValues defaults = contextManager.getDefaultValues();
+        return new SmallRyeThreadContext(contextManager,
+                valueOrDefault(threadContext.getPropagated(), defaults.getThreadPropagated()),
+                valueOrDefault(threadContext.getUnchanged(), defaults.getThreadUnchanged()),
+                valueOrDefault(threadContext.getCleared(), defaults.getThreadCleared()));
+    }
+
+    private SmallRyeContextManager getContextManager() {
+        return (SmallRyeContextManager) ContextManagerProvider.instance().getContextManager(classLoader);
+    }
+
+    private static String[] valueOrDefault(String[] value, String[] defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    private static List<Annotated> getProducers(AnnotatedType<?> type) {
+        final List<Annotated> producers = new ArrayList<>();
+        for (AnnotatedMethod<?> method : type.getMethods()) {
+            if (method.isAnnotationPresent(Produces.class)) {
+                producers.add(method);
+            }
+        }
+        for (AnnotatedField<?> field : type.getFields()) {
+            if (field.isAnnotationPresent(Produces.class)) {
+                producers.add(field);
+            }
+        }
+        return producers;
+    }
+
+    private static boolean isDefault(Set<Annotation> annotations) {
+        for (Annotation annotation : annotations) {
+            final Class<? extends Annotation> type = annotation.annotationType();
+            if (type != Default.class && type != Any.class && type.isAnnotationPresent(Qualifier.class)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAnnotated(InjectionPoint injectionPoint, Class<? extends Annotation> annotationType) {
+        return injectionPoint.getAnnotated() != null && injectionPoint.getAnnotated().isAnnotationPresent(annotationType);
+    }
+
+    private static String getName(Set<Annotation> qualifiers) {
+        for (Annotation qualifier : qualifiers) {
+            if (qualifier instanceof NamedInstance) {
+                return ((NamedInstance) qualifier).value();
+            }
+        }
+        return null;
+    }
+}
@@ -16,34 +16,105 @@
 
 package org.wildfly.extension.microprofile.context.propagation.deployment;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
 import org.jboss.as.controller.capability.CapabilityServiceSupport;
 import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DelegatingSupplier;
 import org.jboss.as.server.deployment.DeploymentPhaseContext;
 import org.jboss.as.server.deployment.DeploymentUnit;
 import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
 import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.as.server.deployment.annotation.CompositeIndex;
+import org.jboss.as.weld.WeldCapability;
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationValue;
+import org.jboss.jandex.DotName;
+import org.jboss.modules.Module;
+import org.wildfly.extension.microprofile.context.propagation.ManagedExecutorResourceDefinition;
+import org.wildfly.extension.microprofile.context.propagation.ThreadContextResourceDefinition;
+import org.wildfly.extension.microprofile.context.propagation._private.MicroProfileContextPropagationLogger;
+import org.wildfly.extension.microprofile.context.propagation.cdi.ContextPropagationExtension;
+import org.wildfly.extension.microprofile.context.propagation.executor.NamedManagedExecutor;
+import org.wildfly.extension.microprofile.context.propagation.executor.NamedThreadContext;
+import org.wildfly.extension.microprofile.context.propagation.executor.ThreadType;
+import org.wildfly.extension.microprofile.context.propagation.providers.ApplicationContextProvider;
 
 /**
+ * Sets up the context propagation of a deployment once its module has been created: it registers the deployment's class
+ * loader with {@link ApplicationContextProvider}, and, for a CDI deployment, makes it depend on the
+ * {@code managed-executor}s and {@code thread-context}s it injects and registers the {@link ContextPropagationExtension}
+ * providing them.
  */
 public class ContextPropagationDeploymentProcessor implements DeploymentUnitProcessor {
 
+    private static final DotName NAMED_INSTANCE = DotName.createSimple("io.smallrye.context.api.NamedInstance");
+
     private final String weldCapabilityName;
+    private final ThreadFactory virtualThreadFactory;
 
-    public ContextPropagationDeploymentProcessor(String weldCapabilityName) {
+    public ContextPropagationDeploymentProcessor(String weldCapabilityName, ThreadType threadType) {
         this.weldCapabilityName = weldCapabilityName;
+        this.virtualThreadFactory = threadType == ThreadType.VIRTUAL ? ThreadType.newVirtualThreadFactory("managed-executor-") : null;
     }
 
     @Override
     public void deploy(DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
         DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
 
+        final Module module = deploymentUnit.getAttachment(Attachments.MODULE);
+        if (module == null) {
+            return;
+        }
+        ApplicationContextProvider.registerClassLoader(module.getClassLoader());
+
         final CapabilityServiceSupport support = deploymentUnit.getAttachment(Attachments.CAPABILITY_SERVICE_SUPPORT);
+        final WeldCapability weldCapability;
+        try {
+            weldCapability = support.getCapabilityRuntimeAPI(weldCapabilityName, WeldCapability.class);
+        } catch (CapabilityServiceSupport.NoSuchCapabilityException e) {
+            throw MicroProfileContextPropagationLogger.LOGGER.deploymentRequiresCapability(deploymentUnit.getName(), weldCapabilityName);
+        }
+        if (weldCapability.isPartOfWeldDeployment(deploymentUnit)) {
+            // The named instances the deployment injects must be up before its beans are created, and must not be
+            // stopped while it uses them
+            final Map<String, Supplier<NamedManagedExecutor>> managedExecutors = new HashMap<>();
+            final Map<String, Supplier<NamedThreadContext>> threadContexts = new HashMap<>();
+            final CompositeIndex index = deploymentUnit.getAttachment(Attachments.COMPOSITE_ANNOTATION_INDEX);
+            if (index != null) {
+                for (AnnotationInstance namedInstance : index.getAnnotations(NAMED_INSTANCE)) {
+                    final AnnotationValue name = namedInstance.value();
+                    if (name != null) {
+                        requires(phaseContext, support, ManagedExecutorResourceDefinition.MANAGED_EXECUTOR_CAPABILITY_NAME, name.asString(), managedExecutors);
+                        requires(phaseContext, support, ThreadContextResourceDefinition.THREAD_CONTEXT_CAPABILITY_NAME, name.asString(), threadContexts);
+                    }
+                }
+            }
+            weldCapability.registerExtensionInstance(new ContextPropagationExtension(module.getClassLoader(), managedExecutors, threadContexts, virtualThreadFactory), deploymentUnit);
+        }
+    }
 
-        // TODO install extension to do any needed CDI stuff
+    /**
+     * Makes the deployment depend on a named instance defined in the subsystem, if there is one. Otherwise, the name
+     * is left to SmallRye, e.g. for an instance produced by the deployment itself.
+     */
+    private static <T> void requires(DeploymentPhaseContext phaseContext, CapabilityServiceSupport support, String capabilityName,
+                                     String name, Map<String, Supplier<T>> instances) {
+        if (!instances.containsKey(name) && support.hasCapability(capabilityName + "." + name)) {
+            final DelegatingSupplier<T> instance = new DelegatingSupplier<>();
+            phaseContext.requires(support.getCapabilityServiceName(capabilityName, name), instance);
+            instances.put(name, instance);
+        }
     }
 
     @Override
     public void undeploy(DeploymentUnit context) {
-
+        final Module module = context.getAttachment(Attachments.MODULE);
+        if (module != null) {
+            ApplicationContextProvider.unregisterClassLoader(module.getClassLoader());
+        }
     }
-}
\ No newline at end of file
+}
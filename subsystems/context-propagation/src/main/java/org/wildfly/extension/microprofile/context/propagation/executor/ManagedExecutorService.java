@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.context.propagation.executor;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.jboss.msc.Service;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.jboss.threads.JBossThreadFactory;
+
+/**
+ * Service for a {@code managed-executor}. Its pool is sized like the ones SmallRye creates for each
+ * {@code ManagedExecutor}, but is shared by every {@code ManagedExecutor} injected under its name.
+ */
+public class ManagedExecutorService implements Service {
+
+    private static final long KEEP_ALIVE_SECONDS = 5;
+
+    private final String name;
+    private final ThreadType threadType;
+    private final int maxAsync;
+    private final int maxQueued;
+    private final String[] propagated;
+    private final String[] cleared;
+    private final Consumer<NamedManagedExecutor> executorConsumer;
+    private volatile NamedManagedExecutor managedExecutor;
+
+    public ManagedExecutorService(String name, ThreadType threadType, int maxAsync, int maxQueued, String[] propagated, String[] cleared, Consumer<NamedManagedExecutor> executorConsumer) {
+        this.name = name;
+        this.threadType = threadType;
+        this.maxAsync = maxAsync;
+        this.maxQueued = maxQueued;
+        this.propagated = propagated;
+        this.cleared = cleared;
+        this.executorConsumer = executorConsumer;
+    }
+
+    @Override
+    public void start(StartContext context) {
+        final ThreadFactory threadFactory = threadType == ThreadType.VIRTUAL
+                ? ThreadType.newVirtualThreadFactory("managed-executor-" + name + " - ")
+                : new JBossThreadFactory(new ThreadGroup("managed-executor-" + name), Boolean.FALSE, null, "%G - %t", null, null);
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(maxAsync, maxAsync, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(maxQueued == -1 ? Integer.MAX_VALUE : maxQueued), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        managedExecutor = new NamedManagedExecutor(name, pool, maxAsync, maxQueued, propagated, cleared);
+        executorConsumer.accept(managedExecutor);
+    }
+
+    @Override
+    public void stop(StopContext context) {
+        executorConsumer.accept(null);
+        // The deployments injecting it depend on it, so they have all been stopped by now
+        managedExecutor.getPool().shutdown();
+        managedExecutor = null;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.context.propagation.executor;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A {@code managed-executor} defined in the subsystem: a pool of threads shared by all the deployments injecting
+ * it, together with the context propagation settings of the {@code ManagedExecutor}s built on it.
+ */
+public final class NamedManagedExecutor {
+
+    private final String name;
+    private final ExecutorService pool;
+    private final int maxAsync;
+    private final int maxQueued;
+    private final String[] propagated;
+    private final String[] cleared;
+
+    NamedManagedExecutor(String name, ExecutorService pool, int maxAsync, int maxQueued, String[] propagated, String[] cleared) {
+        this.name = name;
+        this.pool = pool;
+        this.maxAsync = maxAsync;
+        this.maxQueued = maxQueued;
+        this.propagated = propagated;
+        this.cleared = cleared;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ExecutorService getPool() {
+        return pool;
+    }
+
+    public int getMaxAsync() {
+        return maxAsync;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * @return the context types to propagate, or {@code null} to use the deployment's defaults
+     */
+    public String[] getPropagated() {
+        return propagated;
+    }
+
+    /**
+     * @return the context types to clear, or {@code null} to use the deployment's defaults
+     */
+    public String[] getCleared() {
+        return cleared;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.context.propagation.executor;
+
+/**
+ * A {@code thread-context} defined in the subsystem, i.e. the context propagation settings of the
+ * {@code ThreadContext}s injected into deployments under its name.
+ */
+public final class NamedThreadContext {
+
+    private final String name;
+    private final String[] propagated;
+    private final String[] cleared;
+    private final String[] unchanged;
+
+    NamedThreadContext(String name, String[] propagated, String[] cleared, String[] unchanged) {
+        this.name = name;
+        this.propagated = propagated;
+        this.cleared = cleared;
+        this.unchanged = unchanged;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the context types to propagate, or {@code null} to use the deployment's defaults
+     */
+    public String[] getPropagated() {
+        return propagated;
+    }
+
+    /**
+     * @return the context types to clear, or {@code null} to use the deployment's defaults
+     */
+    public String[] getCleared() {
+        return cleared;
+    }
+
+    /**
+     * @return the context types to leave unchanged, or {@code null} to use the deployment's defaults
+     */
+    public String[] getUnchanged() {
+        return unchanged;
+    }
+}
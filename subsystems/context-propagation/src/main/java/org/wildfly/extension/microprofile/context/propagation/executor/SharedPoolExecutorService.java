@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.context.propagation.executor;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The view of a deployment onto the pool of a {@code managed-executor}. The pool belongs to the subsystem, so the
+ * lifecycle methods throw {@link IllegalStateException}, as the MicroProfile Context Propagation specification
+ * requires for container managed executors. Once the deployment is done with it, {@link #close()} makes it reject
+ * new tasks, while the pool carries on for the other deployments.
+ */
+public class SharedPoolExecutorService extends AbstractExecutorService {
+
+    private final ExecutorService pool;
+    private volatile boolean closed;
+
+    public SharedPoolExecutorService(ExecutorService pool) {
+        this.pool = pool;
+    }
+
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (closed) {
+            throw new RejectedExecutionException();
+        }
+        pool.execute(command);
+    }
+
+    @Override
+    public void shutdown() {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        throw new IllegalStateException();
+    }
+}
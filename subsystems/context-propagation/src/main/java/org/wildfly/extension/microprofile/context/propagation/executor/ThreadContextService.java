@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.context.propagation.executor;
+
+import java.util.function.Consumer;
+
+import org.jboss.msc.Service;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+
+/**
+ * Service for a {@code thread-context}, making it available to deployments while it is up.
+ */
+public class ThreadContextService implements Service {
+
+    private final NamedThreadContext threadContext;
+    private final Consumer<NamedThreadContext> threadContextConsumer;
+
+    public ThreadContextService(String name, String[] propagated, String[] cleared, String[] unchanged, Consumer<NamedThreadContext> threadContextConsumer) {
+        this.threadContext = new NamedThreadContext(name, propagated, cleared, unchanged);
+        this.threadContextConsumer = threadContextConsumer;
+    }
+
+    @Override
+    public void start(StartContext context) {
+        threadContextConsumer.accept(threadContext);
+    }
+
+    @Override
+    public void stop(StopContext context) {
+        threadContextConsumer.accept(null);
+    }
+}
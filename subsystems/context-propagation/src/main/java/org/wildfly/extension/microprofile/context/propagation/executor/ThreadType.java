@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.context.propagation.executor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The kind of threads {@code ManagedExecutor} tasks run on.
+ * <p>
+ * Virtual threads need JDK 21 or later, while this code has to run on Java 8, so they are created reflectively.
+ */
+public enum ThreadType {
+
+    PLATFORM("platform"),
+    VIRTUAL("virtual"),
+    ;
+
+    private final String name;
+
+    ThreadType(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    public static ThreadType forName(String name) {
+        for (ThreadType type : values()) {
+            if (type.name.equals(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    /**
+     * Whether threads of this type can be created by the running JVM. For virtual threads, this is found out by building
+     * one, since the API is there, but disabled, on the JDKs where they are a preview feature.
+     */
+    public boolean isSupported() {
+        return this == PLATFORM || VirtualThreads.OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a factory for virtual threads.
+     *
+     * @param namePrefix the prefix of the names of the threads, which are numbered from 0
+     * @throws IllegalStateException if the running JVM does not support virtual threads
+     */
+    public static ThreadFactory newVirtualThreadFactory(String namePrefix) {
+        if (!VIRTUAL.isSupported()) {
+            throw new IllegalStateException();
+        }
+        try {
+            final Object builder = VirtualThreads.NAME.invoke(VirtualThreads.OF_VIRTUAL.invoke(null), namePrefix, 0L);
+            return (ThreadFactory) VirtualThreads.FACTORY.invoke(builder);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final class VirtualThreads {
+        static final Method OF_VIRTUAL;
+        static final Method NAME;
+        static final Method FACTORY;
+
+        static {
+            Method ofVirtual = null;
+            Method name = null;
+            Method factory = null;
+            try {
+                final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                name = builderClass.getMethod("name", String.class, long.class);
+                factory = builderClass.getMethod("factory");
+                // The thread is not started
+                ((ThreadFactory) factory.invoke(name.invoke(ofVirtual.invoke(null), "probe", 0L))).newThread(() -> { });
+            } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException
+                    | RuntimeException e) {
+                ofVirtual = null;
+            }
+            OF_VIRTUAL = ofVirtual;
+            NAME = name;
+            FACTORY = factory;
+        }
+    }
+}
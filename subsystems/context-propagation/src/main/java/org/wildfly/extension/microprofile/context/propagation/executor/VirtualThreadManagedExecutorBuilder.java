@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.context.propagation.executor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.smallrye.context.SmallRyeContextManager;
+import io.smallrye.context.SmallRyeManagedExecutor;
+import io.smallrye.context.SmallRyeThreadContext;
+import io.smallrye.context.impl.DefaultValues;
+import org.eclipse.microprofile.context.ManagedExecutor;
+
+/**
+ * Builds {@code ManagedExecutor}s whose tasks run on virtual threads.
+ * <p>
+ * The context is captured and propagated by SmallRye, with the {@link SmallRyeContextManager} of the deployment,
+ * which stays the one registered for its class loader. The executors are sized the same way SmallRye sizes its own,
+ * except that an unbounded {@code maxAsync} really is unbounded rather than being the number of processors, since
+ * that limit only exists to keep the number of platform threads down.
+ */
+public class VirtualThreadManagedExecutorBuilder implements ManagedExecutor.Builder {
+
+    private final SmallRyeContextManager contextManager;
+    private final ThreadFactory threadFactory;
+    private String[] propagated;
+    private String[] cleared;
+    private int maxAsync;
+    private int maxQueued;
+
+    public VirtualThreadManagedExecutorBuilder(SmallRyeContextManager contextManager, ThreadFactory threadFactory) {
+        this.contextManager = contextManager;
+        this.threadFactory = threadFactory;
+        final DefaultValues defaultValues = contextManager.getDefaultValues();
+        propagated = defaultValues.getExecutorPropagated();
+        cleared = defaultValues.getExecutorCleared();
+        maxAsync = defaultValues.getExecutorAsync();
+        maxQueued = defaultValues.getExecutorQueue();
+    }
+
+    @Override
+    public ManagedExecutor build() {
+        final SmallRyeThreadContext threadContext = new SmallRyeThreadContext(contextManager, propagated, SmallRyeContextManager.NO_STRING, cleared);
+        return new SmallRyeManagedExecutor(maxAsync, maxQueued, threadContext, newExecutor(), null);
+    }
+
+    @Override
+    public ManagedExecutor.Builder propagated(String... types) {
+        propagated = types;
+        return this;
+    }
+
+    @Override
+    public ManagedExecutor.Builder maxAsync(int max) {
+        if (max == 0 || max < -1) {
+            throw new IllegalArgumentException("maxAsync must be greater than 0 or -1, but was " + max);
+        }
+        maxAsync = max;
+        return this;
+    }
+
+    @Override
+    public ManagedExecutor.Builder maxQueued(int max) {
+        if (max == 0 || max < -1) {
+            throw new IllegalArgumentException("maxQueued must be greater than 0 or -1, but was " + max);
+        }
+        maxQueued = max;
+        return this;
+    }
+
+    @Override
+    public ManagedExecutor.Builder cleared(String... types) {
+        cleared = types;
+        return this;
+    }
+
+    private ExecutorService newExecutor() {
+        final int threads = maxAsync == -1 ? Integer.MAX_VALUE : maxAsync;
+        final int queue = maxQueued == -1 ? Integer.MAX_VALUE : maxQueued;
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 5, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queue), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
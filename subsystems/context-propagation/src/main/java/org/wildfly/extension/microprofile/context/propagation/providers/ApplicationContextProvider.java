@@ -17,7 +17,12 @@
 package org.wildfly.extension.microprofile.context.propagation.providers;
 
 import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.microprofile.context.ThreadContext;
 import org.eclipse.microprofile.context.spi.ThreadContextController;
@@ -26,17 +31,66 @@ import org.eclipse.microprofile.context.spi.ThreadContextSnapshot;
 import org.wildfly.security.manager.WildFlySecurityManager;
 
 /**
+ * Propagates the thread context class loader.
+ * <p>
+ * Context is captured for every stage of a pipeline run by a {@code ManagedExecutor}, so nothing is allocated to
+ * capture or restore it for the class loaders of deployments, which are registered by the deployment processor
+ * for as long as the deployment is deployed, for the system class loader, or for no class loader at all. Capturing
+ * any other class loader allocates a new snapshot, but restoring it does not.
+ * <p>
+ * Most tasks continue on a thread which already has the right class loader, e.g. one of the deployment's own
+ * threads, so it is only set when it differs, which saves a privileged action when running with a security manager.
+ *
  * @author <a href="mailto:kabir.khan@jboss.com">Kabir Khan</a>
  */
 public class ApplicationContextProvider implements ThreadContextProvider {
+
+    private static final LongAdder SKIPPED_SWAPS = new LongAdder();
+
+    private static final ThreadContextController NO_OP_CONTROLLER = () -> { };
+
+    private static final ConcurrentMap<ClassLoader, ApplicationThreadContextSnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+
+    private static final ApplicationThreadContextSnapshot SYSTEM_SNAPSHOT =
+            new ApplicationThreadContextSnapshot(WildFlySecurityManager.doChecked(GetSystemClassLoaderAction.INSTANCE));
+
+    private static final ApplicationThreadContextSnapshot NULL_SNAPSHOT = new ApplicationThreadContextSnapshot(null);
+
+    /**
+     * The class loaders, other than the ones with a cached snapshot, to set back at the end of the contexts begun on
+     * the thread. Contexts end on the thread they were begun on, in the reverse order.
+     */
+    private static final ThreadLocal<Deque<ClassLoader>> PREVIOUS_CLASS_LOADERS = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private static final ThreadContextController RESTORE_PREVIOUS_CONTROLLER = () -> setClassLoader(PREVIOUS_CLASS_LOADERS.get().pop());
+
+    /**
+     * Makes capturing and restoring the given class loader allocation free, until it is unregistered.
+     */
+    public static void registerClassLoader(ClassLoader classLoader) {
+        SNAPSHOTS.putIfAbsent(classLoader, new ApplicationThreadContextSnapshot(classLoader));
+    }
+
+    public static void unregisterClassLoader(ClassLoader classLoader) {
+        SNAPSHOTS.remove(classLoader);
+    }
+
+    /**
+     * Returns the number of times the thread context class loader was not set when beginning or ending a context,
+     * because the thread already had it.
+     */
+    public static long getSkippedClassLoaderSwaps() {
+        return SKIPPED_SWAPS.sum();
+    }
+
     @Override
     public ThreadContextSnapshot currentContext(Map<String, String> props) {
-        return ApplicationThreadContextSnapshot.create(true);
+        return snapshotFor(WildFlySecurityManager.getCurrentContextClassLoaderPrivileged());
     }
 
     @Override
     public ThreadContextSnapshot clearedContext(Map<String, String> props) {
-        return ApplicationThreadContextSnapshot.create(false);
+        return SYSTEM_SNAPSHOT;
     }
 
     @Override
@@ -44,34 +98,63 @@ public class ApplicationContextProvider implements ThreadContextProvider {
         return ThreadContext.APPLICATION;
     }
 
-    private static class ApplicationThreadContextSnapshot implements ThreadContextSnapshot {
-        final ClassLoader tccl;
-        final boolean propagate;
+    private static ApplicationThreadContextSnapshot snapshotFor(ClassLoader classLoader) {
+        final ApplicationThreadContextSnapshot snapshot = cachedSnapshotFor(classLoader);
+        return snapshot != null ? snapshot : new ApplicationThreadContextSnapshot(classLoader);
+    }
 
-        private ApplicationThreadContextSnapshot(ClassLoader tccl, boolean propagate) {
-            this.tccl = tccl;
-            this.propagate = propagate;
+    private static ApplicationThreadContextSnapshot cachedSnapshotFor(ClassLoader classLoader) {
+        if (classLoader == null) {
+            return NULL_SNAPSHOT;
+        }
+        if (classLoader == SYSTEM_SNAPSHOT.tccl) {
+            return SYSTEM_SNAPSHOT;
         }
+        return SNAPSHOTS.get(classLoader);
+    }
+
+    /**
+     * Sets the thread context class loader to {@link #tccl}. As a {@link ThreadContextController}, it sets it back to
+     * {@link #tccl} at the end of tasks begun while {@link #tccl} was the thread context class loader.
+     */
+    private static class ApplicationThreadContextSnapshot implements ThreadContextSnapshot, ThreadContextController {
+        final ClassLoader tccl;
 
-        static ApplicationThreadContextSnapshot create(boolean propagate) {
-            final ClassLoader tccl = WildFlySecurityManager.getCurrentContextClassLoaderPrivileged();
-            return new ApplicationThreadContextSnapshot(tccl, propagate);
+        private ApplicationThreadContextSnapshot(ClassLoader tccl) {
+            this.tccl = tccl;
         }
 
         @Override
         public ThreadContextController begin() {
-            if (propagate) {
-                WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(tccl);
-            } else {
-                ClassLoader system = WildFlySecurityManager.doChecked(GetSystemClassLoaderAction.INSTANCE);
-                WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(system);
+            // Restore whatever the thread had before rather than the captured class loader, since the thread running
+            // the task is generally not the one the context was captured on, and is reused for other tasks afterwards.
+            final ClassLoader previous = WildFlySecurityManager.getCurrentContextClassLoaderPrivileged();
+            if (previous == tccl) {
+                // Setting it back at the end is skipped as well
+                SKIPPED_SWAPS.add(2);
+                return NO_OP_CONTROLLER;
             }
-            return new ThreadContextController() {
-                @Override
-                public void endContext() throws IllegalStateException {
-                    WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(tccl);
-                }
-            };
+            WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(tccl);
+            final ApplicationThreadContextSnapshot restore = cachedSnapshotFor(previous);
+            if (restore != null) {
+                return restore;
+            }
+            PREVIOUS_CLASS_LOADERS.get().push(previous);
+            return RESTORE_PREVIOUS_CONTROLLER;
+        }
+
+        @Override
+        public void endContext() {
+            setClassLoader(tccl);
+        }
+    }
+
+    private static void setClassLoader(ClassLoader classLoader) {
+        // The task may have set it back itself
+        if (WildFlySecurityManager.getCurrentContextClassLoaderPrivileged() == classLoader) {
+            SKIPPED_SWAPS.increment();
+        } else {
+            WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(classLoader);
         }
     }
 
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging;
+
+import javax.interceptor.Interceptor;
+
+/**
+ * The priorities of the decorators of the SmallRye {@code ChannelRegistry}, so they are applied in a defined order.
+ * The decorator with the lowest priority is called first, and wraps what the others return, so the messages of an
+ * incoming channel go from the connector through the decorators from the highest priority to the lowest:
+ * <ol>
+ *     <li>{@link #MQTT}, counting the messages by topic before anything wraps them</li>
+ *     <li>{@link #ACK_COUNTING}, counting the acknowledgements as they reach the connector</li>
+ *     <li>{@link #CREDIT_FLOW}, bounding how many messages are requested from the connector</li>
+ *     <li>{@link #RING_BUFFER}, handing the messages over to the thread of the ring buffer</li>
+ *     <li>{@link #BATCHING}, putting the batches together from whatever comes before</li>
+ *     <li>{@link #WORKER_POOL}, so its messages are the ones SmallRye acknowledges</li>
+ * </ol>
+ * Of the ones decorating outgoing channels, {@link #PIPELINING} is called before {@link #MQTT}, so the messages are
+ * counted as they are handed to the connector.
+ */
+public final class ChannelRegistryPriorities {
+
+    public static final int WORKER_POOL = Interceptor.Priority.LIBRARY_BEFORE;
+    public static final int BATCHING = Interceptor.Priority.LIBRARY_BEFORE + 10;
+    public static final int PIPELINING = Interceptor.Priority.LIBRARY_BEFORE + 20;
+    public static final int RING_BUFFER = Interceptor.Priority.LIBRARY_BEFORE + 30;
+    public static final int CREDIT_FLOW = Interceptor.Priority.LIBRARY_BEFORE + 40;
+    public static final int ACK_COUNTING = Interceptor.Priority.LIBRARY_BEFORE + 45;
+    public static final int MQTT = Interceptor.Priority.LIBRARY_BEFORE + 50;
+
+    private ChannelRegistryPriorities() {
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.wildfly.extension.microprofile.reactive.messaging.MicroProfileReactiveMessagingExtension.SUBSYSTEM_NAME;
+
+import java.util.Map;
+
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleMapAttributeDefinition;
+import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.registry.AttributeAccess;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.ReactiveMessagingAttachments;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetrics;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetricsRegistry;
+
+/**
+ * Runtime resource exposing the metrics of a channel used by a deployment's {@code @Incoming}/{@code @Outgoing}
+ * methods.
+ */
+public class ChannelResourceDefinition extends SimpleResourceDefinition {
+
+    public static final String CHANNEL = "channel";
+
+    static final SimpleAttributeDefinition MESSAGES_IN = counter("messages-in");
+    static final SimpleAttributeDefinition MESSAGES_OUT = counter("messages-out");
+    static final SimpleAttributeDefinition SUCCESSES = counter("successes");
+    static final SimpleAttributeDefinition FAILURES = counter("failures");
+    // Only defined for the channels whose messages come from a connector
+    static final SimpleAttributeDefinition ACKS = optionalCounter("acks");
+    static final SimpleAttributeDefinition ACK_FAILURES = optionalCounter("ack-failures");
+    static final SimpleAttributeDefinition IN_FLIGHT = new SimpleAttributeDefinitionBuilder("in-flight", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setStorageRuntime()
+            .build();
+    // Only defined for the channels whose connector and configuration they apply to
+    static final SimpleAttributeDefinition SENDS_IN_FLIGHT = new SimpleAttributeDefinitionBuilder("sends-in-flight", ModelType.LONG)
+            .setRequired(false)
+            .setStorageRuntime()
+            .build();
+    static final SimpleAttributeDefinition CREDIT = new SimpleAttributeDefinitionBuilder("credit", ModelType.LONG)
+            .setRequired(false)
+            .setStorageRuntime()
+            .build();
+    static final SimpleAttributeDefinition UNSETTLED = new SimpleAttributeDefinitionBuilder("unsettled", ModelType.LONG)
+            .setRequired(false)
+            .setStorageRuntime()
+            .build();
+    static final SimpleAttributeDefinition PROCESSING_TIME_TOTAL = new SimpleAttributeDefinitionBuilder("processing-time-total", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setMeasurementUnit(MeasurementUnit.NANOSECONDS)
+            .setFlags(AttributeAccess.Flag.COUNTER_METRIC)
+            .setStorageRuntime()
+            .build();
+    static final SimpleMapAttributeDefinition PROCESSING_TIME_HISTOGRAM = new SimpleMapAttributeDefinition.Builder("processing-time-histogram", ModelType.LONG, true)
+            .setStorageRuntime()
+            .build();
+    static final SimpleMapAttributeDefinition MESSAGES_BY_TOPIC = new SimpleMapAttributeDefinition.Builder("messages-by-topic", ModelType.LONG, true)
+            .setRequired(false)
+            .setStorageRuntime()
+            .build();
+
+    static final AttributeDefinition[] METRICS = {MESSAGES_IN, MESSAGES_OUT, SUCCESSES, FAILURES, ACKS, ACK_FAILURES, IN_FLIGHT, SENDS_IN_FLIGHT, CREDIT, UNSETTLED, PROCESSING_TIME_TOTAL, PROCESSING_TIME_HISTOGRAM, MESSAGES_BY_TOPIC};
+
+    ChannelResourceDefinition() {
+        super(new Parameters(
+                PathElement.pathElement(CHANNEL),
+                MicroProfileReactiveMessagingExtension.getResourceDescriptionResolver(SUBSYSTEM_NAME, CHANNEL))
+                .setRuntime());
+    }
+
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        for (AttributeDefinition metric : METRICS) {
+            resourceRegistration.registerMetric(metric, ChannelMetricsHandler.INSTANCE);
+        }
+    }
+
+    private static SimpleAttributeDefinition counter(String name) {
+        return new SimpleAttributeDefinitionBuilder(name, ModelType.LONG)
+                .setUndefinedMetricValue(new ModelNode(0L))
+                .setFlags(AttributeAccess.Flag.COUNTER_METRIC)
+                .setStorageRuntime()
+                .build();
+    }
+
+    private static SimpleAttributeDefinition optionalCounter(String name) {
+        return new SimpleAttributeDefinitionBuilder(name, ModelType.LONG)
+                .setRequired(false)
+                .setFlags(AttributeAccess.Flag.COUNTER_METRIC)
+                .setStorageRuntime()
+                .build();
+    }
+
+    private static class ChannelMetricsHandler extends AbstractRuntimeOnlyHandler {
+
+        static final ChannelMetricsHandler INSTANCE = new ChannelMetricsHandler();
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+            final ChannelMetrics metrics = getChannelMetrics(context);
+            if (metrics == null) {
+                // The deployment is not up
+                return;
+            }
+            final String attributeName = operation.require(NAME).asString();
+            final ModelNode result = context.getResult();
+            if (MESSAGES_IN.getName().equals(attributeName)) {
+                result.set(metrics.getMessagesIn());
+            } else if (MESSAGES_OUT.getName().equals(attributeName)) {
+                result.set(metrics.getMessagesOut());
+            } else if (SUCCESSES.getName().equals(attributeName)) {
+                result.set(metrics.getSuccesses());
+            } else if (FAILURES.getName().equals(attributeName)) {
+                result.set(metrics.getFailures());
+            } else if (ACKS.getName().equals(attributeName)) {
+                if (metrics.isAcksTracked()) {
+                    result.set(metrics.getAcks());
+                }
+            } else if (ACK_FAILURES.getName().equals(attributeName)) {
+                if (metrics.isAcksTracked()) {
+                    result.set(metrics.getAckFailures());
+                }
+            } else if (IN_FLIGHT.getName().equals(attributeName)) {
+                result.set(metrics.getInFlight());
+            } else if (SENDS_IN_FLIGHT.getName().equals(attributeName)) {
+                if (metrics.isSendsTracked()) {
+                    result.set(metrics.getSendsInFlight());
+                }
+            } else if (CREDIT.getName().equals(attributeName)) {
+                if (metrics.isCreditTracked()) {
+                    result.set(metrics.getCredit());
+                }
+            } else if (UNSETTLED.getName().equals(attributeName)) {
+                if (metrics.isCreditTracked()) {
+                    result.set(metrics.getUnsettled());
+                }
+            } else if (PROCESSING_TIME_TOTAL.getName().equals(attributeName)) {
+                result.set(metrics.getProcessingTimeTotal());
+            } else if (PROCESSING_TIME_HISTOGRAM.getName().equals(attributeName)) {
+                long[] counts = metrics.getProcessingTimeHistogram();
+                for (int i = 0; i < counts.length; i++) {
+                    result.get(ChannelMetrics.BUCKET_NAMES[i]).set(counts[i]);
+                }
+            } else if (MESSAGES_BY_TOPIC.getName().equals(attributeName)) {
+                if (metrics.isTopicsTracked()) {
+                    result.setEmptyObject();
+                    for (Map.Entry<String, Long> entry : metrics.getMessagesByTopic().entrySet()) {
+                        result.get(entry.getKey()).set(entry.getValue());
+                    }
+                }
+            }
+        }
+
+        private static ChannelMetrics getChannelMetrics(OperationContext context) {
+            final DeploymentUnit deploymentUnit = MicroProfileReactiveMessagingDeploymentDefinition.getDeploymentUnit(context);
+            final ChannelMetricsRegistry registry = deploymentUnit == null ? null : deploymentUnit.getAttachment(ReactiveMessagingAttachments.CHANNEL_METRICS_REGISTRY);
+            if (registry == null) {
+                return null;
+            }
+            return registry.findChannelMetrics(context.getCurrentAddressValue());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEPLOYMENT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBDEPLOYMENT;
+import static org.wildfly.extension.microprofile.reactive.messaging.MicroProfileReactiveMessagingExtension.SUBSYSTEM_NAME;
+import static org.wildfly.extension.microprofile.reactive.messaging.MicroProfileReactiveMessagingExtension.SUBSYSTEM_PATH;
+
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationDefinition;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.SimpleOperationDefinitionBuilder;
+import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.Services;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.ChannelGraph;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.ReactiveMessagingAttachments;
+
+/**
+ * The runtime subsystem resource of a deployment using Reactive Messaging.
+ */
+public class MicroProfileReactiveMessagingDeploymentDefinition extends SimpleResourceDefinition {
+
+    static final String PUBLISHERS = "publishers";
+    static final String SUBSCRIBERS = "subscribers";
+
+    static final OperationDefinition READ_CHANNEL_GRAPH = new SimpleOperationDefinitionBuilder("read-channel-graph",
+            MicroProfileReactiveMessagingExtension.getResourceDescriptionResolver(SUBSYSTEM_NAME, "deployment"))
+            .setRuntimeOnly()
+            .setReadOnly()
+            .setReplyType(ModelType.OBJECT)
+            .setReplyValueType(ModelType.OBJECT)
+            .build();
+
+    public MicroProfileReactiveMessagingDeploymentDefinition() {
+        super(new Parameters(
+                SUBSYSTEM_PATH,
+                MicroProfileReactiveMessagingExtension.getResourceDescriptionResolver(SUBSYSTEM_NAME, "deployment"))
+                .setRuntime());
+    }
+
+    @Override
+    public void registerChildren(ManagementResourceRegistration resourceRegistration) {
+        resourceRegistration.registerSubModel(new ChannelResourceDefinition());
+    }
+
+    @Override
+    public void registerOperations(ManagementResourceRegistration resourceRegistration) {
+        super.registerOperations(resourceRegistration);
+        resourceRegistration.registerOperationHandler(READ_CHANNEL_GRAPH, ReadChannelGraphHandler.INSTANCE);
+    }
+
+    /**
+     * Gets the deployment unit of the deployment or subdeployment the current address of a runtime handler is in.
+     *
+     * @return the deployment unit, or {@code null} if the deployment is not up
+     */
+    static DeploymentUnit getDeploymentUnit(OperationContext context) {
+        String deployment = null;
+        String subdeployment = null;
+        for (PathElement element : context.getCurrentAddress()) {
+            if (DEPLOYMENT.equals(element.getKey())) {
+                deployment = element.getValue();
+            } else if (SUBDEPLOYMENT.equals(element.getKey())) {
+                subdeployment = element.getValue();
+            }
+        }
+        final ServiceName deploymentUnitName = subdeployment == null ?
+                Services.deploymentUnitName(deployment) :
+                Services.deploymentUnitName(deployment, subdeployment);
+        final ServiceController<?> controller = context.getServiceRegistry(false).getService(deploymentUnitName);
+        return controller == null ? null : (DeploymentUnit) controller.getValue();
+    }
+
+    /**
+     * Returns an object with an entry for each channel of the deployment, listing what publishes to it and what
+     * subscribes to it.
+     */
+    private static class ReadChannelGraphHandler extends AbstractRuntimeOnlyHandler {
+
+        static final ReadChannelGraphHandler INSTANCE = new ReadChannelGraphHandler();
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+            final ModelNode result = context.getResult().setEmptyObject();
+            final ChannelGraph graph = getChannelGraph(context);
+            if (graph == null) {
+                // The deployment is not up
+                return;
+            }
+            for (ChannelGraph.Channel channel : graph.getChannels()) {
+                final ModelNode node = result.get(channel.getName());
+                node.get(PUBLISHERS).setEmptyList();
+                for (ChannelGraph.Endpoint publisher : channel.getPublishers()) {
+                    node.get(PUBLISHERS).add(publisher.toString());
+                }
+                node.get(SUBSCRIBERS).setEmptyList();
+                for (ChannelGraph.Endpoint subscriber : channel.getSubscribers()) {
+                    node.get(SUBSCRIBERS).add(subscriber.toString());
+                }
+            }
+        }
+
+        private static ChannelGraph getChannelGraph(OperationContext context) {
+            final DeploymentUnit deploymentUnit = getDeploymentUnit(context);
+            return deploymentUnit == null ? null : deploymentUnit.getAttachment(ReactiveMessagingAttachments.CHANNEL_GRAPH);
+        }
+    }
+}
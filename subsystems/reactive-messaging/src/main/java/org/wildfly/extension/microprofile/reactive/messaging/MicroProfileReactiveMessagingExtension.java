@@ -94,6 +94,7 @@ public class MicroProfileReactiveMessagingExtension implements Extension {
         sr.registerXMLElementWriter(CURRENT_PARSER);
         final ManagementResourceRegistration root = sr.registerSubsystemModel(new MicroProfileReactiveMessagingSubsystemDefinition());
         root.registerOperationHandler(GenericSubsystemDescribeHandler.DEFINITION, GenericSubsystemDescribeHandler.INSTANCE, false);
+        sr.registerDeploymentModel(new MicroProfileReactiveMessagingDeploymentDefinition());
     }
 
     @Override
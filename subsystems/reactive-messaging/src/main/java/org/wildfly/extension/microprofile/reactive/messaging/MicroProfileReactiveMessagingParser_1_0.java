@@ -32,6 +32,14 @@ public class MicroProfileReactiveMessagingParser_1_0 extends PersistentResourceX
 
     static {
         xmlDescription = builder(MicroProfileReactiveMessagingExtension.SUBSYSTEM_PATH, NAMESPACE)
+                .addAttribute(MicroProfileReactiveMessagingSubsystemDefinition.THREAD_TYPE)
+                .addChild(
+                        builder(WorkerPoolResourceDefinition.PATH)
+                                .addAttributes(WorkerPoolResourceDefinition.ATTRIBUTES))
+                .addChild(
+                        builder(VertxResourceDefinition.PATH)
+                                .setXmlElementName(VertxResourceDefinition.VERTX)
+                                .addAttributes(VertxResourceDefinition.ATTRIBUTES))
                 .build();
     }
 
@@ -18,27 +18,46 @@ package org.wildfly.extension.microprofile.reactive.messaging;
 
 import static org.jboss.as.controller.OperationContext.Stage.RUNTIME;
 import static org.jboss.as.server.deployment.Phase.DEPENDENCIES;
+import static org.jboss.as.server.deployment.Phase.POST_MODULE;
 import static org.wildfly.extension.microprofile.reactive.messaging.MicroProfileReactiveMessagingExtension.REACTIVE_STREAMS_OPERATORS_CAPABILITY_NAME;
 import static org.wildfly.extension.microprofile.reactive.messaging.MicroProfileReactiveMessagingExtension.SUBSYSTEM_NAME;
 import static org.wildfly.extension.microprofile.reactive.messaging.MicroProfileReactiveMessagingExtension.SUBSYSTEM_PATH;
 import static org.wildfly.extension.microprofile.reactive.messaging.MicroProfileReactiveMessagingExtension.WELD_CAPABILITY_NAME;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 
 import org.jboss.as.controller.AbstractBoottimeAddStepHandler;
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
 import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.CapabilityServiceBuilder;
 import org.jboss.as.controller.ModelOnlyRemoveStepHandler;
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.PersistentResourceDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.StringListAttributeDefinition;
 import org.jboss.as.controller.capability.RuntimeCapability;
+import org.jboss.as.controller.operations.validation.EnumValidator;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.server.AbstractDeploymentChainStep;
 import org.jboss.as.server.DeploymentProcessorTarget;
 import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleDependencySpec;
+import org.jboss.msc.Service;
 import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.ChannelGraphProcessor;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.ConnectorModules;
 import org.wildfly.extension.microprofile.reactive.messaging.deployment.ReactiveMessagingDependencyProcessor;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.ReactiveMessagingDeploymentProcessor;
+import org.wildfly.extension.microprofile.reactive.messaging.worker.ThreadType;
 
 /**
  * @author <a href="mailto:kabir.khan@jboss.com">Kabir Khan</a>
@@ -47,48 +66,111 @@ public class MicroProfileReactiveMessagingSubsystemDefinition extends Persistent
 
     private static final String REACTIVE_MESSAGING_CAPABILITY_NAME = "org.wildfly.microprofile.reactive-messaging";
 
-    private static final RuntimeCapability<Void> REACTIVE_STREAMS_OPERATORS_CAPABILITY = RuntimeCapability.Builder
-            .of(REACTIVE_MESSAGING_CAPABILITY_NAME)
-            .addRequirements(WELD_CAPABILITY_NAME)
-            .addRequirements(REACTIVE_STREAMS_OPERATORS_CAPABILITY_NAME)
-            .addRequirements()
+    /**
+     * Its service provides the {@link ConnectorModules} added to the deployments.
+     */
+    private static final RuntimeCapability<Void> REACTIVE_MESSAGING_CAPABILITY = RuntimeCapability.Builder
+            .of(REACTIVE_MESSAGING_CAPABILITY_NAME, false, ConnectorModules.class)
+            .addRequirements(WELD_CAPABILITY_NAME, REACTIVE_STREAMS_OPERATORS_CAPABILITY_NAME)
             .build();
 
+    static final SimpleAttributeDefinition THREAD_TYPE = new SimpleAttributeDefinitionBuilder("thread-type", ModelType.STRING)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(ThreadType.PLATFORM.toString()))
+            .setValidator(EnumValidator.create(ThreadType.class))
+            .setRestartAllServices()
+            .build();
+
+    static final StringListAttributeDefinition CONNECTOR_MODULES = new StringListAttributeDefinition.Builder("connector-modules")
+            .setRequired(false)
+            .setStorageRuntime()
+            .build();
+
+    private final ServiceValueRegistry serviceValues;
+
     public MicroProfileReactiveMessagingSubsystemDefinition() {
+        this(new ServiceValueRegistry());
+    }
+
+    private MicroProfileReactiveMessagingSubsystemDefinition(ServiceValueRegistry serviceValues) {
         super(
                 new SimpleResourceDefinition.Parameters(
                         SUBSYSTEM_PATH,
                         MicroProfileReactiveMessagingExtension.getResourceDescriptionResolver(SUBSYSTEM_NAME))
-                .setAddHandler(AddHandler.INSTANCE)
+                .setAddHandler(new AddHandler(serviceValues))
                 .setRemoveHandler(new ModelOnlyRemoveStepHandler())
-                .setCapabilities(REACTIVE_STREAMS_OPERATORS_CAPABILITY)
+                .setCapabilities(REACTIVE_MESSAGING_CAPABILITY)
         );
+        this.serviceValues = serviceValues;
     }
 
     @Override
     public Collection<AttributeDefinition> getAttributes() {
-        return Collections.emptyList();
+        return Collections.singletonList(THREAD_TYPE);
+    }
+
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        resourceRegistration.registerReadOnlyAttribute(CONNECTOR_MODULES, new AbstractRuntimeOnlyHandler() {
+            @Override
+            protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+                final ConnectorModules connectorModules = serviceValues.getValue(context,
+                        REACTIVE_MESSAGING_CAPABILITY.getCapabilityServiceName(), ConnectorModules.class);
+                if (connectorModules == null) {
+                    return;
+                }
+                final ModelNode result = context.getResult().setEmptyList();
+                for (ModuleDependencySpec connectorModule : connectorModules.getModules()) {
+                    result.add(connectorModule.getName());
+                }
+            }
+        });
+    }
+
+    @Override
+    protected List<? extends PersistentResourceDefinition> getChildren() {
+        return Arrays.asList(new WorkerPoolResourceDefinition(serviceValues), new VertxResourceDefinition(serviceValues));
     }
 
     static class AddHandler extends AbstractBoottimeAddStepHandler {
 
-        static AddHandler INSTANCE = new AddHandler();
+        private final ServiceValueRegistry serviceValues;
 
-        private AddHandler() {
-            super(Collections.emptyList());
+        AddHandler(ServiceValueRegistry serviceValues) {
+            super(THREAD_TYPE);
+            this.serviceValues = serviceValues;
         }
 
         @Override
         protected void performBoottime(OperationContext context, ModelNode operation, ModelNode model) throws OperationFailedException {
             super.performBoottime(context, operation, model);
 
+            final ThreadType threadType = ThreadType.forName(THREAD_TYPE.resolveModelAttribute(context, model).asString());
+            if (!threadType.isSupported()) {
+                throw MicroProfileReactiveMessagingLogger.LOGGER.virtualThreadsNotSupported(THREAD_TYPE.getName(), threadType.toString());
+            }
+
+            final ConnectorModules connectorModules = ConnectorModules.resolve(Module.getBootModuleLoader());
+            final ReactiveMessagingDependencyProcessor dependencyProcessor = new ReactiveMessagingDependencyProcessor(connectorModules);
+            final CapabilityServiceBuilder<?> builder = context.getCapabilityServiceTarget().addCapability(REACTIVE_MESSAGING_CAPABILITY);
+            final Consumer<ConnectorModules> connectorModulesConsumer = serviceValues.capture(
+                    REACTIVE_MESSAGING_CAPABILITY.getCapabilityServiceName(), builder.provides(REACTIVE_MESSAGING_CAPABILITY));
+            builder.setInstance(Service.newInstance(connectorModulesConsumer, connectorModules));
+            builder.install();
+
             context.addStep(new AbstractDeploymentChainStep() {
                 public void execute(DeploymentProcessorTarget processorTarget) {
 
                     // TODO Put these into Phase.java
                     final int DEPENDENCIES_MICROPROFILE_REACTIVE_MESSAGING = 6288;
+                    final int POST_MODULE_MICROPROFILE_REACTIVE_MESSAGING_CHANNEL_GRAPH = 14270;
+                    final int POST_MODULE_MICROPROFILE_REACTIVE_MESSAGING = 14272;
 
-                    processorTarget.addDeploymentProcessor(SUBSYSTEM_NAME, DEPENDENCIES, DEPENDENCIES_MICROPROFILE_REACTIVE_MESSAGING, new ReactiveMessagingDependencyProcessor());
+                    processorTarget.addDeploymentProcessor(SUBSYSTEM_NAME, DEPENDENCIES, DEPENDENCIES_MICROPROFILE_REACTIVE_MESSAGING, dependencyProcessor);
+                    processorTarget.addDeploymentProcessor(SUBSYSTEM_NAME, POST_MODULE, POST_MODULE_MICROPROFILE_REACTIVE_MESSAGING_CHANNEL_GRAPH, new ChannelGraphProcessor());
+                    processorTarget.addDeploymentProcessor(SUBSYSTEM_NAME, POST_MODULE, POST_MODULE_MICROPROFILE_REACTIVE_MESSAGING, new ReactiveMessagingDeploymentProcessor(WELD_CAPABILITY_NAME));
                 }
             }, RUNTIME);
 
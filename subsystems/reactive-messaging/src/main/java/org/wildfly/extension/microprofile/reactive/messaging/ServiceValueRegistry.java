@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+import org.jboss.as.controller.OperationContext;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+
+/**
+ * The values the subsystem's capability services provide, for its runtime handlers to read. A
+ * {@link ServiceController} does not give access to the value of a service installed as an
+ * {@link org.jboss.msc.Service}, so each service's value is captured as it is handed to its consumer.
+ * <p>
+ * There is one instance per registration of the subsystem, shared by its resource definitions.
+ */
+final class ServiceValueRegistry {
+
+    private final ConcurrentMap<ServiceName, Object> values = new ConcurrentHashMap<>();
+
+    /**
+     * Wraps the consumer of a service's value, so the value is also captured under the name of the service.
+     */
+    <T> Consumer<T> capture(ServiceName name, Consumer<T> consumer) {
+        return value -> {
+            if (value == null) {
+                values.remove(name);
+            } else {
+                values.put(name, value);
+            }
+            consumer.accept(value);
+        };
+    }
+
+    /**
+     * Gets the value of a service, if it is up.
+     *
+     * @return the value, or {@code null} if the service is not installed or not up
+     */
+    <T> T getValue(OperationContext context, ServiceName name, Class<T> type) {
+        final ServiceController<?> controller = context.getServiceRegistry(false).getService(name);
+        if (controller == null || controller.getState() != ServiceController.State.UP) {
+            return null;
+        }
+        return type.cast(values.get(name));
+    }
+}
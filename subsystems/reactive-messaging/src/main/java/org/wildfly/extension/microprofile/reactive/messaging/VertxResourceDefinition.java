@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.wildfly.extension.microprofile.reactive.messaging.MicroProfileReactiveMessagingExtension.SUBSYSTEM_NAME;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import org.jboss.as.controller.AbstractAddStepHandler;
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.CapabilityServiceBuilder;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.PersistentResourceDefinition;
+import org.jboss.as.controller.ServiceRemoveStepHandler;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.capability.RuntimeCapability;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.extension.microprofile.reactive.messaging.vertx.SharedVertx;
+import org.wildfly.extension.microprofile.reactive.messaging.vertx.VertxService;
+
+/**
+ * The Vert.x instance shared by the connectors of all the deployments. Without it, each connector of each deployment
+ * creates a Vert.x instance of its own, with event loops and worker threads of its own.
+ */
+public class VertxResourceDefinition extends PersistentResourceDefinition {
+
+    static final String VERTX = "vertx";
+    static final PathElement PATH = PathElement.pathElement(VERTX, "default");
+
+    public static final String VERTX_CAPABILITY_NAME = "org.wildfly.microprofile.reactive-messaging.vertx";
+
+    static final RuntimeCapability<Void> VERTX_CAPABILITY = RuntimeCapability.Builder
+            .of(VERTX_CAPABILITY_NAME, false, SharedVertx.class)
+            .build();
+
+    /**
+     * Defaults to twice the number of CPUs available to the JVM, which, unlike the count Vert.x uses by default,
+     * takes the CPU limits of the container the server runs in into account.
+     */
+    static final SimpleAttributeDefinition EVENT_LOOP_POOL_SIZE = new SimpleAttributeDefinitionBuilder("event-loop-pool-size", ModelType.INT)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setValidator(new IntRangeValidator(1, true, true))
+            .setRestartAllServices()
+            .build();
+
+    static final SimpleAttributeDefinition WORKER_POOL_SIZE = new SimpleAttributeDefinitionBuilder("worker-pool-size", ModelType.INT)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(20))
+            .setValidator(new IntRangeValidator(1, true, true))
+            .setRestartAllServices()
+            .build();
+
+    /**
+     * Vert.x falls back to NIO if the Netty native transport cannot be loaded, e.g. because the server does not run on
+     * x86_64, the only architecture the Netty of WildFly has the native libraries for.
+     */
+    static final SimpleAttributeDefinition PREFER_NATIVE_TRANSPORT = new SimpleAttributeDefinitionBuilder("prefer-native-transport", ModelType.BOOLEAN)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(false))
+            .setRestartAllServices()
+            .build();
+
+    static final AttributeDefinition[] ATTRIBUTES = {EVENT_LOOP_POOL_SIZE, WORKER_POOL_SIZE, PREFER_NATIVE_TRANSPORT};
+
+    static final SimpleAttributeDefinition NATIVE_TRANSPORT = new SimpleAttributeDefinitionBuilder("native-transport", ModelType.BOOLEAN)
+            .setUndefinedMetricValue(new ModelNode(false))
+            .setStorageRuntime()
+            .build();
+    static final SimpleAttributeDefinition EVENT_LOOP_DELAY = new SimpleAttributeDefinitionBuilder("event-loop-delay", ModelType.LONG)
+            .setUndefinedMetricValue(new ModelNode(0L))
+            .setMeasurementUnit(MeasurementUnit.NANOSECONDS)
+            .setStorageRuntime()
+            .build();
+
+    private final ServiceValueRegistry serviceValues;
+
+    VertxResourceDefinition(ServiceValueRegistry serviceValues) {
+        this(serviceValues, new AddHandler(serviceValues));
+    }
+
+    private VertxResourceDefinition(ServiceValueRegistry serviceValues, AddHandler addHandler) {
+        super(new SimpleResourceDefinition.Parameters(
+                PATH,
+                MicroProfileReactiveMessagingExtension.getResourceDescriptionResolver(SUBSYSTEM_NAME, VERTX))
+                .setAddHandler(addHandler)
+                .setRemoveHandler(new ServiceRemoveStepHandler(addHandler))
+                .setCapabilities(VERTX_CAPABILITY));
+        this.serviceValues = serviceValues;
+    }
+
+    @Override
+    public Collection<AttributeDefinition> getAttributes() {
+        return Arrays.asList(ATTRIBUTES);
+    }
+
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        final VertxMetricsHandler metricsHandler = new VertxMetricsHandler(serviceValues);
+        resourceRegistration.registerMetric(NATIVE_TRANSPORT, metricsHandler);
+        resourceRegistration.registerMetric(EVENT_LOOP_DELAY, metricsHandler);
+    }
+
+    private static boolean isVertxInstalled() {
+        try {
+            Class.forName("io.vertx.core.Vertx", false, VertxResourceDefinition.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    static class AddHandler extends AbstractAddStepHandler {
+
+        private final ServiceValueRegistry serviceValues;
+
+        AddHandler(ServiceValueRegistry serviceValues) {
+            super(ATTRIBUTES);
+            this.serviceValues = serviceValues;
+        }
+
+        @Override
+        protected void performRuntime(OperationContext context, ModelNode operation, ModelNode model) throws OperationFailedException {
+            if (!isVertxInstalled()) {
+                throw MicroProfileReactiveMessagingLogger.LOGGER.vertxNotInstalled();
+            }
+            final ModelNode eventLoopPoolSize = EVENT_LOOP_POOL_SIZE.resolveModelAttribute(context, model);
+            final int workerPoolSize = WORKER_POOL_SIZE.resolveModelAttribute(context, model).asInt();
+            final boolean preferNativeTransport = PREFER_NATIVE_TRANSPORT.resolveModelAttribute(context, model).asBoolean();
+
+            final CapabilityServiceBuilder<?> builder = context.getCapabilityServiceTarget().addCapability(VERTX_CAPABILITY);
+            final Consumer<SharedVertx> vertxConsumer = serviceValues.capture(
+                    VERTX_CAPABILITY.getCapabilityServiceName(), builder.provides(VERTX_CAPABILITY));
+            builder.setInstance(new VertxService(
+                    eventLoopPoolSize.isDefined() ? eventLoopPoolSize.asInt() : 2 * Runtime.getRuntime().availableProcessors(),
+                    workerPoolSize,
+                    preferNativeTransport,
+                    vertxConsumer));
+            builder.install();
+        }
+    }
+
+    private static class VertxMetricsHandler extends AbstractRuntimeOnlyHandler {
+
+        private final ServiceValueRegistry serviceValues;
+
+        VertxMetricsHandler(ServiceValueRegistry serviceValues) {
+            this.serviceValues = serviceValues;
+        }
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+            final SharedVertx vertx = serviceValues.getValue(context, VERTX_CAPABILITY.getCapabilityServiceName(), SharedVertx.class);
+            if (vertx == null) {
+                return;
+            }
+            final String attributeName = operation.require(NAME).asString();
+            if (NATIVE_TRANSPORT.getName().equals(attributeName)) {
+                context.getResult().set(vertx.isNativeTransportEnabled());
+            } else if (EVENT_LOOP_DELAY.getName().equals(attributeName)) {
+                context.getResult().set(vertx.getEventLoopDelay());
+            }
+        }
+    }
+}
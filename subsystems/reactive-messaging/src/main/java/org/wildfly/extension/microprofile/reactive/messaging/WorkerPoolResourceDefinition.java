@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.wildfly.extension.microprofile.reactive.messaging.MicroProfileReactiveMessagingExtension.SUBSYSTEM_NAME;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.jboss.as.controller.AbstractAddStepHandler;
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.CapabilityServiceBuilder;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.PersistentResourceDefinition;
+import org.jboss.as.controller.ServiceRemoveStepHandler;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.capability.RuntimeCapability;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.as.controller.operations.validation.LongRangeValidator;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.extension.microprofile.reactive.messaging.worker.ThreadType;
+import org.wildfly.extension.microprofile.reactive.messaging.worker.WorkerPoolService;
+
+/**
+ * A pool of threads which blocking {@code @Incoming} methods can be moved onto, so they do not block the thread
+ * the connector delivers messages on.
+ */
+public class WorkerPoolResourceDefinition extends PersistentResourceDefinition {
+
+    static final String WORKER_POOL = "worker-pool";
+    static final PathElement PATH = PathElement.pathElement(WORKER_POOL);
+
+    public static final String WORKER_POOL_CAPABILITY_NAME = "org.wildfly.microprofile.reactive-messaging.worker-pool";
+
+    static final RuntimeCapability<Void> WORKER_POOL_CAPABILITY = RuntimeCapability.Builder
+            .of(WORKER_POOL_CAPABILITY_NAME, true, ExecutorService.class)
+            .build();
+
+    static final SimpleAttributeDefinition CORE_THREADS = new SimpleAttributeDefinitionBuilder("core-threads", ModelType.INT)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(2))
+            .setValidator(new IntRangeValidator(1, true, true))
+            .setRestartAllServices()
+            .build();
+
+    static final SimpleAttributeDefinition MAX_THREADS = new SimpleAttributeDefinitionBuilder("max-threads", ModelType.INT)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(16))
+            .setValidator(new IntRangeValidator(1, true, true))
+            .setRestartAllServices()
+            .build();
+
+    static final SimpleAttributeDefinition QUEUE_SIZE = new SimpleAttributeDefinitionBuilder("queue-size", ModelType.INT)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(128))
+            .setValidator(new IntRangeValidator(0, true, true))
+            .setRestartAllServices()
+            .build();
+
+    static final SimpleAttributeDefinition KEEP_ALIVE_TIME = new SimpleAttributeDefinitionBuilder("keep-alive-time", ModelType.LONG)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(TimeUnit.MINUTES.toMillis(1)))
+            .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+            .setValidator(new LongRangeValidator(0, Long.MAX_VALUE, true, true))
+            .setRestartAllServices()
+            .build();
+
+    static final AttributeDefinition[] ATTRIBUTES = {CORE_THREADS, MAX_THREADS, QUEUE_SIZE, KEEP_ALIVE_TIME};
+
+    static final SimpleAttributeDefinition CURRENT_THREAD_COUNT = metric("current-thread-count");
+    static final SimpleAttributeDefinition ACTIVE_THREAD_COUNT = metric("active-thread-count");
+    static final SimpleAttributeDefinition QUEUE_LENGTH = metric("queue-length");
+
+    private final ServiceValueRegistry serviceValues;
+
+    WorkerPoolResourceDefinition(ServiceValueRegistry serviceValues) {
+        this(serviceValues, new AddHandler(serviceValues));
+    }
+
+    private WorkerPoolResourceDefinition(ServiceValueRegistry serviceValues, AddHandler addHandler) {
+        super(new SimpleResourceDefinition.Parameters(
+                PATH,
+                MicroProfileReactiveMessagingExtension.getResourceDescriptionResolver(SUBSYSTEM_NAME, WORKER_POOL))
+                .setAddHandler(addHandler)
+                .setRemoveHandler(new ServiceRemoveStepHandler(addHandler))
+                .setCapabilities(WORKER_POOL_CAPABILITY));
+        this.serviceValues = serviceValues;
+    }
+
+    @Override
+    public Collection<AttributeDefinition> getAttributes() {
+        return Arrays.asList(ATTRIBUTES);
+    }
+
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        final WorkerPoolMetricsHandler metricsHandler = new WorkerPoolMetricsHandler(serviceValues);
+        resourceRegistration.registerMetric(CURRENT_THREAD_COUNT, metricsHandler);
+        resourceRegistration.registerMetric(ACTIVE_THREAD_COUNT, metricsHandler);
+        resourceRegistration.registerMetric(QUEUE_LENGTH, metricsHandler);
+    }
+
+    private static SimpleAttributeDefinition metric(String name) {
+        return new SimpleAttributeDefinitionBuilder(name, ModelType.INT)
+                .setUndefinedMetricValue(new ModelNode(0))
+                .setStorageRuntime()
+                .build();
+    }
+
+    static class AddHandler extends AbstractAddStepHandler {
+
+        private final ServiceValueRegistry serviceValues;
+
+        AddHandler(ServiceValueRegistry serviceValues) {
+            super(ATTRIBUTES);
+            this.serviceValues = serviceValues;
+        }
+
+        @Override
+        protected void performRuntime(OperationContext context, ModelNode operation, ModelNode model) throws OperationFailedException {
+            final int coreThreads = CORE_THREADS.resolveModelAttribute(context, model).asInt();
+            final int maxThreads = MAX_THREADS.resolveModelAttribute(context, model).asInt();
+            final int queueSize = QUEUE_SIZE.resolveModelAttribute(context, model).asInt();
+            final long keepAliveTime = KEEP_ALIVE_TIME.resolveModelAttribute(context, model).asLong();
+            if (maxThreads < coreThreads) {
+                throw MicroProfileReactiveMessagingLogger.LOGGER.maxThreadsLessThanCoreThreads(MAX_THREADS.getName(), maxThreads, CORE_THREADS.getName(), coreThreads);
+            }
+
+            // The subsystem's thread-type is a boot time attribute, so it cannot change under an existing pool
+            final ModelNode subsystemModel = context.readResourceFromRoot(context.getCurrentAddress().getParent(), false).getModel();
+            final ThreadType threadType = ThreadType.forName(MicroProfileReactiveMessagingSubsystemDefinition.THREAD_TYPE.resolveModelAttribute(context, subsystemModel).asString());
+
+            final CapabilityServiceBuilder<?> builder = context.getCapabilityServiceTarget().addCapability(WORKER_POOL_CAPABILITY);
+            final Consumer<ExecutorService> executorConsumer = serviceValues.capture(
+                    WORKER_POOL_CAPABILITY.getCapabilityServiceName(context.getCurrentAddress()), builder.provides(WORKER_POOL_CAPABILITY));
+            builder.setInstance(new WorkerPoolService(context.getCurrentAddressValue(), threadType, coreThreads, maxThreads, queueSize, keepAliveTime, executorConsumer));
+            builder.install();
+        }
+    }
+
+    private static class WorkerPoolMetricsHandler extends AbstractRuntimeOnlyHandler {
+
+        private final ServiceValueRegistry serviceValues;
+
+        WorkerPoolMetricsHandler(ServiceValueRegistry serviceValues) {
+            this.serviceValues = serviceValues;
+        }
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+            final ExecutorService executor = serviceValues.getValue(context,
+                    WORKER_POOL_CAPABILITY.getCapabilityServiceName(context.getCurrentAddress()), ExecutorService.class);
+            if (!(executor instanceof ThreadPoolExecutor)) {
+                return;
+            }
+            final ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            final String attributeName = operation.require(NAME).asString();
+            if (CURRENT_THREAD_COUNT.getName().equals(attributeName)) {
+                context.getResult().set(pool.getPoolSize());
+            } else if (ACTIVE_THREAD_COUNT.getName().equals(attributeName)) {
+                context.getResult().set(pool.getActiveCount());
+            } else if (QUEUE_LENGTH.getName().equals(attributeName)) {
+                context.getResult().set(pool.getQueue().size());
+            }
+        }
+    }
+}
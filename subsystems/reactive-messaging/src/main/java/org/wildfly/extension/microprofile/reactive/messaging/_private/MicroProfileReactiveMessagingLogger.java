@@ -17,10 +17,15 @@
 package org.wildfly.extension.microprofile.reactive.messaging._private;
 
 import static org.jboss.logging.Logger.Level.INFO;
+import static org.jboss.logging.Logger.Level.WARN;
 
+import javax.enterprise.inject.spi.DefinitionException;
+
+import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
 import org.jboss.logging.BasicLogger;
 import org.jboss.logging.Logger;
+import org.jboss.logging.annotations.Cause;
 import org.jboss.logging.annotations.LogMessage;
 import org.jboss.logging.annotations.Message;
 import org.jboss.logging.annotations.MessageLogger;
@@ -49,4 +54,66 @@ public interface MicroProfileReactiveMessagingLogger extends BasicLogger {
     @LogMessage(level = INFO)
     @Message(id = 3, value = "Intermediate module %s is not present. Skipping recursively adding modules from it")
     void intermediateModuleNotPresent(String intermediateModuleName);
+
+    @Message(id = 4, value = "Worker pool '%s' used by %s is not available")
+    IllegalStateException workerPoolNotAvailable(String workerPoolName, String method);
+
+    @Message(id = 5, value = "%s is configured to use worker pool '%s', but only @Incoming methods which receive a single message and return void or a CompletionStage can be moved onto a worker pool")
+    DefinitionException methodCannotUseWorkerPool(String method, String workerPoolName);
+
+    @LogMessage(level = WARN)
+    @Message(id = 6, value = "Processing of a message by %s on worker pool '%s' failed")
+    void workerPoolMessageFailed(String method, String workerPoolName, @Cause Throwable cause);
+
+    @LogMessage(level = WARN)
+    @Message(id = 7, value = "Timed out waiting for %d messages being processed on worker pools to complete")
+    void timedOutWaitingForWorkerPoolTasks(int count);
+
+    @Message(id = 8, value = "The value of '%s' (%d) must not be less than the value of '%s' (%d)")
+    OperationFailedException maxThreadsLessThanCoreThreads(String maxThreadsAttribute, int maxThreads, String coreThreadsAttribute, int coreThreads);
+
+    @Message(id = 9, value = "'%s' is set to '%s', but this JVM does not support virtual threads. JDK 21 or later is required")
+    OperationFailedException virtualThreadsNotSupported(String attributeName, String value);
+
+    @Message(id = 10, value = "Deployment %s has nothing publishing to channel '%s', which %s subscribe to, and wildfly.reactive-messaging.fail-on-unconnected-channels is true")
+    DeploymentUnitProcessingException channelWithoutPublisher(String deploymentName, String channel, String subscribers);
+
+    @LogMessage(level = WARN)
+    @Message(id = 11, value = "Deployment %s has nothing publishing to channel '%s', which %s subscribe to")
+    void channelWithoutPublisherWarning(String deploymentName, String channel, String subscribers);
+
+    @LogMessage(level = WARN)
+    @Message(id = 12, value = "Deployment %s has nothing subscribing to channel '%s', which %s publish to")
+    void channelWithoutSubscriber(String deploymentName, String channel, String publishers);
+
+    @Message(id = 13, value = "%s receives channel '%s', which is configured to deliver batches of messages, so it must receive a List of payloads or a Message of such a List")
+    DefinitionException methodCannotReceiveBatches(String method, String channel);
+
+    @Message(id = 14, value = "'%s' must not be negative, but is %d")
+    DefinitionException invalidBatchConfig(String property, long value);
+
+    @Message(id = 15, value = "'%s' must be at least %d, but is %d")
+    DefinitionException invalidCreditConfig(String property, long minimum, long value);
+
+    @Message(id = 16, value = "The value of '%s' (%d) must be less than the value of '%s' (%d)")
+    DefinitionException creditReplenishThresholdTooHigh(String thresholdProperty, long threshold, String creditProperty, long credit);
+
+    @Message(id = 17, value = "The shared Vert.x instance cannot be created, as Vert.x is not installed. It comes with the reactive-messaging-amqp, reactive-messaging-kafka and reactive-messaging-mqtt layers")
+    OperationFailedException vertxNotInstalled();
+
+    @LogMessage(level = WARN)
+    @Message(id = 18, value = "The Netty native transport cannot be loaded, so the shared Vert.x instance uses NIO instead. It needs Linux or macOS on x86_64")
+    void nativeTransportUnavailable(@Cause Throwable cause);
+
+    @Message(id = 19, value = "A publisher of channel '%s' sent more messages than were requested")
+    IllegalStateException ringBufferOverflow(String channel);
+
+    @Message(id = 20, value = "'%s' must be between 1 and %d, but is %d")
+    DefinitionException invalidRingBufferSize(String property, int maximum, int value);
+
+    @Message(id = 21, value = "'%s' must be one of %s, but is '%s'")
+    DefinitionException invalidWaitStrategy(String property, String validValues, String value);
+
+    @Message(id = 22, value = "Worker pool '%s' used by %s must be set in META-INF/microprofile-config.properties, a system property or an environment variable, without an expression, so that the deployment depends on it")
+    DefinitionException workerPoolNotConfiguredStatically(String workerPoolName, String method);
 }
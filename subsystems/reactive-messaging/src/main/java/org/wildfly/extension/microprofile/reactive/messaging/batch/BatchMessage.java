@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+/**
+ * A batch of messages received from a channel. Its payload is the list of their payloads, and acknowledging it
+ * acknowledges all of them.
+ */
+public class BatchMessage<T> implements Message<List<T>> {
+
+    private final List<Message<T>> messages;
+    private final List<T> payloads;
+
+    BatchMessage(List<Message<T>> messages) {
+        this.messages = messages;
+        final List<T> payloads = new ArrayList<>(messages.size());
+        for (Message<T> message : messages) {
+            payloads.add(message.getPayload());
+        }
+        this.payloads = Collections.unmodifiableList(payloads);
+    }
+
+    @Override
+    public List<T> getPayload() {
+        return payloads;
+    }
+
+    /**
+     * @return the messages making up the batch
+     */
+    public List<Message<T>> getMessages() {
+        return Collections.unmodifiableList(messages);
+    }
+
+    @Override
+    public CompletionStage<Void> ack() {
+        final CompletableFuture<?>[] acks = new CompletableFuture<?>[messages.size()];
+        for (int i = 0; i < acks.length; i++) {
+            acks[i] = messages.get(i).ack().toCompletableFuture();
+        }
+        return CompletableFuture.allOf(acks);
+    }
+}
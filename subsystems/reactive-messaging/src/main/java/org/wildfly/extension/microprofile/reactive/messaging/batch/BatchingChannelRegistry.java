@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.batch;
+
+import java.util.List;
+
+import javax.annotation.Priority;
+import javax.decorator.Decorator;
+import javax.decorator.Delegate;
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
+
+import io.smallrye.reactive.messaging.ChannelRegistry;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.streams.operators.PublisherBuilder;
+import org.wildfly.extension.microprofile.reactive.messaging.ChannelRegistryPriorities;
+
+/**
+ * Decorates the SmallRye {@link ChannelRegistry}, so everything subscribing to a channel configured to use batches,
+ * i.e. both {@code @Incoming} methods and injected streams, receives {@link BatchMessage}s.
+ */
+@Decorator
+@Priority(ChannelRegistryPriorities.BATCHING)
+public abstract class BatchingChannelRegistry implements ChannelRegistry {
+
+    @Inject
+    @Delegate
+    @Any
+    ChannelRegistry delegate;
+
+    @Inject
+    BatchingChannels channels;
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public List<PublisherBuilder<? extends Message>> getPublishers(String name) {
+        return channels.batch(name, delegate.getPublishers(name));
+    }
+}
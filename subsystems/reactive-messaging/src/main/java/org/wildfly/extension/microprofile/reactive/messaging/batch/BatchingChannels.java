@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.streams.operators.PublisherBuilder;
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.jboss.threads.JBossThreadFactory;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.DeploymentConfig;
+
+/**
+ * The batching configuration of the channels of a deployment, read from MicroProfile Config:
+ * <pre>
+ * wildfly.reactive-messaging.incoming.&lt;channel&gt;.batch-size=&lt;maximum number of messages in a batch&gt;
+ * wildfly.reactive-messaging.incoming.&lt;channel&gt;.batch-linger=&lt;milliseconds to wait for a batch to fill up&gt;
+ * </pre>
+ * Setting the batch size turns the channel into a channel of {@link BatchMessage}s, and the linger time defaults to
+ * {@value #DEFAULT_LINGER_MILLIS} ms.
+ */
+public class BatchingChannels {
+
+    static final String BATCH_SIZE_SUFFIX = ".batch-size";
+    static final String BATCH_LINGER_SUFFIX = ".batch-linger";
+    static final long DEFAULT_LINGER_MILLIS = 100;
+
+    private final DeploymentConfig config;
+    private ScheduledExecutorService scheduler;
+    private boolean closed;
+
+    public BatchingChannels(DeploymentConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * @return the configured batch size of the channel, or 0 if its messages are not batched
+     */
+    int getBatchSize(String channel) {
+        return config.getIncoming(channel, BATCH_SIZE_SUFFIX, Integer.class).orElse(0);
+    }
+
+    long getLingerMillis(String channel) {
+        return config.getIncoming(channel, BATCH_LINGER_SUFFIX, Long.class).orElse(DEFAULT_LINGER_MILLIS);
+    }
+
+    /**
+     * Puts a {@link BatchingProcessor} behind each of the publishers of a batched channel. A new processor is
+     * created for each subscription, as the builders may be built more than once.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    List<PublisherBuilder<? extends Message>> batch(String channel, List<PublisherBuilder<? extends Message>> publishers) {
+        final int batchSize = getBatchSize(channel);
+        if (batchSize <= 0 || publishers.isEmpty()) {
+            return publishers;
+        }
+        final long lingerMillis = getLingerMillis(channel);
+        final ScheduledExecutorService scheduler = getScheduler();
+        final List<PublisherBuilder<? extends Message>> batched = new ArrayList<>(publishers.size());
+        for (PublisherBuilder<? extends Message> publisher : publishers) {
+            batched.add(ReactiveStreams.fromPublisher(subscriber -> publisher
+                    .via(new BatchingProcessor(batchSize, lingerMillis, scheduler))
+                    .buildRs()
+                    .subscribe(subscriber)));
+        }
+        return batched;
+    }
+
+    /**
+     * Stops the timer sending on batches which are not full, once the deployment's channels have been shut down.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                    new JBossThreadFactory(new ThreadGroup("reactive-messaging-batch-linger"), Boolean.TRUE, null, "%G - %t", null, null));
+            if (closed) {
+                executor.shutdown();
+            }
+            scheduler = executor;
+        }
+        return scheduler;
+    }
+}
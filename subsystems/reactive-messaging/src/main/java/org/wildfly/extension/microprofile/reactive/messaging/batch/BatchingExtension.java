@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.batch;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.BeforeDestroyed;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import javax.enterprise.inject.spi.WithAnnotations;
+
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.DeploymentConfig;
+
+/**
+ * CDI extension delivering the messages of the channels configured in {@link BatchingChannels} in batches, so an
+ * {@code @Incoming} method is invoked, and its result acknowledged, once per batch instead of once per message:
+ * <pre>
+ * &#64;Incoming("prices")
+ * public void process(List&lt;Integer&gt; prices) {
+ * </pre>
+ * An {@code @Incoming} method receiving a single parameter from a batched channel must receive a {@link List} of
+ * payloads, or a {@link Message} of such a list, which can be cast to a {@link BatchMessage} to get at the individual
+ * messages.
+ */
+public class BatchingExtension implements Extension {
+
+    private final BatchingChannels channels;
+    private final List<Throwable> definitionErrors = new ArrayList<>();
+
+    public BatchingExtension(BatchingChannels channels) {
+        this.channels = channels;
+    }
+
+    void addDecorator(@Observes BeforeBeanDiscovery bbd, BeanManager beanManager) {
+        bbd.addAnnotatedType(beanManager.createAnnotatedType(BatchingChannelRegistry.class), BatchingChannelRegistry.class.getName());
+    }
+
+    <T> void validateMethods(@Observes @WithAnnotations(Incoming.class) ProcessAnnotatedType<T> pat) {
+        final AnnotatedType<T> type = pat.getAnnotatedType();
+        for (AnnotatedMethod<? super T> method : type.getMethods()) {
+            final Incoming incoming = method.getAnnotation(Incoming.class);
+            if (incoming != null) {
+                validateMethod(method.getJavaMember(), incoming.value());
+            }
+        }
+    }
+
+    void addChannelsBean(@Observes AfterBeanDiscovery abd) {
+        for (Throwable error : definitionErrors) {
+            abd.addDefinitionError(error);
+        }
+        abd.addBean()
+                .types(BatchingChannels.class, Object.class)
+                .createWith(c -> channels);
+    }
+
+    void closeChannels(@Observes @BeforeDestroyed(ApplicationScoped.class) Object event) {
+        channels.close();
+    }
+
+    private void validateMethod(Method method, String channel) {
+        final int batchSize = channels.getBatchSize(channel);
+        if (batchSize < 0) {
+            definitionErrors.add(MicroProfileReactiveMessagingLogger.LOGGER.invalidBatchConfig(
+                    DeploymentConfig.INCOMING_PREFIX + channel + BatchingChannels.BATCH_SIZE_SUFFIX, batchSize));
+            return;
+        }
+        if (batchSize == 0) {
+            return;
+        }
+        final long lingerMillis = channels.getLingerMillis(channel);
+        if (lingerMillis < 0) {
+            definitionErrors.add(MicroProfileReactiveMessagingLogger.LOGGER.invalidBatchConfig(
+                    DeploymentConfig.INCOMING_PREFIX + channel + BatchingChannels.BATCH_LINGER_SUFFIX, lingerMillis));
+        }
+        // Methods without a parameter consume or process the whole stream, and get to see the batch messages as they are
+        if (method.getParameterCount() == 1 && !isBatchType(method.getGenericParameterTypes()[0])) {
+            definitionErrors.add(MicroProfileReactiveMessagingLogger.LOGGER.methodCannotReceiveBatches(method.toString(), channel));
+        }
+    }
+
+    private static boolean isBatchType(Type type) {
+        final Type rawType = type instanceof ParameterizedType ? ((ParameterizedType) type).getRawType() : type;
+        if (rawType == List.class) {
+            return true;
+        }
+        if (rawType == Message.class || rawType == BatchMessage.class) {
+            // Message<List<T>>, or a raw Message
+            return !(type instanceof ParameterizedType) || isBatchType(((ParameterizedType) type).getActualTypeArguments()[0]);
+        }
+        return false;
+    }
+}
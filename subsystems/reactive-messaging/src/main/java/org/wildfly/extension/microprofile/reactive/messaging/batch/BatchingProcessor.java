@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.wildfly.extension.microprofile.reactive.messaging.stream.BufferingProcessor;
+
+/**
+ * Collects the messages of a channel into {@link BatchMessage}s of up to {@code batchSize} messages. A batch which
+ * is not full yet is sent on once {@code lingerMillis} have passed since its first message arrived, or when the
+ * channel completes.
+ * <p>
+ * At most two batches worth of messages are requested from upstream ahead of the downstream demand, so a slow
+ * consumer slows down the channel rather than the batches piling up here.
+ */
+class BatchingProcessor<T> extends BufferingProcessor<Message<T>, Message<List<T>>> {
+
+    private final int batchSize;
+    private final long lingerMillis;
+    private final ScheduledExecutorService scheduler;
+
+    // Guarded by this
+    private List<Message<T>> buffer;
+    private long requested;
+    private int lingerGeneration;
+    private boolean lingerExpired;
+
+    BatchingProcessor(int batchSize, long lingerMillis, ScheduledExecutorService scheduler) {
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.scheduler = scheduler;
+        this.buffer = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public void onNext(Message<T> message) {
+        synchronized (this) {
+            if (isCancelled()) {
+                return;
+            }
+            buffer.add(message);
+            requested--;
+            if (buffer.size() == 1) {
+                scheduleLinger();
+            }
+        }
+        drain();
+    }
+
+    @Override
+    protected Message<List<T>> poll() {
+        if (!buffer.isEmpty() && (buffer.size() >= batchSize || lingerExpired || isUpstreamDone())) {
+            return new BatchMessage<>(takeBatch());
+        }
+        return null;
+    }
+
+    @Override
+    protected boolean isEmpty() {
+        return buffer.isEmpty();
+    }
+
+    @Override
+    protected long toRequest() {
+        final long demand = demand();
+        if (demand == 0) {
+            return 0;
+        }
+        final long target = demand > 1 ? 2L * batchSize : batchSize;
+        final long outstanding = buffer.size() + requested;
+        if (outstanding >= target) {
+            return 0;
+        }
+        requested += target - outstanding;
+        return target - outstanding;
+    }
+
+    @Override
+    protected void clear() {
+        lingerGeneration++;
+        buffer.clear();
+    }
+
+    // Called with the lock held
+    private List<Message<T>> takeBatch() {
+        final List<Message<T>> batch;
+        if (buffer.size() <= batchSize) {
+            batch = buffer;
+            buffer = new ArrayList<>(batchSize);
+        } else {
+            batch = new ArrayList<>(buffer.subList(0, batchSize));
+            buffer.subList(0, batchSize).clear();
+        }
+        lingerGeneration++;
+        lingerExpired = false;
+        if (!buffer.isEmpty()) {
+            scheduleLinger();
+        }
+        return batch;
+    }
+
+    // Called with the lock held
+    private void scheduleLinger() {
+        if (lingerMillis <= 0) {
+            return;
+        }
+        final int generation = lingerGeneration;
+        try {
+            scheduler.schedule(() -> {
+                synchronized (this) {
+                    if (generation != lingerGeneration) {
+                        // The batch has already been sent on
+                        return;
+                    }
+                    lingerExpired = true;
+                }
+                drain();
+            }, lingerMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The deployment is being undeployed, so the batch will only be sent on once it is full
+        }
+    }
+}
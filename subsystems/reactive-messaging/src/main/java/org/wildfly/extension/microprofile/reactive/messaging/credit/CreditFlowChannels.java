@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.credit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.streams.operators.PublisherBuilder;
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.reactivestreams.Processor;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.DeploymentConfig;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetrics;
+
+/**
+ * The credit based flow control configuration of the incoming channels of a deployment, read from MicroProfile
+ * Config:
+ * <pre>
+ * wildfly.reactive-messaging.incoming.&lt;channel&gt;.initial-credit=&lt;number of messages to request up front&gt;
+ * wildfly.reactive-messaging.incoming.&lt;channel&gt;.credit-replenish-threshold=&lt;remaining credit to top up at&gt;
+ * wildfly.reactive-messaging.incoming.&lt;channel&gt;.max-unsettled-messages=&lt;number of messages&gt;
+ * </pre>
+ * Setting the initial credit turns flow control on for the channel. The replenish threshold defaults to half the
+ * initial credit, and the number of unsettled, i.e. unacknowledged, messages is not limited by default. The credit is
+ * application-level demand on the connector's publisher, see {@link CreditFlowProcessor}, not the link credit the
+ * connector grants the broker.
+ */
+public class CreditFlowChannels {
+
+    static final String INITIAL_CREDIT_SUFFIX = ".initial-credit";
+    static final String CREDIT_REPLENISH_THRESHOLD_SUFFIX = ".credit-replenish-threshold";
+    static final String MAX_UNSETTLED_MESSAGES_SUFFIX = ".max-unsettled-messages";
+
+    private final DeploymentConfig config;
+
+    public CreditFlowChannels(DeploymentConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * @return the configured initial credit of the channel, or 0 if it does not use credit based flow control
+     */
+    long getInitialCredit(String channel) {
+        return config.getIncoming(channel, INITIAL_CREDIT_SUFFIX, Long.class).orElse(0L);
+    }
+
+    long getReplenishThreshold(String channel) {
+        return config.getIncoming(channel, CREDIT_REPLENISH_THRESHOLD_SUFFIX, Long.class)
+                .orElseGet(() -> getInitialCredit(channel) / 2);
+    }
+
+    long getMaxUnsettledMessages(String channel) {
+        return config.getIncoming(channel, MAX_UNSETTLED_MESSAGES_SUFFIX, Long.class).orElse(Long.MAX_VALUE);
+    }
+
+    /**
+     * Puts a {@link CreditFlowProcessor} behind each of the publishers of a channel using credit based flow control.
+     * A new processor is created for each subscription, as the builders may be built more than once.
+     *
+     * @param metrics the metrics of the channel, or {@code null} if it has none
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    List<PublisherBuilder<? extends Message>> applyCredit(String channel, List<PublisherBuilder<? extends Message>> publishers, ChannelMetrics metrics) {
+        final long initialCredit = getInitialCredit(channel);
+        if (initialCredit <= 0 || publishers.isEmpty()) {
+            return publishers;
+        }
+        final long replenishThreshold = getReplenishThreshold(channel);
+        final long maxUnsettled = getMaxUnsettledMessages(channel);
+        if (metrics != null) {
+            metrics.trackCredit();
+        }
+        final List<PublisherBuilder<? extends Message>> controlled = new ArrayList<>(publishers.size());
+        for (PublisherBuilder<? extends Message> publisher : publishers) {
+            controlled.add(ReactiveStreams.fromPublisher(subscriber -> publisher
+                    .via((Processor) new CreditFlowProcessor(initialCredit, replenishThreshold, maxUnsettled, metrics))
+                    .buildRs()
+                    .subscribe(subscriber)));
+        }
+        return controlled;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.credit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import javax.enterprise.inject.spi.WithAnnotations;
+
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.DeploymentConfig;
+
+/**
+ * CDI extension applying credit based flow control, as configured in {@link CreditFlowChannels}, to the incoming
+ * channels of a deployment. This bounds how many messages a connector like the AMQP one is asked for ahead of the
+ * {@code @Incoming} methods, and how many messages may be waiting to be acknowledged.
+ */
+public class CreditFlowExtension implements Extension {
+
+    private final CreditFlowChannels channels;
+    private final List<Throwable> definitionErrors = new ArrayList<>();
+
+    public CreditFlowExtension(CreditFlowChannels channels) {
+        this.channels = channels;
+    }
+
+    void addDecorator(@Observes BeforeBeanDiscovery bbd, BeanManager beanManager) {
+        bbd.addAnnotatedType(beanManager.createAnnotatedType(CreditFlowChannelRegistry.class), CreditFlowChannelRegistry.class.getName());
+    }
+
+    <T> void validateChannels(@Observes @WithAnnotations(Incoming.class) ProcessAnnotatedType<T> pat) {
+        for (AnnotatedMethod<? super T> method : pat.getAnnotatedType().getMethods()) {
+            final Incoming incoming = method.getAnnotation(Incoming.class);
+            if (incoming != null) {
+                validateChannel(incoming.value());
+            }
+        }
+    }
+
+    void addChannelsBean(@Observes AfterBeanDiscovery abd) {
+        for (Throwable error : definitionErrors) {
+            abd.addDefinitionError(error);
+        }
+        abd.addBean()
+                .types(CreditFlowChannels.class, Object.class)
+                .createWith(c -> channels);
+    }
+
+    private void validateChannel(String channel) {
+        final String prefix = DeploymentConfig.INCOMING_PREFIX + channel;
+        final long initialCredit = channels.getInitialCredit(channel);
+        if (initialCredit < 0) {
+            definitionErrors.add(MicroProfileReactiveMessagingLogger.LOGGER.invalidCreditConfig(
+                    prefix + CreditFlowChannels.INITIAL_CREDIT_SUFFIX, 0, initialCredit));
+        }
+        if (initialCredit == 0) {
+            return;
+        }
+        final long replenishThreshold = channels.getReplenishThreshold(channel);
+        if (replenishThreshold < 0) {
+            definitionErrors.add(MicroProfileReactiveMessagingLogger.LOGGER.invalidCreditConfig(
+                    prefix + CreditFlowChannels.CREDIT_REPLENISH_THRESHOLD_SUFFIX, 0, replenishThreshold));
+        } else if (replenishThreshold >= initialCredit) {
+            definitionErrors.add(MicroProfileReactiveMessagingLogger.LOGGER.creditReplenishThresholdTooHigh(
+                    prefix + CreditFlowChannels.CREDIT_REPLENISH_THRESHOLD_SUFFIX, replenishThreshold,
+                    prefix + CreditFlowChannels.INITIAL_CREDIT_SUFFIX, initialCredit));
+        }
+        final long maxUnsettled = channels.getMaxUnsettledMessages(channel);
+        if (maxUnsettled <= 0) {
+            definitionErrors.add(MicroProfileReactiveMessagingLogger.LOGGER.invalidCreditConfig(
+                    prefix + CreditFlowChannels.MAX_UNSETTLED_MESSAGES_SUFFIX, 1, maxUnsettled));
+        }
+    }
+}
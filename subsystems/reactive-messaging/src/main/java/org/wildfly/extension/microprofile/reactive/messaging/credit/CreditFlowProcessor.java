@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.credit;
+
+import java.util.ArrayDeque;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetrics;
+import org.wildfly.extension.microprofile.reactive.messaging.stream.BufferingProcessor;
+
+/**
+ * Applies credit based flow control, modelled on that of AMQP links, between a connector and the consumers of an
+ * incoming channel:
+ * <ul>
+ *     <li>{@code initialCredit} messages are requested from the connector up front, whatever the consumers request,
+ *     and buffered until they request them</li>
+ *     <li>once the remaining credit has dropped to {@code replenishThreshold}, it is topped up to
+ *     {@code initialCredit} again, minus the messages still buffered, in a single request</li>
+ *     <li>no more credit is given while {@code maxUnsettled} messages have been received but not acknowledged yet,
+ *     whether buffered or being processed</li>
+ * </ul>
+ * This only bounds the demand of the application, i.e. what is requested from the connector's publisher. It is not the
+ * link credit of the SmallRye AMQP connector: its Vert.x receiver grants credit to the broker on its own, prefetching
+ * messages regardless of the demand, so these bound what is handed on to the consumers rather than what the broker
+ * sends. Acknowledging a message still settles the delivery.
+ */
+class CreditFlowProcessor extends BufferingProcessor<Message<?>, Message<?>> {
+
+    private final long initialCredit;
+    private final long replenishThreshold;
+    private final long maxUnsettled;
+    private final ChannelMetrics metrics;
+
+    // Guarded by this
+    private final ArrayDeque<Message<?>> buffer = new ArrayDeque<>();
+    private long credit;
+    private long unsettled;
+
+    /**
+     * @param metrics the metrics of the channel, or {@code null} if it has none
+     */
+    CreditFlowProcessor(long initialCredit, long replenishThreshold, long maxUnsettled, ChannelMetrics metrics) {
+        this.initialCredit = initialCredit;
+        this.replenishThreshold = replenishThreshold;
+        this.maxUnsettled = maxUnsettled;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void onNext(Message<?> message) {
+        synchronized (this) {
+            if (isCancelled()) {
+                return;
+            }
+            buffer.add(new SettlementTrackingMessage<>(message, this));
+            credit--;
+            unsettled++;
+        }
+        if (metrics != null) {
+            metrics.creditUsed();
+        }
+        drain();
+    }
+
+    /**
+     * Called when a message received by this processor is acknowledged.
+     */
+    void settled() {
+        synchronized (this) {
+            unsettled--;
+        }
+        if (metrics != null) {
+            metrics.messageSettled();
+        }
+        drain();
+    }
+
+    @Override
+    protected Message<?> poll() {
+        return buffer.poll();
+    }
+
+    @Override
+    protected boolean isEmpty() {
+        return buffer.isEmpty();
+    }
+
+    @Override
+    protected long toRequest() {
+        if (credit > replenishThreshold) {
+            return 0;
+        }
+        final long toRequest = Math.min(initialCredit - credit - buffer.size(), maxUnsettled - unsettled - credit);
+        if (toRequest <= 0) {
+            return 0;
+        }
+        credit += toRequest;
+        if (metrics != null) {
+            metrics.creditGranted(toRequest);
+        }
+        return toRequest;
+    }
+
+    @Override
+    protected void clear() {
+        buffer.clear();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.credit;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+/**
+ * Wraps a message received from a channel using credit based flow control, to find out when it is acknowledged,
+ * i.e. settled in AMQP terms.
+ */
+class SettlementTrackingMessage<T> implements Message<T> {
+
+    private final Message<T> delegate;
+    private final CreditFlowProcessor processor;
+    private final AtomicBoolean settled = new AtomicBoolean();
+
+    SettlementTrackingMessage(Message<T> delegate, CreditFlowProcessor processor) {
+        this.delegate = delegate;
+        this.processor = processor;
+    }
+
+    @Override
+    public T getPayload() {
+        return delegate.getPayload();
+    }
+
+    @Override
+    public CompletionStage<Void> ack() {
+        if (settled.compareAndSet(false, true)) {
+            processor.settled();
+        }
+        return delegate.ack();
+    }
+
+    /**
+     * Unwraps to the connector's own message, e.g. to get at the AMQP message properties.
+     */
+    @Override
+    public <C> C unwrap(Class<C> unwrapType) {
+        if (unwrapType.isInstance(delegate)) {
+            return unwrapType.cast(delegate);
+        }
+        return delegate.unwrap(unwrapType);
+    }
+}
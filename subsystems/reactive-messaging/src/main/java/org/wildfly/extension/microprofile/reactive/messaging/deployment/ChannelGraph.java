@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.deployment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The channels of a deployment, with what publishes messages to and subscribes to each of them, as found by
+ * {@link ChannelGraphProcessor} from the deployment's annotations and connector configuration.
+ */
+public final class ChannelGraph {
+
+    /**
+     * The kinds of things publishing messages to, or subscribing to, a channel.
+     */
+    public enum EndpointKind {
+        /** An {@code @Incoming} or {@code @Outgoing} method */
+        METHOD("method"),
+        /** An {@code Emitter} injected with {@code @Channel} or {@code @Stream} */
+        EMITTER("emitter"),
+        /** A stream injected with {@code @Channel} or {@code @Stream} */
+        STREAM("stream"),
+        /** A connector configured with {@code mp.messaging.[incoming|outgoing].[channel].connector} */
+        CONNECTOR("connector");
+
+        private final String name;
+
+        EndpointKind(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static final class Endpoint {
+        private final EndpointKind kind;
+        private final String name;
+
+        Endpoint(EndpointKind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        public EndpointKind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the method or field, e.g. {@code org.acme.PriceConverter#process}, or the connector name
+         */
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + name;
+        }
+    }
+
+    public static final class Channel {
+        private final String name;
+        private final List<Endpoint> publishers = new ArrayList<>();
+        private final List<Endpoint> subscribers = new ArrayList<>();
+
+        Channel(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Endpoint> getPublishers() {
+            return Collections.unmodifiableList(publishers);
+        }
+
+        public List<Endpoint> getSubscribers() {
+            return Collections.unmodifiableList(subscribers);
+        }
+
+        /**
+         * @return whether an {@code @Incoming} or {@code @Outgoing} method uses the channel
+         */
+        public boolean isUsedByMethod() {
+            return contains(publishers, EndpointKind.METHOD) || contains(subscribers, EndpointKind.METHOD);
+        }
+
+        private static boolean contains(List<Endpoint> endpoints, EndpointKind kind) {
+            for (Endpoint endpoint : endpoints) {
+                if (endpoint.getKind() == kind) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Map<String, Channel> channels = new TreeMap<>();
+
+    void addPublisher(String channel, EndpointKind kind, String name) {
+        channels.computeIfAbsent(channel, Channel::new).publishers.add(new Endpoint(kind, name));
+    }
+
+    void addSubscriber(String channel, EndpointKind kind, String name) {
+        channels.computeIfAbsent(channel, Channel::new).subscribers.add(new Endpoint(kind, name));
+    }
+
+    /**
+     * @return the channels, ordered by name
+     */
+    public Collection<Channel> getChannels() {
+        return Collections.unmodifiableCollection(channels.values());
+    }
+
+    public Channel getChannel(String name) {
+        return channels.get(name);
+    }
+
+    public boolean isEmpty() {
+        return channels.isEmpty();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.deployment;
+
+import static org.wildfly.extension.microprofile.reactive.messaging.MicroProfileReactiveMessagingExtension.SUBSYSTEM_NAME;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentPhaseContext;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.as.server.deployment.annotation.CompositeIndex;
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.FieldInfo;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.MethodParameterInfo;
+import org.jboss.jandex.Type;
+import org.jboss.modules.Module;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.ChannelGraph.EndpointKind;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Builds the {@link ChannelGraph} of a deployment from its annotation index and its connector configuration, and
+ * attaches it for the other processors and the {@code read-channel-graph} operation to use.
+ * <p>
+ * A channel which something subscribes to, but which nothing publishes to, can never deliver a message, which is
+ * logged as a warning, as SmallRye does, since it may be fed by a source this cannot see. Setting
+ * <pre>
+ * wildfly.reactive-messaging.fail-on-unconnected-channels=true
+ * </pre>
+ * in MicroProfile Config fails the deployment here instead, rather than when SmallRye connects the channels. A channel
+ * which something publishes to, but which nothing subscribes to, is always only a warning, and so is any unconnected
+ * channel of a subdeployment, as another module of the same application may be connected to it.
+ */
+public class ChannelGraphProcessor implements DeploymentUnitProcessor {
+
+    private static final DotName INCOMING = DotName.createSimple("org.eclipse.microprofile.reactive.messaging.Incoming");
+    private static final DotName OUTGOING = DotName.createSimple("org.eclipse.microprofile.reactive.messaging.Outgoing");
+    private static final DotName CHANNEL = DotName.createSimple("io.smallrye.reactive.messaging.annotations.Channel");
+    private static final DotName STREAM = DotName.createSimple("io.smallrye.reactive.messaging.annotations.Stream");
+    private static final DotName EMITTER = DotName.createSimple("io.smallrye.reactive.messaging.annotations.Emitter");
+
+    private static final String INCOMING_PREFIX = "mp.messaging.incoming.";
+    private static final String OUTGOING_PREFIX = "mp.messaging.outgoing.";
+    private static final String CONNECTOR_SUFFIX = ".connector";
+    private static final String FAIL_ON_UNCONNECTED_CHANNELS = "wildfly.reactive-messaging.fail-on-unconnected-channels";
+
+    @Override
+    public void deploy(DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
+        final DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
+        final CompositeIndex index = deploymentUnit.getAttachment(Attachments.COMPOSITE_ANNOTATION_INDEX);
+        final Module module = deploymentUnit.getAttachment(Attachments.MODULE);
+        if (index == null || module == null) {
+            return;
+        }
+        final ChannelGraph graph = new ChannelGraph();
+        addAnnotatedEndpoints(index, graph);
+        if (graph.isEmpty()) {
+            return;
+        }
+
+        final Config config = getConfig(module.getClassLoader());
+        addConnectors(getConnectorProperties(config), graph);
+        final boolean failOnUnconnectedChannels = deploymentUnit.getParent() == null
+                && config.getOptionalValue(FAIL_ON_UNCONNECTED_CHANNELS, Boolean.class).orElse(false);
+        validate(deploymentUnit.getName(), graph, failOnUnconnectedChannels);
+        deploymentUnit.putAttachment(ReactiveMessagingAttachments.CHANNEL_GRAPH, graph);
+        // Make sure the read-channel-graph operation is available, even if none of the channels get a channel=* resource
+        deploymentUnit.getAttachment(Attachments.DEPLOYMENT_RESOURCE_SUPPORT).getDeploymentSubsystemModel(SUBSYSTEM_NAME);
+    }
+
+    @Override
+    public void undeploy(DeploymentUnit deploymentUnit) {
+        deploymentUnit.removeAttachment(ReactiveMessagingAttachments.CHANNEL_GRAPH);
+    }
+
+    static void addAnnotatedEndpoints(CompositeIndex index, ChannelGraph graph) {
+        for (AnnotationInstance annotation : index.getAnnotations(INCOMING)) {
+            if (annotation.target().kind() == AnnotationTarget.Kind.METHOD && annotation.value() != null) {
+                graph.addSubscriber(annotation.value().asString(), EndpointKind.METHOD, getName(annotation.target().asMethod()));
+            }
+        }
+        for (AnnotationInstance annotation : index.getAnnotations(OUTGOING)) {
+            if (annotation.target().kind() == AnnotationTarget.Kind.METHOD && annotation.value() != null) {
+                graph.addPublisher(annotation.value().asString(), EndpointKind.METHOD, getName(annotation.target().asMethod()));
+            }
+        }
+        addInjectedEndpoints(index, CHANNEL, graph);
+        addInjectedEndpoints(index, STREAM, graph);
+    }
+
+    /**
+     * An injected {@code Emitter} publishes to the channel, anything else injected, e.g. a {@code Publisher}, subscribes
+     * to it.
+     */
+    private static void addInjectedEndpoints(CompositeIndex index, DotName annotationName, ChannelGraph graph) {
+        for (AnnotationInstance annotation : index.getAnnotations(annotationName)) {
+            if (annotation.value() == null) {
+                continue;
+            }
+            final Type type;
+            final String name;
+            final AnnotationTarget target = annotation.target();
+            if (target.kind() == AnnotationTarget.Kind.FIELD) {
+                final FieldInfo field = target.asField();
+                type = field.type();
+                name = field.declaringClass().name() + "#" + field.name();
+            } else if (target.kind() == AnnotationTarget.Kind.METHOD_PARAMETER) {
+                final MethodParameterInfo parameter = target.asMethodParameter();
+                type = parameter.method().parameters().get(parameter.position());
+                name = getName(parameter.method()) + "[" + parameter.position() + "]";
+            } else {
+                continue;
+            }
+            final String channel = annotation.value().asString();
+            if (type.name().equals(EMITTER)) {
+                graph.addPublisher(channel, EndpointKind.EMITTER, name);
+            } else {
+                graph.addSubscriber(channel, EndpointKind.STREAM, name);
+            }
+        }
+    }
+
+    /**
+     * @return the {@code mp.messaging.[incoming|outgoing].[channel].connector} properties
+     */
+    private static Map<String, String> getConnectorProperties(Config config) {
+        final Map<String, String> properties = new TreeMap<>();
+        for (String name : config.getPropertyNames()) {
+            if ((name.startsWith(INCOMING_PREFIX) || name.startsWith(OUTGOING_PREFIX)) && name.endsWith(CONNECTOR_SUFFIX)) {
+                config.getOptionalValue(name, String.class).ifPresent(value -> properties.put(name, value));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * A connector configured for an incoming channel publishes to it, and one for an outgoing channel subscribes to it.
+     */
+    static void addConnectors(Map<String, String> connectorProperties, ChannelGraph graph) {
+        for (Map.Entry<String, String> property : connectorProperties.entrySet()) {
+            final String name = property.getKey();
+            if (name.startsWith(INCOMING_PREFIX)) {
+                graph.addPublisher(name.substring(INCOMING_PREFIX.length(), name.length() - CONNECTOR_SUFFIX.length()), EndpointKind.CONNECTOR, property.getValue());
+            } else if (name.startsWith(OUTGOING_PREFIX)) {
+                graph.addSubscriber(name.substring(OUTGOING_PREFIX.length(), name.length() - CONNECTOR_SUFFIX.length()), EndpointKind.CONNECTOR, property.getValue());
+            }
+        }
+    }
+
+    static void validate(String deploymentName, ChannelGraph graph, boolean failOnUnconnectedChannels) throws DeploymentUnitProcessingException {
+        for (ChannelGraph.Channel channel : graph.getChannels()) {
+            if (channel.getPublishers().isEmpty()) {
+                if (failOnUnconnectedChannels) {
+                    throw MicroProfileReactiveMessagingLogger.LOGGER.channelWithoutPublisher(deploymentName, channel.getName(), channel.getSubscribers().toString());
+                }
+                MicroProfileReactiveMessagingLogger.LOGGER.channelWithoutPublisherWarning(deploymentName, channel.getName(), channel.getSubscribers().toString());
+            } else if (channel.getSubscribers().isEmpty()) {
+                MicroProfileReactiveMessagingLogger.LOGGER.channelWithoutSubscriber(deploymentName, channel.getName(), channel.getPublishers().toString());
+            }
+        }
+    }
+
+    private static Config getConfig(ClassLoader classLoader) {
+        final ClassLoader current = WildFlySecurityManager.getCurrentContextClassLoaderPrivileged();
+        try {
+            WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(classLoader);
+            return ConfigProvider.getConfig(classLoader);
+        } finally {
+            WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(current);
+        }
+    }
+
+    private static String getName(MethodInfo method) {
+        return method.declaringClass().name() + "#" + method.name();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.deployment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.modules.DependencySpec;
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleDependencySpec;
+import org.jboss.modules.ModuleLoadException;
+import org.jboss.modules.ModuleLoader;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+
+/**
+ * The connector modules which can be added to deployments, resolved once when the subsystem boots. The
+ * {@link ReactiveMessagingDependencyProcessor} adds them to the deployments, and the subsystem's capability service
+ * provides the same instance to the management model.
+ */
+public final class ConnectorModules {
+
+    static final String CONNECTOR_MODULE = "io.smallrye.reactive.messaging.connector";
+
+    private final List<ModuleDependencySpec> modules;
+
+    private ConnectorModules(List<ModuleDependencySpec> modules) {
+        this.modules = modules;
+    }
+
+    public List<ModuleDependencySpec> getModules() {
+        return modules;
+    }
+
+    /**
+     * The connector modules are listed by an optional über module exporting all the independent connectors/clients.
+     * However, it seems to confuse the ExternalBeanArchiveProcessor which provides the modules to scan for beans, so we
+     * load it and list them all individually instead. The connectors are the optional dependencies of the über module,
+     * and only the ones which were provisioned are returned.
+     */
+    public static ConnectorModules resolve(ModuleLoader moduleLoader) {
+        final Module module;
+        try {
+            module = moduleLoader.loadModule(CONNECTOR_MODULE);
+        } catch (ModuleLoadException e) {
+            // The module was not provisioned
+            MicroProfileReactiveMessagingLogger.LOGGER.intermediateModuleNotPresent(CONNECTOR_MODULE);
+            return new ConnectorModules(Collections.emptyList());
+        }
+        final List<ModuleDependencySpec> connectorModules = new ArrayList<>();
+        for (DependencySpec dep : module.getDependencies()) {
+            if (dep instanceof ModuleDependencySpec) {
+                final ModuleDependencySpec mds = (ModuleDependencySpec) dep;
+                if (mds.isOptional() && mds.getName().startsWith(CONNECTOR_MODULE + ".") && isProvisioned(moduleLoader, mds.getName())) {
+                    connectorModules.add(mds);
+                }
+            }
+        }
+        return new ConnectorModules(Collections.unmodifiableList(connectorModules));
+    }
+
+    private static boolean isProvisioned(ModuleLoader moduleLoader, String name) {
+        try {
+            moduleLoader.loadModule(name);
+            return true;
+        } catch (ModuleLoadException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.deployment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUtils;
+import org.jboss.as.server.deployment.annotation.CompositeIndex;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.ServiceRegistry;
+import org.jboss.vfs.VirtualFile;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Finds the connectors a deployment uses from the {@code mp.messaging.*} properties in its
+ * {@code META-INF/microprofile-config.properties} files, and from the system properties and environment variables
+ * setting the connector of one of its channels. The module dependencies must be known before the deployment has a
+ * class loader, and so before its MicroProfile Config can be read, so this only approximates what the config will
+ * contain:
+ * <ul>
+ *     <li>The config sources of the {@code microprofile-config-smallrye} subsystem apply to every deployment, but
+ *     cannot be read here, so all the connectors are used as soon as one is defined.</li>
+ *     <li>Config sources provided by the application cannot be taken into account.</li>
+ * </ul>
+ */
+final class ConnectorUsage {
+
+    static final String MICROPROFILE_CONFIG_PROPERTIES = "META-INF/microprofile-config.properties";
+
+    /** e.g. {@code mp.messaging.incoming.prices.connector=smallrye-kafka} */
+    private static final Pattern CHANNEL_CONNECTOR = Pattern.compile("mp\\.messaging\\.(?:incoming|outgoing)\\..+\\.connector");
+    /** e.g. {@code mp.messaging.connector.smallrye-kafka.bootstrap.servers=kafka:9092} */
+    private static final Pattern CONNECTOR_ATTRIBUTE = Pattern.compile("mp\\.messaging\\.connector\\.([^.]+)\\..+");
+    /** The characters MicroProfile Config replaces by {@code _} when looking a property up in the environment variables */
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-zA-Z0-9_]");
+    private static final String[] DIRECTIONS = {"incoming", "outgoing"};
+
+    /** The services of the config sources and config source providers of the {@code microprofile-config-smallrye} subsystem */
+    private static final ServiceName[] SERVER_CONFIG_SOURCES = {
+            ServiceName.parse("org.wildfly.microprofile.config.config-source"),
+            ServiceName.parse("org.wildfly.microprofile.config.config-source-provider"),
+    };
+
+    private ConnectorUsage() {
+    }
+
+    /**
+     * @param index the annotation index of the deployment, or {@code null} if it has none
+     * @param serviceRegistry the services of the server
+     * @return the names of the connectors used, or {@code null} if they could not all be determined, e.g. because one is
+     * set with an expression or the server has config sources of its own
+     */
+    static Set<String> findConnectors(DeploymentUnit deploymentUnit, CompositeIndex index, ServiceRegistry serviceRegistry) {
+        if (index == null || hasServerConfigSources(serviceRegistry)) {
+            return null;
+        }
+        final Set<String> connectors = new HashSet<>();
+        for (ResourceRoot root : getResourceRoots(deploymentUnit)) {
+            final VirtualFile file = root.getRoot().getChild(MICROPROFILE_CONFIG_PROPERTIES);
+            if (file.exists()) {
+                final Properties properties = new Properties();
+                try (InputStream in = file.openStream()) {
+                    properties.load(in);
+                } catch (IOException e) {
+                    return null;
+                }
+                if (!addConnectors(properties, connectors)) {
+                    return null;
+                }
+            }
+        }
+
+        // The system properties and environment variables are seen by all the deployments, so only the ones for the
+        // channels of this one count
+        final ChannelGraph graph = new ChannelGraph();
+        ChannelGraphProcessor.addAnnotatedEndpoints(index, graph);
+        final Properties systemProperties = WildFlySecurityManager.getSystemPropertiesPrivileged();
+        final Map<String, String> env = WildFlySecurityManager.getSystemEnvironmentPrivileged();
+        for (ChannelGraph.Channel channel : graph.getChannels()) {
+            for (String direction : DIRECTIONS) {
+                final String name = "mp.messaging." + direction + "." + channel.getName() + ".connector";
+                String connector = systemProperties.getProperty(name);
+                if (connector == null) {
+                    connector = getEnv(env, name);
+                }
+                if (connector != null && !addConnector(connector, connectors)) {
+                    return null;
+                }
+            }
+        }
+        return connectors;
+    }
+
+    private static boolean hasServerConfigSources(ServiceRegistry serviceRegistry) {
+        for (ServiceName name : serviceRegistry.getServiceNames()) {
+            for (ServiceName configSources : SERVER_CONFIG_SOURCES) {
+                if (configSources.isParentOf(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks a property up in the environment variables the way MicroProfile Config does.
+     */
+    private static String getEnv(Map<String, String> env, String name) {
+        String value = env.get(name);
+        if (value == null) {
+            final String sanitized = NON_ALPHANUMERIC.matcher(name).replaceAll("_");
+            value = env.get(sanitized);
+            if (value == null) {
+                value = env.get(sanitized.toUpperCase(Locale.ROOT));
+            }
+        }
+        return value;
+    }
+
+    static Iterable<ResourceRoot> getResourceRoots(DeploymentUnit deploymentUnit) {
+        // A subdeployment also sees the config of the libraries in the top level deployment, e.g. an ear's lib directory
+        final DeploymentUnit parent = deploymentUnit.getParent();
+        if (parent == null) {
+            return DeploymentUtils.allResourceRoots(deploymentUnit);
+        }
+        final Set<ResourceRoot> roots = new HashSet<>(DeploymentUtils.allResourceRoots(deploymentUnit));
+        roots.addAll(DeploymentUtils.allResourceRoots(parent));
+        return roots;
+    }
+
+    private static boolean addConnectors(Properties properties, Set<String> connectors) {
+        for (String name : properties.stringPropertyNames()) {
+            if (CHANNEL_CONNECTOR.matcher(name).matches()) {
+                if (!addConnector(properties.getProperty(name), connectors)) {
+                    return false;
+                }
+            } else {
+                final Matcher matcher = CONNECTOR_ATTRIBUTE.matcher(name);
+                if (matcher.matches()) {
+                    connectors.add(matcher.group(1));
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean addConnector(String connector, Set<String> connectors) {
+        final String trimmed = connector.trim();
+        if (trimmed.contains("${")) {
+            return false;
+        }
+        connectors.add(trimmed);
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging.deployment;
+
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * The MicroProfile Config of a deployment, shared by everything reading the subsystem's options of its channels:
+ * <pre>
+ * wildfly.reactive-messaging.incoming.&lt;channel&gt;.&lt;option&gt;
+ * wildfly.reactive-messaging.outgoing.&lt;channel&gt;.&lt;option&gt;
+ * </pre>
+ * The config is only looked up when first needed, once the deployment's config sources have been set up.
+ */
+public final class DeploymentConfig {
+
+    public static final String INCOMING_PREFIX = "wildfly.reactive-messaging.incoming.";
+    public static final String OUTGOING_PREFIX = "wildfly.reactive-messaging.outgoing.";
+
+    private final ClassLoader classLoader;
+    private volatile Config config;
+
+    public DeploymentConfig(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public Config get() {
+        Config config = this.config;
+        if (config == null) {
+            config = ConfigProvider.getConfig(classLoader);
+            this.config = config;
+        }
+        return config;
+    }
+
+    /**
+     * @param suffix the option, starting with a {@code .}
+     */
+    public <T> Optional<T> getIncoming(String channel, String suffix, Class<T> type) {
+        return get().getOptionalValue(INCOMING_PREFIX + channel + suffix, type);
+    }
+
+    /**
+     * @param suffix the option, starting with a {@code .}
+     */
+    public <T> Optional<T> getOutgoing(String channel, String suffix, Class<T> type) {
+        return get().getOptionalValue(OUTGOING_PREFIX + channel + suffix, type);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.deployment;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import org.jboss.as.server.deployment.AttachmentKey;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetricsRegistry;
+import org.wildfly.extension.microprofile.reactive.messaging.vertx.SharedVertx;
+
+/**
+ * Deployment unit attachments used by the Reactive Messaging subsystem.
+ */
+public final class ReactiveMessagingAttachments {
+
+    /**
+     * The metrics of the channels used by the deployment's {@code @Incoming}/{@code @Outgoing} methods.
+     */
+    public static final AttachmentKey<ChannelMetricsRegistry> CHANNEL_METRICS_REGISTRY = AttachmentKey.create(ChannelMetricsRegistry.class);
+
+    /**
+     * The channels of the deployment, with what publishes to and subscribes to each of them.
+     */
+    public static final AttachmentKey<ChannelGraph> CHANNEL_GRAPH = AttachmentKey.create(ChannelGraph.class);
+
+    /**
+     * The Vert.x instance shared by the connectors, if the subsystem has one.
+     */
+    @SuppressWarnings("unchecked")
+    public static final AttachmentKey<Supplier<SharedVertx>> SHARED_VERTX = AttachmentKey.create((Class<Supplier<SharedVertx>>) (Class<?>) Supplier.class);
+
+    /**
+     * The worker pools the deployment's {@code @Incoming} methods are moved onto, by name.
+     */
+    @SuppressWarnings("unchecked")
+    public static final AttachmentKey<Map<String, Supplier<ExecutorService>>> WORKER_POOLS = AttachmentKey.create((Class<Map<String, Supplier<ExecutorService>>>) (Class<?>) Map.class);
+
+    private ReactiveMessagingAttachments() {
+    }
+}
@@ -16,36 +16,110 @@
 
 package org.wildfly.extension.microprofile.reactive.messaging.deployment;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import org.jboss.as.controller.capability.CapabilityServiceSupport;
 import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DelegatingSupplier;
 import org.jboss.as.server.deployment.DeploymentPhaseContext;
 import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
 import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.as.server.deployment.annotation.CompositeIndex;
 import org.jboss.as.server.deployment.module.ModuleDependency;
 import org.jboss.as.server.deployment.module.ModuleSpecification;
-import org.jboss.modules.DependencySpec;
+import org.jboss.jandex.DotName;
 import org.jboss.modules.Module;
 import org.jboss.modules.ModuleDependencySpec;
-import org.jboss.modules.ModuleLoadException;
 import org.jboss.modules.ModuleLoader;
+import org.jboss.msc.service.ServiceRegistry;
+import org.wildfly.extension.microprofile.reactive.messaging.VertxResourceDefinition;
+import org.wildfly.extension.microprofile.reactive.messaging.WorkerPoolResourceDefinition;
 import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.extension.microprofile.reactive.messaging.vertx.SharedVertx;
 
 /**
  * @author <a href="mailto:kabir.khan@jboss.com">Kabir Khan</a>
  */
 public class ReactiveMessagingDependencyProcessor implements DeploymentUnitProcessor {
 
+    private static final String VERTX_CLIENT_MODULE = "io.vertx.client";
+    /** The prefix of the names of the connectors in {@link ConnectorModules}, e.g. {@code smallrye-kafka} */
+    private static final String CONNECTOR_NAME_PREFIX = "smallrye-";
+
+    private static final DotName[] REACTIVE_MESSAGING_ANNOTATIONS = {
+            DotName.createSimple("org.eclipse.microprofile.reactive.messaging.Incoming"),
+            DotName.createSimple("org.eclipse.microprofile.reactive.messaging.Outgoing"),
+            DotName.createSimple("io.smallrye.reactive.messaging.annotations.Channel"),
+            DotName.createSimple("io.smallrye.reactive.messaging.annotations.Stream")
+    };
+
+    private final ConnectorModules connectorModules;
+
+    /**
+     * @param connectorModules the connector modules which can be added to deployments, resolved when the subsystem booted
+     */
+    public ReactiveMessagingDependencyProcessor(ConnectorModules connectorModules) {
+        this.connectorModules = connectorModules;
+    }
+
     @Override
-    public void deploy(DeploymentPhaseContext phaseContext) {
+    public void deploy(DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
         DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
 
-        addModuleDependencies(deploymentUnit);
+        final CompositeIndex index = deploymentUnit.getAttachment(Attachments.COMPOSITE_ANNOTATION_INDEX);
+        if (index != null && !usesReactiveMessaging(index)) {
+            return;
+        }
+        addModuleDependencies(deploymentUnit, index, phaseContext.getServiceRegistry());
+
+        // The deployment's connectors are handed the shared Vert.x instance, so it must be up before they are created
+        final CapabilityServiceSupport support = deploymentUnit.getAttachment(Attachments.CAPABILITY_SERVICE_SUPPORT);
+        if (support.hasCapability(VertxResourceDefinition.VERTX_CAPABILITY_NAME)) {
+            final DelegatingSupplier<SharedVertx> vertx = new DelegatingSupplier<>();
+            phaseContext.requires(support.getCapabilityServiceName(VertxResourceDefinition.VERTX_CAPABILITY_NAME), vertx);
+            deploymentUnit.putAttachment(ReactiveMessagingAttachments.SHARED_VERTX, vertx);
+        }
+
+        // The worker pools the methods are moved onto must be up before the methods are subscribed to their channels,
+        // and must not be shut down while the deployment still hands them messages
+        final Map<String, Supplier<ExecutorService>> workerPools = new HashMap<>();
+        for (String workerPool : WorkerPoolUsage.findWorkerPools(deploymentUnit)) {
+            final String capabilityName = WorkerPoolResourceDefinition.WORKER_POOL_CAPABILITY_NAME + "." + workerPool;
+            if (!support.hasCapability(capabilityName)) {
+                throw MicroProfileReactiveMessagingLogger.LOGGER.deploymentRequiresCapability(deploymentUnit.getName(), capabilityName);
+            }
+            final DelegatingSupplier<ExecutorService> executor = new DelegatingSupplier<>();
+            phaseContext.requires(support.getCapabilityServiceName(WorkerPoolResourceDefinition.WORKER_POOL_CAPABILITY_NAME, workerPool), executor);
+            workerPools.put(workerPool, executor);
+        }
+        deploymentUnit.putAttachment(ReactiveMessagingAttachments.WORKER_POOLS, workerPools);
+    }
+
+    /**
+     * Whether the deployment has {@code @Incoming} or {@code @Outgoing} methods, or injects an emitter or stream with
+     * {@code @Channel} or {@code @Stream}. Otherwise, none of the Reactive Messaging modules are needed.
+     */
+    private static boolean usesReactiveMessaging(CompositeIndex index) {
+        for (DotName annotation : REACTIVE_MESSAGING_ANNOTATIONS) {
+            if (!index.getAnnotations(annotation).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public void undeploy(DeploymentUnit context) {
+        context.removeAttachment(ReactiveMessagingAttachments.SHARED_VERTX);
+        context.removeAttachment(ReactiveMessagingAttachments.WORKER_POOLS);
     }
 
-    private void addModuleDependencies(DeploymentUnit deploymentUnit) {
+    private void addModuleDependencies(DeploymentUnit deploymentUnit, CompositeIndex index, ServiceRegistry serviceRegistry) {
         final ModuleSpecification moduleSpecification = deploymentUnit.getAttachment(Attachments.MODULE_SPECIFICATION);
         final ModuleLoader moduleLoader = Module.getBootModuleLoader();
 
@@ -62,26 +136,18 @@ public class ReactiveMessagingDependencyProcessor implements DeploymentUnitProce
         moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, "io.reactivex.rxjava2.rxjava", false, false, true, false));
         moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, "io.smallrye.reactive.streams-operators", false, false, true, false));
 
-        // These are optional über modules that export all the independent connectors/clients. However, it seems
-        // to confuse the ExternalBeanArchiveProcessor which provides the modules to scan for beans, so we
-        // load them and list them all individually instead
-        addDependenciesForIntermediateModule(moduleSpecification, moduleLoader, "io.smallrye.reactive.messaging.connector");
-
-        moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, "io.vertx.client", true, false, true, false));
-    }
-
-    private void addDependenciesForIntermediateModule(ModuleSpecification moduleSpecification, ModuleLoader moduleLoader, String intermediateModuleName) {
-        try {
-            Module module = moduleLoader.loadModule(intermediateModuleName);
-            for (DependencySpec dep : module.getDependencies()) {
-                if (dep instanceof ModuleDependencySpec) {
-                    ModuleDependencySpec mds = (ModuleDependencySpec) dep;
-                    moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, mds.getName(), mds.isOptional(), false, true, false));
-                }
+        // Only the connectors the deployment uses, each with the Vert.x client it is built on, so that the other ones
+        // are not scanned for beans nor loaded
+        final Set<String> connectors = ConnectorUsage.findConnectors(deploymentUnit, index, serviceRegistry);
+        for (ModuleDependencySpec connectorModule : connectorModules.getModules()) {
+            final String client = connectorModule.getName().substring(ConnectorModules.CONNECTOR_MODULE.length() + 1);
+            if (connectors == null || connectors.contains(CONNECTOR_NAME_PREFIX + client)) {
+                moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, connectorModule.getName(), connectorModule.isOptional(), false, true, false));
+                moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, VERTX_CLIENT_MODULE + "." + client, true, false, true, false));
             }
-        } catch (ModuleLoadException e) {
-            // The module was not provisioned
-            MicroProfileReactiveMessagingLogger.LOGGER.intermediateModuleNotPresent(intermediateModuleName);
         }
+
+        // Contains the interceptor recording the channel metrics
+        moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, "org.wildfly.extension.microprofile.reactive-messaging-smallrye", false, false, true, false));
     }
 }
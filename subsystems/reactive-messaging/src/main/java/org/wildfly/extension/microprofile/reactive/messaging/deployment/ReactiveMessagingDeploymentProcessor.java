@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.deployment;
+
+import static org.wildfly.extension.microprofile.reactive.messaging.ChannelResourceDefinition.CHANNEL;
+import static org.wildfly.extension.microprofile.reactive.messaging.MicroProfileReactiveMessagingExtension.SUBSYSTEM_NAME;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.capability.CapabilityServiceSupport;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentPhaseContext;
+import org.jboss.as.server.deployment.DeploymentResourceSupport;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.as.weld.WeldCapability;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.extension.microprofile.reactive.messaging.batch.BatchingChannels;
+import org.wildfly.extension.microprofile.reactive.messaging.batch.BatchingExtension;
+import org.wildfly.extension.microprofile.reactive.messaging.credit.CreditFlowChannels;
+import org.wildfly.extension.microprofile.reactive.messaging.credit.CreditFlowExtension;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetricsExtension;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetricsRegistry;
+import org.wildfly.extension.microprofile.reactive.messaging.mqtt.MqttExtension;
+import org.wildfly.extension.microprofile.reactive.messaging.mqtt.MqttTopicCounters;
+import org.wildfly.extension.microprofile.reactive.messaging.ringbuffer.RingBufferChannels;
+import org.wildfly.extension.microprofile.reactive.messaging.ringbuffer.RingBufferExtension;
+import org.wildfly.extension.microprofile.reactive.messaging.sink.PipeliningChannels;
+import org.wildfly.extension.microprofile.reactive.messaging.sink.PipeliningExtension;
+import org.wildfly.extension.microprofile.reactive.messaging.vertx.SharedVertx;
+import org.wildfly.extension.microprofile.reactive.messaging.vertx.VertxExtension;
+import org.wildfly.extension.microprofile.reactive.messaging.worker.WorkerPoolDispatcher;
+import org.wildfly.extension.microprofile.reactive.messaging.worker.WorkerPoolExtension;
+
+/**
+ * Registers the CDI extensions needed by deployments containing {@code @Incoming}/{@code @Outgoing} methods, as found
+ * in the {@link ChannelGraph} attached by {@link ChannelGraphProcessor}:
+ * <ul>
+ *     <li>{@link ChannelMetricsExtension}, and a {@code channel=*} resource in the deployment's management model
+ *     for each of the channels used by the methods</li>
+ *     <li>{@link WorkerPoolExtension}, to move {@code @Incoming} methods onto the worker pools defined in the
+ *     subsystem</li>
+ *     <li>{@link BatchingExtension}, to deliver the messages of the channels configured to use batches in batches</li>
+ *     <li>{@link PipeliningExtension}, to let the connectors send several messages of an outgoing channel at the
+ *     same time</li>
+ *     <li>{@link CreditFlowExtension}, to bound how many messages of an incoming channel are requested from its
+ *     connector and left unacknowledged</li>
+ *     <li>{@link RingBufferExtension}, to deliver the messages of the channels configured to use ring buffers
+ *     through them</li>
+ *     <li>{@link MqttExtension}, to count the messages of the channels using the MQTT connector by topic</li>
+ *     <li>{@link VertxExtension}, to hand the Vert.x instance of the subsystem to the connectors, if it has one</li>
+ * </ul>
+ */
+public class ReactiveMessagingDeploymentProcessor implements DeploymentUnitProcessor {
+
+    private final String weldCapabilityName;
+
+    public ReactiveMessagingDeploymentProcessor(String weldCapabilityName) {
+        this.weldCapabilityName = weldCapabilityName;
+    }
+
+    @Override
+    public void deploy(DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
+        DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
+
+        final ChannelGraph graph = deploymentUnit.getAttachment(ReactiveMessagingAttachments.CHANNEL_GRAPH);
+        if (graph == null) {
+            return;
+        }
+        final Set<String> channels = new TreeSet<>();
+        for (ChannelGraph.Channel channel : graph.getChannels()) {
+            if (channel.isUsedByMethod()) {
+                channels.add(channel.getName());
+            }
+        }
+        if (channels.isEmpty()) {
+            return;
+        }
+
+        final CapabilityServiceSupport support = deploymentUnit.getAttachment(Attachments.CAPABILITY_SERVICE_SUPPORT);
+        final WeldCapability weldCapability;
+        try {
+            weldCapability = support.getCapabilityRuntimeAPI(weldCapabilityName, WeldCapability.class);
+        } catch (CapabilityServiceSupport.NoSuchCapabilityException e) {
+            throw MicroProfileReactiveMessagingLogger.LOGGER.deploymentRequiresCapability(deploymentUnit.getName(), weldCapabilityName);
+        }
+        if (!weldCapability.isPartOfWeldDeployment(deploymentUnit)) {
+            return;
+        }
+
+        final ChannelMetricsRegistry registry = new ChannelMetricsRegistry();
+        final DeploymentResourceSupport resourceSupport = deploymentUnit.getAttachment(Attachments.DEPLOYMENT_RESOURCE_SUPPORT);
+        for (String channel : channels) {
+            registry.getChannelMetrics(channel);
+            resourceSupport.getDeploymentSubModel(SUBSYSTEM_NAME, PathElement.pathElement(CHANNEL, channel));
+        }
+        deploymentUnit.putAttachment(ReactiveMessagingAttachments.CHANNEL_METRICS_REGISTRY, registry);
+        weldCapability.registerExtensionInstance(new ChannelMetricsExtension(registry), deploymentUnit);
+
+        final ClassLoader classLoader = deploymentUnit.getAttachment(Attachments.MODULE).getClassLoader();
+        final Map<String, Supplier<ExecutorService>> workerPools = deploymentUnit.getAttachment(ReactiveMessagingAttachments.WORKER_POOLS);
+        final WorkerPoolDispatcher dispatcher = new WorkerPoolDispatcher(classLoader, workerPools == null ? Collections.emptyMap() : workerPools);
+        final DeploymentConfig config = new DeploymentConfig(classLoader);
+        weldCapability.registerExtensionInstance(new WorkerPoolExtension(dispatcher, config), deploymentUnit);
+        weldCapability.registerExtensionInstance(new BatchingExtension(new BatchingChannels(config)), deploymentUnit);
+        weldCapability.registerExtensionInstance(new PipeliningExtension(new PipeliningChannels(config)), deploymentUnit);
+        weldCapability.registerExtensionInstance(new CreditFlowExtension(new CreditFlowChannels(config)), deploymentUnit);
+        weldCapability.registerExtensionInstance(new RingBufferExtension(new RingBufferChannels(config)), deploymentUnit);
+        weldCapability.registerExtensionInstance(new MqttExtension(new MqttTopicCounters(classLoader, config)), deploymentUnit);
+        final Supplier<SharedVertx> vertx = deploymentUnit.getAttachment(ReactiveMessagingAttachments.SHARED_VERTX);
+        if (vertx != null) {
+            weldCapability.registerExtensionInstance(new VertxExtension(vertx.get()), deploymentUnit);
+        }
+    }
+
+    @Override
+    public void undeploy(DeploymentUnit deploymentUnit) {
+        deploymentUnit.removeAttachment(ReactiveMessagingAttachments.CHANNEL_METRICS_REGISTRY);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging.deployment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.module.ResourceRoot;
+import org.jboss.vfs.VirtualFile;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Finds the worker pools a deployment's {@code @Incoming} methods are moved onto from the
+ * {@code wildfly.reactive-messaging.incoming.*.worker-pool} properties, in the same places as {@link ConnectorUsage}
+ * finds the connectors. The deployment depends on these pools, so they can only be used if configured there.
+ */
+final class WorkerPoolUsage {
+
+    /** e.g. {@code wildfly.reactive-messaging.incoming.prices.worker-pool=blocking} */
+    private static final Pattern CHANNEL_WORKER_POOL = Pattern.compile("wildfly\\.reactive-messaging\\.incoming\\..+\\.worker-pool");
+    /** e.g. {@code WILDFLY_REACTIVE_MESSAGING_INCOMING_PRICES_WORKER_POOL=blocking} */
+    private static final Pattern CHANNEL_WORKER_POOL_ENV = Pattern.compile("WILDFLY_REACTIVE_MESSAGING_INCOMING_.+_WORKER_POOL");
+
+    private WorkerPoolUsage() {
+    }
+
+    /**
+     * @return the names of the worker pools used. Ones set with an expression are left out.
+     */
+    static Set<String> findWorkerPools(DeploymentUnit deploymentUnit) {
+        final Set<String> workerPools = new TreeSet<>();
+        for (ResourceRoot root : ConnectorUsage.getResourceRoots(deploymentUnit)) {
+            final VirtualFile file = root.getRoot().getChild(ConnectorUsage.MICROPROFILE_CONFIG_PROPERTIES);
+            if (file.exists()) {
+                final Properties properties = new Properties();
+                try (InputStream in = file.openStream()) {
+                    properties.load(in);
+                } catch (IOException e) {
+                    continue;
+                }
+                addWorkerPools(properties, workerPools);
+            }
+        }
+        addWorkerPools(WildFlySecurityManager.getSystemPropertiesPrivileged(), workerPools);
+        for (Map.Entry<String, String> env : WildFlySecurityManager.getSystemEnvironmentPrivileged().entrySet()) {
+            if (CHANNEL_WORKER_POOL_ENV.matcher(env.getKey()).matches()) {
+                addWorkerPool(env.getValue(), workerPools);
+            }
+        }
+        return workerPools;
+    }
+
+    private static void addWorkerPools(Properties properties, Set<String> workerPools) {
+        for (String name : properties.stringPropertyNames()) {
+            if (CHANNEL_WORKER_POOL.matcher(name).matches()) {
+                addWorkerPool(properties.getProperty(name), workerPools);
+            }
+        }
+    }
+
+    private static void addWorkerPool(String workerPool, Set<String> workerPools) {
+        final String trimmed = workerPool.trim();
+        if (!trimmed.isEmpty() && !trimmed.contains("${")) {
+            workerPools.add(trimmed);
+        }
+    }
+}
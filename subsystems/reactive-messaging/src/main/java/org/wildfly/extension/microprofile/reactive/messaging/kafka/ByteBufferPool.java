@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.kafka;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A pool of heap {@link ByteBuffer}s for encoding the payloads of outgoing Kafka records into, which
+ * {@link PooledByteBufferSerializer} returns to the pool once it has copied the bytes into the array Kafka needs. This
+ * saves allocating and zeroing a buffer sized for the largest payload for each record, but not the array of the
+ * record's exact size, which the Kafka {@code Serializer} contract requires.
+ * <p>
+ * Buffers are pooled in sizes which are powers of two from {@value #MIN_POOLED_CAPACITY} bytes up to
+ * {@value #MAX_POOLED_CAPACITY} bytes, with up to {@value #MAX_BUFFERS_PER_SIZE} idle buffers of each size. Larger
+ * buffers are allocated and left to the garbage collector as usual. The pool remembers which buffers it handed out,
+ * so only those are ever put back, and each of them must be either sent or {@linkplain #release(ByteBuffer) released}.
+ */
+public final class ByteBufferPool {
+
+    static final int MIN_POOLED_CAPACITY = 1024;
+    static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+    static final int MAX_BUFFERS_PER_SIZE = 16;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_POOLED_CAPACITY);
+    @SuppressWarnings("unchecked")
+    private static final ArrayBlockingQueue<ByteBuffer>[] POOLS =
+            new ArrayBlockingQueue[Integer.numberOfTrailingZeros(MAX_POOLED_CAPACITY) - MIN_SHIFT + 1];
+
+    // ByteBuffer.equals() compares the contents, so the buffers handed out are told apart by their identity
+    private static final Set<ByteBuffer> ACQUIRED = Collections.newSetFromMap(Collections.synchronizedMap(new IdentityHashMap<>()));
+
+    static {
+        for (int i = 0; i < POOLS.length; i++) {
+            POOLS[i] = new ArrayBlockingQueue<>(MAX_BUFFERS_PER_SIZE);
+        }
+    }
+
+    private ByteBufferPool() {
+    }
+
+    /**
+     * Gets a cleared buffer with room for at least {@code size} bytes, from the pool if there is one of the right
+     * size. Once written to, flip it and send it as the payload of a message to a channel using the
+     * {@link PooledByteBufferSerializer}, after which it must not be used anymore.
+     *
+     * @param size the number of bytes needed
+     * @return a heap buffer whose limit is its capacity
+     */
+    public static ByteBuffer acquire(int size) {
+        if (size > MAX_POOLED_CAPACITY) {
+            return ByteBuffer.allocate(size);
+        }
+        final int index = index(size);
+        ByteBuffer buffer = POOLS[index].poll();
+        if (buffer != null) {
+            buffer.clear();
+        } else {
+            buffer = ByteBuffer.allocate(MIN_POOLED_CAPACITY << index);
+        }
+        ACQUIRED.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool, if it was handed out by it. The caller must not use it anymore.
+     *
+     * @param buffer the buffer
+     * @return {@code true} if the buffer was handed out by {@link #acquire(int)} and not released since
+     */
+    public static boolean release(ByteBuffer buffer) {
+        if (!ACQUIRED.remove(buffer)) {
+            return false;
+        }
+        // If the pool for its size is full, it is garbage collected instead
+        POOLS[index(buffer.capacity())].offer(buffer);
+        return true;
+    }
+
+    /**
+     * Whether the buffer was handed out by {@link #acquire(int)} and not released since.
+     */
+    static boolean isAcquired(ByteBuffer buffer) {
+        return ACQUIRED.contains(buffer);
+    }
+
+    private static int index(int size) {
+        if (size <= MIN_POOLED_CAPACITY) {
+            return 0;
+        }
+        // The smallest power of two >= size
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.kafka;
+
+import java.nio.ByteBuffer;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer for {@link ByteBuffer} payloads, which returns buffers obtained from the {@link ByteBufferPool}
+ * to the pool once their bytes have been copied into the array Kafka needs. Configure it for an outgoing channel with
+ * <pre>
+ * mp.messaging.outgoing.&lt;channel&gt;.value.serializer=org.wildfly.extension.microprofile.reactive.messaging.kafka.PooledByteBufferSerializer
+ * </pre>
+ * The bytes between the position and the limit of the buffer are copied into a new array, as Kafka needs one of the
+ * exact size, and a buffer from the pool is then released, so it must not be used anymore once it has been sent.
+ * A buffer not from the pool whose array holds exactly those bytes is handed to Kafka as it is, without copying it,
+ * like Kafka's own {@code ByteBufferSerializer} does.
+ * <p>
+ * On the incoming side, Kafka's {@code ByteBufferDeserializer} already wraps the array the consumer read the record
+ * value into, so an {@code @Incoming} method receiving a {@link ByteBuffer} can decode it without another copy.
+ */
+public class PooledByteBufferSerializer implements Serializer<ByteBuffer> {
+
+    @Override
+    public byte[] serialize(String topic, ByteBuffer data) {
+        if (data == null) {
+            return null;
+        }
+        final boolean pooled = ByteBufferPool.isAcquired(data);
+        if (!pooled && data.hasArray() && data.arrayOffset() == 0 && data.position() == 0 && data.limit() == data.array().length) {
+            return data.array();
+        }
+        final byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        if (pooled) {
+            ByteBufferPool.release(data);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Priority;
+import javax.decorator.Decorator;
+import javax.decorator.Delegate;
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
+
+import io.smallrye.reactive.messaging.ChannelRegistry;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.streams.operators.PublisherBuilder;
+import org.wildfly.extension.microprofile.reactive.messaging.ChannelRegistryPriorities;
+
+/**
+ * Decorates the SmallRye {@link ChannelRegistry}, so the messages of the incoming channels are counted as acknowledged
+ * when their acknowledgement reaches the connector. Apart from the counting of the MQTT topics, it is the decorator
+ * closest to the connector, see {@link ChannelRegistryPriorities}, so whatever the others wrap the messages in, it is
+ * the connector's own acknowledgement which is counted.
+ */
+@Decorator
+@Priority(ChannelRegistryPriorities.ACK_COUNTING)
+public abstract class AckCountingChannelRegistry implements ChannelRegistry {
+
+    @Inject
+    @Delegate
+    @Any
+    ChannelRegistry delegate;
+
+    @Inject
+    ChannelMetricsRegistry metricsRegistry;
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public List<PublisherBuilder<? extends Message>> getPublishers(String name) {
+        final List<PublisherBuilder<? extends Message>> publishers = delegate.getPublishers(name);
+        if (publishers.isEmpty()) {
+            return publishers;
+        }
+        final ChannelMetrics metrics = metricsRegistry.getChannelMetrics(name);
+        metrics.trackAcks();
+        final List<PublisherBuilder<? extends Message>> counted = new ArrayList<>(publishers.size());
+        for (PublisherBuilder<? extends Message> publisher : publishers) {
+            counted.add(publisher.map(message -> new AckCountingMessage(message, metrics)));
+        }
+        return counted;
+    }
+}
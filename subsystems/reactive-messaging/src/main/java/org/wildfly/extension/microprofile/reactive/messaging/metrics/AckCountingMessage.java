@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.metrics;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+/**
+ * Wraps a message received from a connector, to count it in the {@link ChannelMetrics} of its channel once it is
+ * acknowledged to the connector.
+ */
+class AckCountingMessage<T> implements Message<T> {
+
+    private final Message<T> delegate;
+    private final ChannelMetrics metrics;
+    private final AtomicBoolean acked = new AtomicBoolean();
+
+    AckCountingMessage(Message<T> delegate, ChannelMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public T getPayload() {
+        return delegate.getPayload();
+    }
+
+    @Override
+    public CompletionStage<Void> ack() {
+        final CompletionStage<Void> ack = delegate.ack();
+        if (acked.compareAndSet(false, true)) {
+            // Acknowledging a message again does not make it count twice
+            ack.whenComplete((ignored, error) -> metrics.messageAcked(error == null));
+        }
+        return ack;
+    }
+
+    /**
+     * Unwraps to the connector's own message, e.g. to get at the Kafka record.
+     */
+    @Override
+    public <C> C unwrap(Class<C> unwrapType) {
+        if (unwrapType.isInstance(delegate)) {
+            return unwrapType.cast(delegate);
+        }
+        return delegate.unwrap(unwrapType);
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics collected for a channel. All the counters are {@link LongAdder}s, so threads delivering messages
+ * on the same channel do not contend on a single memory location.
+ * <p>
+ * The metrics of the acknowledgements, the sends, the credit and the topics only apply to some channels, depending on their connector and
+ * configuration. They are only tracked once the code collecting them has been set up for the channel, and are not
+ * defined until then.
+ */
+public final class ChannelMetrics {
+
+    private static final long[] BUCKET_UPPER_BOUNDS = {
+            TimeUnit.MICROSECONDS.toNanos(10),
+            TimeUnit.MICROSECONDS.toNanos(100),
+            TimeUnit.MILLISECONDS.toNanos(1),
+            TimeUnit.MILLISECONDS.toNanos(10),
+            TimeUnit.MILLISECONDS.toNanos(100),
+            TimeUnit.SECONDS.toNanos(1),
+            TimeUnit.SECONDS.toNanos(10)
+    };
+
+    /**
+     * The names of the buckets of the processing time histogram. A processing time is counted in the first
+     * bucket it is less than or equal to.
+     */
+    public static final String[] BUCKET_NAMES = {"10us", "100us", "1ms", "10ms", "100ms", "1s", "10s", "+Inf"};
+
+    /**
+     * The number of topics messages are counted for separately. The messages of any further topics, e.g. of a
+     * channel subscribed to a wildcard topic, are counted under {@link #OTHER_TOPICS}.
+     */
+    static final int MAX_TOPICS = 1000;
+    public static final String OTHER_TOPICS = "*";
+
+    private final String name;
+    private final LongAdder messagesIn = new LongAdder();
+    private final LongAdder messagesOut = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder acks = new LongAdder();
+    private final LongAdder ackFailures = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder sendsInFlight = new LongAdder();
+    private final LongAdder credit = new LongAdder();
+    private final LongAdder unsettled = new LongAdder();
+    private final LongAdder processingTime = new LongAdder();
+    private final LongAdder[] buckets = new LongAdder[BUCKET_NAMES.length];
+    private final ConcurrentMap<String, LongAdder> topics = new ConcurrentHashMap<>();
+    private volatile boolean acksTracked;
+    private volatile boolean sendsTracked;
+    private volatile boolean creditTracked;
+    private volatile boolean topicsTracked;
+
+    ChannelMetrics(String name) {
+        this.name = name;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void messageIn() {
+        messagesIn.increment();
+        inFlight.increment();
+    }
+
+    void messageProcessed(long durationNanos, boolean success) {
+        inFlight.decrement();
+        if (success) {
+            successes.increment();
+        } else {
+            failures.increment();
+        }
+        processingTime.add(durationNanos);
+        int bucket = 0;
+        while (bucket < BUCKET_UPPER_BOUNDS.length && durationNanos > BUCKET_UPPER_BOUNDS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+    }
+
+    void messageOut() {
+        messagesOut.increment();
+    }
+
+    void messageAcked(boolean success) {
+        if (success) {
+            acks.increment();
+        } else {
+            ackFailures.increment();
+        }
+    }
+
+    /**
+     * Marks the acknowledgements of the messages received from the channel's connector as tracked, by
+     * {@link #messageAcked}.
+     */
+    void trackAcks() {
+        acksTracked = true;
+    }
+
+    /**
+     * Marks the messages in flight to the channel's connector as tracked, by {@link #sendsStarted} and
+     * {@link #sendsCompleted}.
+     */
+    public void trackSends() {
+        sendsTracked = true;
+    }
+
+    /**
+     * Marks the credit and the unsettled messages of the channel as tracked, by {@link #creditGranted},
+     * {@link #creditUsed} and {@link #messageSettled}.
+     */
+    public void trackCredit() {
+        creditTracked = true;
+    }
+
+    /**
+     * Marks the messages of the channel as counted by topic, by {@link #messageOnTopic}.
+     */
+    public void trackTopics() {
+        topicsTracked = true;
+    }
+
+    public boolean isAcksTracked() {
+        return acksTracked;
+    }
+
+    public boolean isSendsTracked() {
+        return sendsTracked;
+    }
+
+    public boolean isCreditTracked() {
+        return creditTracked;
+    }
+
+    public boolean isTopicsTracked() {
+        return topicsTracked;
+    }
+
+    /**
+     * Records messages handed to the connector sending the channel's messages on.
+     */
+    public void sendsStarted(long count) {
+        sendsInFlight.add(count);
+    }
+
+    /**
+     * Records messages whose sending by the connector has completed, successfully or not.
+     */
+    public void sendsCompleted(long count) {
+        sendsInFlight.add(-count);
+    }
+
+    /**
+     * Records messages requested from the connector receiving the channel's messages.
+     */
+    public void creditGranted(long count) {
+        credit.add(count);
+    }
+
+    /**
+     * Records a message received from the connector, which stays unsettled until it is acknowledged.
+     */
+    public void creditUsed() {
+        credit.decrement();
+        unsettled.increment();
+    }
+
+    public void messageSettled() {
+        unsettled.decrement();
+    }
+
+    /**
+     * Records a message received from, or sent to, a topic by the channel's connector.
+     */
+    public void messageOnTopic(String topic) {
+        LongAdder counter = topics.get(topic);
+        if (counter == null) {
+            counter = topics.size() < MAX_TOPICS ?
+                    topics.computeIfAbsent(topic, t -> new LongAdder()) :
+                    topics.computeIfAbsent(OTHER_TOPICS, t -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    public long getMessagesIn() {
+        return messagesIn.sum();
+    }
+
+    public long getMessagesOut() {
+        return messagesOut.sum();
+    }
+
+    /**
+     * @return the number of messages whose processing completed normally, which does not mean they were acknowledged
+     */
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    /**
+     * @return the number of messages whose processing failed, which does not mean they were negatively acknowledged
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return the number of messages received from the connector whose acknowledgement it completed normally
+     */
+    public long getAcks() {
+        return acks.sum();
+    }
+
+    /**
+     * @return the number of messages received from the connector whose acknowledgement it completed exceptionally
+     */
+    public long getAckFailures() {
+        return ackFailures.sum();
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public long getSendsInFlight() {
+        return sendsInFlight.sum();
+    }
+
+    public long getCredit() {
+        return credit.sum();
+    }
+
+    public long getUnsettled() {
+        return unsettled.sum();
+    }
+
+    /**
+     * @return the number of messages per topic, for the channels whose connector has topics
+     */
+    public Map<String, Long> getMessagesByTopic() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> entry : topics.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    public long getProcessingTimeTotal() {
+        return processingTime.sum();
+    }
+
+    /**
+     * Gets the number of messages in each bucket of the processing time histogram.
+     *
+     * @return the counts, in the same order as {@link #BUCKET_NAMES}
+     */
+    public long[] getProcessingTimeHistogram() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.metrics;
+
+import java.lang.reflect.Method;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import javax.enterprise.inject.spi.WithAnnotations;
+import javax.enterprise.inject.spi.configurator.AnnotatedMethodConfigurator;
+import javax.enterprise.inject.spi.configurator.AnnotatedTypeConfigurator;
+
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Outgoing;
+import org.eclipse.microprofile.reactive.streams.operators.ProcessorBuilder;
+import org.eclipse.microprofile.reactive.streams.operators.PublisherBuilder;
+import org.eclipse.microprofile.reactive.streams.operators.SubscriberBuilder;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+/**
+ * CDI extension binding the {@link ChannelMetricsInterceptor} to the {@code @Incoming}/{@code @Outgoing} methods
+ * which are invoked once per message, and the {@link AckCountingChannelRegistry} to the incoming channels.
+ * <p>
+ * Methods consuming or producing a whole stream (i.e. taking a {@link Publisher} or {@link PublisherBuilder}, or
+ * returning a {@link Subscriber}, {@link Publisher} or one of the builders without receiving a message) are only
+ * invoked once when the channels are wired, so intercepting them would not tell us anything about the messages.
+ */
+public class ChannelMetricsExtension implements Extension {
+
+    private static final Class<?>[] STREAM_TYPES = {
+            Publisher.class, Subscriber.class, PublisherBuilder.class, SubscriberBuilder.class, ProcessorBuilder.class};
+
+    private final ChannelMetricsRegistry registry;
+
+    public ChannelMetricsExtension(ChannelMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    void addInterceptorAndDecorator(@Observes BeforeBeanDiscovery bbd, BeanManager beanManager) {
+        bbd.addAnnotatedType(beanManager.createAnnotatedType(ChannelMetricsInterceptor.class), ChannelMetricsInterceptor.class.getName());
+        bbd.addAnnotatedType(beanManager.createAnnotatedType(AckCountingChannelRegistry.class), AckCountingChannelRegistry.class.getName());
+    }
+
+    <T> void bindInterceptor(@Observes @WithAnnotations({Incoming.class, Outgoing.class}) ProcessAnnotatedType<T> pat) {
+        AnnotatedTypeConfigurator<T> configurator = pat.configureAnnotatedType();
+        for (AnnotatedMethodConfigurator<? super T> method : configurator.methods()) {
+            if (registerMethod(method.getAnnotated())) {
+                method.add(ChannelMetricsBinding.Literal.INSTANCE);
+            }
+        }
+    }
+
+    void addRegistryBean(@Observes AfterBeanDiscovery abd) {
+        abd.addBean()
+                .types(ChannelMetricsRegistry.class, Object.class)
+                .createWith(c -> registry);
+    }
+
+    private boolean registerMethod(AnnotatedMethod<?> annotatedMethod) {
+        Incoming incoming = annotatedMethod.getAnnotation(Incoming.class);
+        Outgoing outgoing = annotatedMethod.getAnnotation(Outgoing.class);
+        if (incoming == null && outgoing == null) {
+            return false;
+        }
+        Method method = annotatedMethod.getJavaMember();
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (isStream(parameterType)) {
+                return false;
+            }
+        }
+        boolean streamResult = isStream(method.getReturnType());
+        if (streamResult && method.getParameterCount() == 0) {
+            return false;
+        }
+        registry.registerMethod(
+                method,
+                incoming == null ? null : incoming.value(),
+                outgoing == null || streamResult ? null : outgoing.value());
+        return true;
+    }
+
+    private static boolean isStream(Class<?> type) {
+        for (Class<?> streamType : STREAM_TYPES) {
+            if (streamType.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
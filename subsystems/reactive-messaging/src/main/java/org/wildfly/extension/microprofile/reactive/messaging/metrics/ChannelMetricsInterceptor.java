@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.metrics;
+
+import java.util.concurrent.CompletionStage;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+/**
+ * Records the {@link ChannelMetrics} around the invocation of an {@code @Incoming}/{@code @Outgoing} method.
+ * If the method returns a {@link CompletionStage} the message is considered processed once the stage completes.
+ */
+@ChannelMetricsBinding
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE)
+public class ChannelMetricsInterceptor {
+
+    @Inject
+    ChannelMetricsRegistry registry;
+
+    @AroundInvoke
+    public Object recordMetrics(InvocationContext context) throws Exception {
+        final MethodMetrics metrics = registry.getMethodMetrics(context.getMethod());
+        if (metrics == null) {
+            return context.proceed();
+        }
+
+        final long start = metrics.begin();
+        final Object result;
+        try {
+            result = context.proceed();
+        } catch (Throwable t) {
+            metrics.end(start, false, null);
+            throw t;
+        }
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete((value, error) -> metrics.end(start, error == null, value));
+        } else {
+            metrics.end(start, true, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the {@link ChannelMetrics} of a deployment's channels, and the mapping of the deployment's
+ * {@code @Incoming}/{@code @Outgoing} methods to the channels they should be recorded against.
+ */
+public final class ChannelMetricsRegistry {
+
+    private final ConcurrentMap<String, ChannelMetrics> channels = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    public ChannelMetrics getChannelMetrics(String channel) {
+        return channels.computeIfAbsent(channel, ChannelMetrics::new);
+    }
+
+    /**
+     * Unlike {@link #getChannelMetrics(String)}, does not create the metrics of a channel not known yet.
+     *
+     * @return the metrics of the channel, or {@code null} if there are none
+     */
+    public ChannelMetrics findChannelMetrics(String channel) {
+        return channels.get(channel);
+    }
+
+    public Collection<ChannelMetrics> getAllChannelMetrics() {
+        return Collections.unmodifiableCollection(channels.values());
+    }
+
+    void registerMethod(Method method, String incomingChannel, String outgoingChannel) {
+        ChannelMetrics incoming = incomingChannel == null ? null : getChannelMetrics(incomingChannel);
+        ChannelMetrics outgoing = outgoingChannel == null ? null : getChannelMetrics(outgoingChannel);
+        methods.put(method, new MethodMetrics(incoming, outgoing));
+    }
+
+    MethodMetrics getMethodMetrics(Method method) {
+        return methods.get(method);
+    }
+}
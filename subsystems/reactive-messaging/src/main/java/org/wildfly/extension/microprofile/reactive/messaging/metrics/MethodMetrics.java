@@ -0,0 +1,52 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.metrics;
+
+/**
+ * Records the metrics for invocations of a single {@code @Incoming} and/or {@code @Outgoing} method.
+ */
+final class MethodMetrics {
+
+    private final ChannelMetrics incoming;
+    private final ChannelMetrics outgoing;
+
+    /**
+     * @param incoming the metrics of the channel the method consumes from, or {@code null} if it has no {@code @Incoming}
+     * @param outgoing the metrics of the channel the method's result is sent to, or {@code null} if the method has no
+     *                 {@code @Outgoing} or its result is not a single message
+     */
+    MethodMetrics(ChannelMetrics incoming, ChannelMetrics outgoing) {
+        this.incoming = incoming;
+        this.outgoing = outgoing;
+    }
+
+    long begin() {
+        if (incoming != null) {
+            incoming.messageIn();
+        }
+        return System.nanoTime();
+    }
+
+    void end(long start, boolean success, Object result) {
+        if (incoming != null) {
+            incoming.messageProcessed(System.nanoTime() - start, success);
+        }
+        if (success && outgoing != null && result != null) {
+            outgoing.messageOut();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.mqtt;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.Extension;
+
+/**
+ * CDI extension counting the messages of the channels using the MQTT connector by topic, as described in
+ * {@link MqttTopicCounters}.
+ */
+public class MqttExtension implements Extension {
+
+    private final MqttTopicCounters counters;
+
+    public MqttExtension(MqttTopicCounters counters) {
+        this.counters = counters;
+    }
+
+    void addDecorator(@Observes BeforeBeanDiscovery bbd, BeanManager beanManager) {
+        bbd.addAnnotatedType(beanManager.createAnnotatedType(MqttChannelRegistry.class), MqttChannelRegistry.class.getName());
+    }
+
+    void addCountersBean(@Observes AfterBeanDiscovery abd) {
+        abd.addBean()
+                .types(MqttTopicCounters.class, Object.class)
+                .createWith(c -> counters);
+    }
+}
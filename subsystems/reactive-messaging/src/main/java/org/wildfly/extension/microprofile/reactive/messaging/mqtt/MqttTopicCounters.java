@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.mqtt;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.streams.operators.PublisherBuilder;
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.eclipse.microprofile.reactive.streams.operators.SubscriberBuilder;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.DeploymentConfig;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetrics;
+
+/**
+ * Counts the messages of the channels of a deployment which use the {@code smallrye-mqtt} connector by topic.
+ * <p>
+ * The messages created by the connector for incoming channels tell which topic they were received from, which
+ * matters for channels subscribed to a wildcard topic. They are unwrapped to get at them, as they may have been
+ * wrapped since, e.g. to track their acknowledgement. Messages sent by outgoing channels go to the topic they name,
+ * if they are MQTT messages, or else to the topic configured for the channel, which defaults to the channel name.
+ * The connector is not visible to the subsystem, so its {@code MqttMessage} interface is loaded from the deployment,
+ * and its {@code getTopic()} method called through a method handle.
+ */
+public class MqttTopicCounters {
+
+    private static final String CONNECTOR = "smallrye-mqtt";
+    private static final String MQTT_MESSAGE = "io.smallrye.reactive.messaging.mqtt.MqttMessage";
+
+    private final ClassLoader classLoader;
+    private final DeploymentConfig config;
+    private volatile TopicReader topicReader;
+
+    public MqttTopicCounters(ClassLoader classLoader, DeploymentConfig config) {
+        this.classLoader = classLoader;
+        this.config = config;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    List<PublisherBuilder<? extends Message>> countIncoming(String channel, List<PublisherBuilder<? extends Message>> publishers, ChannelMetrics metrics) {
+        final String topic = getTopic("mp.messaging.incoming.", channel);
+        if (topic == null || metrics == null || publishers.isEmpty()) {
+            return publishers;
+        }
+        metrics.trackTopics();
+        final TopicReader topicReader = getTopicReader();
+        final List<PublisherBuilder<? extends Message>> counted = new ArrayList<>(publishers.size());
+        for (PublisherBuilder publisher : publishers) {
+            counted.add(publisher.peek(message -> metrics.messageOnTopic(topicReader.getTopic(topicReader.unwrap((Message<?>) message), topic))));
+        }
+        return counted;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    List<SubscriberBuilder<? extends Message, Void>> countOutgoing(String channel, List<SubscriberBuilder<? extends Message, Void>> sinks, ChannelMetrics metrics) {
+        final String topic = getTopic("mp.messaging.outgoing.", channel);
+        if (topic == null || metrics == null || sinks.isEmpty()) {
+            return sinks;
+        }
+        metrics.trackTopics();
+        final TopicReader topicReader = getTopicReader();
+        final List<SubscriberBuilder<? extends Message, Void>> counted = new ArrayList<>(sinks.size());
+        for (SubscriberBuilder sink : sinks) {
+            counted.add(ReactiveStreams.<Message<?>>builder()
+                    .peek(message -> metrics.messageOnTopic(topicReader.getTopic(message, topic)))
+                    .to(sink));
+        }
+        return counted;
+    }
+
+    /**
+     * @return the configured topic of the channel, or {@code null} if it does not use the MQTT connector
+     */
+    private String getTopic(String prefix, String channel) {
+        final Config config = this.config.get();
+        if (!CONNECTOR.equals(config.getOptionalValue(prefix + channel + ".connector", String.class).orElse(null))) {
+            return null;
+        }
+        return config.getOptionalValue(prefix + channel + ".topic", String.class).orElse(channel);
+    }
+
+    private TopicReader getTopicReader() {
+        TopicReader topicReader = this.topicReader;
+        if (topicReader == null) {
+            Class<?> messageType;
+            try {
+                messageType = Class.forName(MQTT_MESSAGE, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                messageType = null;
+            }
+            topicReader = new TopicReader(messageType);
+            this.topicReader = topicReader;
+        }
+        return topicReader;
+    }
+
+    /**
+     * Reads the topic of the messages implementing the connector's {@code MqttMessage} interface.
+     */
+    static final class TopicReader {
+
+        private final Class<?> messageType;
+        private final MethodHandle getTopic;
+
+        /**
+         * @param messageType the connector's {@code MqttMessage} interface, or {@code null} if it is not available
+         */
+        TopicReader(Class<?> messageType) {
+            MethodHandle getTopic = null;
+            if (messageType != null) {
+                try {
+                    getTopic = MethodHandles.publicLookup().findVirtual(messageType, "getTopic", MethodType.methodType(String.class));
+                } catch (NoSuchMethodException | IllegalAccessException e) {
+                    // Count everything against the configured topic
+                }
+            }
+            this.messageType = getTopic != null ? messageType : null;
+            this.getTopic = getTopic;
+        }
+
+        /**
+         * @return the connector's message the message wraps, or the message itself if it does not wrap one
+         */
+        Message<?> unwrap(Message<?> message) {
+            if (messageType == null || messageType.isInstance(message)) {
+                return message;
+            }
+            try {
+                return (Message<?>) message.unwrap(messageType);
+            } catch (IllegalArgumentException e) {
+                return message;
+            }
+        }
+
+        String getTopic(Message<?> message, String defaultTopic) {
+            if (messageType != null && messageType.isInstance(message)) {
+                try {
+                    final String topic = (String) getTopic.invoke(message);
+                    if (topic != null) {
+                        return topic;
+                    }
+                } catch (Throwable t) {
+                    // Count it against the configured topic
+                }
+            }
+            return defaultTopic;
+        }
+    }
+}
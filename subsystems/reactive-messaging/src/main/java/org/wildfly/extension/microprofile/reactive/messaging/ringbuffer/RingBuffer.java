@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging.ringbuffer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded single producer, single consumer queue backed by a preallocated array, which needs neither locks nor
+ * an allocation per element. The producer and the consumer each only write their own index, and publish it with a
+ * lazy set once the slot has been written or cleared.
+ */
+final class RingBuffer<E> {
+
+    private final Object[] elements;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+    // Only accessed by the producer, so it does not read the consumer index on every offer
+    private long producerLimit;
+
+    /**
+     * @param capacity the minimum capacity, which is rounded up to a power of two
+     */
+    RingBuffer(int capacity) {
+        final int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new Object[size];
+        this.mask = size - 1;
+        this.producerLimit = size;
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * Only to be called by the producer.
+     *
+     * @return {@code false} if the ring buffer is full
+     */
+    boolean offer(E element) {
+        final long index = producerIndex.get();
+        if (index >= producerLimit) {
+            producerLimit = consumerIndex.get() + elements.length;
+            if (index >= producerLimit) {
+                return false;
+            }
+        }
+        elements[(int) index & mask] = element;
+        producerIndex.lazySet(index + 1);
+        return true;
+    }
+
+    /**
+     * Only to be called by the consumer.
+     *
+     * @return the oldest element, or {@code null} if the ring buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        final long index = consumerIndex.get();
+        if (index >= producerIndex.get()) {
+            return null;
+        }
+        final int offset = (int) index & mask;
+        final E element = (E) elements[offset];
+        elements[offset] = null;
+        consumerIndex.lazySet(index + 1);
+        return element;
+    }
+
+    boolean isEmpty() {
+        return consumerIndex.get() >= producerIndex.get();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging.ringbuffer;
+
+import java.util.List;
+
+import javax.annotation.Priority;
+import javax.decorator.Decorator;
+import javax.decorator.Delegate;
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
+
+import io.smallrye.reactive.messaging.ChannelRegistry;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.streams.operators.PublisherBuilder;
+import org.wildfly.extension.microprofile.reactive.messaging.ChannelRegistryPriorities;
+
+/**
+ * Decorates the SmallRye {@link ChannelRegistry}, so the messages of the incoming channels configured in
+ * {@link RingBufferChannels} are delivered through ring buffers. It sits between the credit based flow control and
+ * the batching, so batches are put together from the ring buffers, see {@link ChannelRegistryPriorities}.
+ */
+@Decorator
+@Priority(ChannelRegistryPriorities.RING_BUFFER)
+public abstract class RingBufferChannelRegistry implements ChannelRegistry {
+
+    @Inject
+    @Delegate
+    @Any
+    ChannelRegistry delegate;
+
+    @Inject
+    RingBufferChannels channels;
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public List<PublisherBuilder<? extends Message>> getPublishers(String name) {
+        return channels.applyRingBuffer(name, delegate.getPublishers(name));
+    }
+}
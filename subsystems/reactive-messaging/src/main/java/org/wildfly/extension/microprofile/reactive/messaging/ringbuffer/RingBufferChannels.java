@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging.ringbuffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.streams.operators.PublisherBuilder;
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.DeploymentConfig;
+
+/**
+ * The incoming channels of a deployment which are delivered through ring buffers, read from MicroProfile Config:
+ * <pre>
+ * wildfly.reactive-messaging.incoming.&lt;channel&gt;.ring-buffer-size=&lt;number of messages&gt;
+ * wildfly.reactive-messaging.incoming.&lt;channel&gt;.wait-strategy=busy-spin|yield|park
+ * </pre>
+ * Setting the size turns the ring buffer on for the channel. It is meant for in-memory channels between the methods
+ * or emitters of a deployment, and each of the channel's publishers gets a ring buffer of its own. The wait strategy
+ * defaults to {@code park}.
+ * <p>
+ * Every subscription to such a channel dedicates a thread to draining its ring buffers, normally for as long as the
+ * deployment runs. With {@code busy-spin} that thread keeps a CPU core fully busy even while the channel is idle,
+ * and with {@code yield} it still competes for the CPU with every other runnable thread, so these are only worth it
+ * for a few latency critical channels on a machine with cores to spare. With {@code park} an idle thread only wakes
+ * up once a millisecond to check for messages, which costs little CPU, but not none.
+ */
+public class RingBufferChannels {
+
+    static final String RING_BUFFER_SIZE_SUFFIX = ".ring-buffer-size";
+    static final String WAIT_STRATEGY_SUFFIX = ".wait-strategy";
+    static final int MAX_RING_BUFFER_SIZE = 1 << 30;
+
+    private final DeploymentConfig config;
+    private final Set<Subscription> active = ConcurrentHashMap.newKeySet();
+
+    public RingBufferChannels(DeploymentConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * @return the configured ring buffer size of the channel, or 0 if it does not use a ring buffer
+     */
+    int getRingBufferSize(String channel) {
+        return config.getIncoming(channel, RING_BUFFER_SIZE_SUFFIX, Integer.class).orElse(0);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the configured wait strategy does not exist
+     */
+    WaitStrategy getWaitStrategy(String channel) {
+        return config.getIncoming(channel, WAIT_STRATEGY_SUFFIX, String.class)
+                .map(WaitStrategy::forName)
+                .orElse(WaitStrategy.PARK);
+    }
+
+    /**
+     * Merges the publishers of a channel using a ring buffer into a {@link RingBufferPublisher}. The publishers are
+     * built for each subscription, as the builders may be built more than once.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    List<PublisherBuilder<? extends Message>> applyRingBuffer(String channel, List<PublisherBuilder<? extends Message>> publishers) {
+        final int ringBufferSize = getRingBufferSize(channel);
+        if (ringBufferSize <= 0 || publishers.isEmpty()) {
+            return publishers;
+        }
+        final WaitStrategy waitStrategy = getWaitStrategy(channel);
+        return Collections.singletonList(ReactiveStreams.<Message<?>>fromPublisher(subscriber -> {
+            final List<Publisher<? extends Message<?>>> sources = new ArrayList<>(publishers.size());
+            for (PublisherBuilder<? extends Message> publisher : publishers) {
+                sources.add((Publisher) publisher.buildRs());
+            }
+            new RingBufferPublisher(channel, sources, ringBufferSize, waitStrategy, active).subscribe(subscriber);
+        }));
+    }
+
+    /**
+     * Cancels the subscriptions which are still running, so their threads stop.
+     */
+    void close() {
+        for (Subscription subscription : active) {
+            subscription.cancel();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging.ringbuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.BeforeShutdown;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import javax.enterprise.inject.spi.WithAnnotations;
+
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.DeploymentConfig;
+
+/**
+ * CDI extension delivering the incoming channels configured in {@link RingBufferChannels} through ring buffers, and
+ * stopping the threads draining them when the deployment is stopped.
+ */
+public class RingBufferExtension implements Extension {
+
+    private final RingBufferChannels channels;
+    private final List<Throwable> definitionErrors = new ArrayList<>();
+
+    public RingBufferExtension(RingBufferChannels channels) {
+        this.channels = channels;
+    }
+
+    void addDecorator(@Observes BeforeBeanDiscovery bbd, BeanManager beanManager) {
+        bbd.addAnnotatedType(beanManager.createAnnotatedType(RingBufferChannelRegistry.class), RingBufferChannelRegistry.class.getName());
+    }
+
+    <T> void validateChannels(@Observes @WithAnnotations(Incoming.class) ProcessAnnotatedType<T> pat) {
+        for (AnnotatedMethod<? super T> method : pat.getAnnotatedType().getMethods()) {
+            final Incoming incoming = method.getAnnotation(Incoming.class);
+            if (incoming != null) {
+                validateChannel(incoming.value());
+            }
+        }
+    }
+
+    void addChannelsBean(@Observes AfterBeanDiscovery abd) {
+        for (Throwable error : definitionErrors) {
+            abd.addDefinitionError(error);
+        }
+        abd.addBean()
+                .types(RingBufferChannels.class, Object.class)
+                .createWith(c -> channels);
+    }
+
+    void close(@Observes BeforeShutdown bs) {
+        channels.close();
+    }
+
+    private void validateChannel(String channel) {
+        final String prefix = DeploymentConfig.INCOMING_PREFIX + channel;
+        final int ringBufferSize = channels.getRingBufferSize(channel);
+        if (ringBufferSize < 0 || ringBufferSize > RingBufferChannels.MAX_RING_BUFFER_SIZE) {
+            definitionErrors.add(MicroProfileReactiveMessagingLogger.LOGGER.invalidRingBufferSize(
+                    prefix + RingBufferChannels.RING_BUFFER_SIZE_SUFFIX, RingBufferChannels.MAX_RING_BUFFER_SIZE, ringBufferSize));
+        }
+        try {
+            channels.getWaitStrategy(channel);
+        } catch (IllegalArgumentException e) {
+            definitionErrors.add(MicroProfileReactiveMessagingLogger.LOGGER.invalidWaitStrategy(
+                    prefix + RingBufferChannels.WAIT_STRATEGY_SUFFIX, "busy-spin, yield or park", e.getMessage()));
+        }
+    }
+}
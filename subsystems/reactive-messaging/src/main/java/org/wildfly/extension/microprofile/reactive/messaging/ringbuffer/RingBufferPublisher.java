@@ -0,0 +1,294 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging.ringbuffer;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.jboss.threads.JBossThreadFactory;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.extension.microprofile.reactive.messaging.stream.CancelledSubscription;
+
+/**
+ * Merges the publishers of a channel through one {@link RingBuffer} per publisher, which a dedicated thread drains
+ * into the subscriber. Each publisher is only asked for as many messages as its ring buffer has free slots, and the
+ * slots are given back in batches once the subscriber has taken messages out, so backpressure works as usual while
+ * the publishers and the subscriber do not synchronize on each message.
+ * <p>
+ * Every subscription gets a thread of its own, named after the channel, which lives until the subscription is
+ * cancelled or completes.
+ */
+public class RingBufferPublisher implements Publisher<Message<?>> {
+
+    private final String channel;
+    private final List<? extends Publisher<? extends Message<?>>> sources;
+    private final int ringBufferSize;
+    private final WaitStrategy waitStrategy;
+    private final Set<Subscription> active;
+    private final ThreadFactory threadFactory;
+
+    /**
+     * @param active the subscriptions which are running, to cancel them when the deployment is stopped
+     */
+    public RingBufferPublisher(String channel, List<? extends Publisher<? extends Message<?>>> sources, int ringBufferSize,
+                               WaitStrategy waitStrategy, Set<Subscription> active) {
+        this.channel = channel;
+        this.sources = sources;
+        this.ringBufferSize = ringBufferSize;
+        this.waitStrategy = waitStrategy;
+        this.active = active;
+        this.threadFactory = new JBossThreadFactory(new ThreadGroup("reactive-messaging-ring-buffer-" + channel), Boolean.TRUE, null, "%G - %t", null, null);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Message<?>> subscriber) {
+        new Drain(subscriber).start();
+    }
+
+    private class Drain implements Subscription, Runnable {
+
+        private final Subscriber<? super Message<?>> downstream;
+        private final Source[] sources;
+        private final AtomicLong requested = new AtomicLong();
+        private final Thread thread;
+        private volatile boolean cancelled;
+        private volatile boolean waiting;
+        private volatile Throwable requestError;
+
+        Drain(Subscriber<? super Message<?>> downstream) {
+            this.downstream = downstream;
+            this.sources = new Source[RingBufferPublisher.this.sources.size()];
+            for (int i = 0; i < sources.length; i++) {
+                sources[i] = new Source();
+            }
+            this.thread = threadFactory.newThread(this);
+            // The subscriber runs on the thread, so it gets the class loader of the deployment wiring it up
+            thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        }
+
+        void start() {
+            active.add(this);
+            downstream.onSubscribe(this);
+            for (int i = 0; i < sources.length; i++) {
+                RingBufferPublisher.this.sources.get(i).subscribe(sources[i]);
+            }
+            thread.start();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("Rule 3.9: the number of requested messages must be positive, but is " + n);
+                cancelSources();
+            } else {
+                long current;
+                long updated;
+                do {
+                    current = requested.get();
+                    updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!requested.compareAndSet(current, updated));
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelSources();
+            signal();
+        }
+
+        void signal() {
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void cancelSources() {
+            for (Source source : sources) {
+                source.cancel();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                drain();
+            } catch (RuntimeException | Error e) {
+                cancelSources();
+                throw e;
+            } finally {
+                active.remove(this);
+                // Let go of the messages nobody is going to take out any more
+                for (Source source : sources) {
+                    while (source.ring.poll() != null) {
+                        // discard
+                    }
+                }
+            }
+        }
+
+        private void drain() {
+            long emitted = 0;
+            for (;;) {
+                if (cancelled) {
+                    return;
+                }
+                final Throwable requestError = this.requestError;
+                if (requestError != null) {
+                    downstream.onError(requestError);
+                    return;
+                }
+                boolean progress = false;
+                boolean allDone = true;
+                for (Source source : sources) {
+                    // Read before polling, so no message sent before completion can be missed
+                    final boolean done = source.done;
+                    final long demand = requested.get();
+                    while (demand == Long.MAX_VALUE || emitted != demand) {
+                        final Message<?> message = source.ring.poll();
+                        if (message == null) {
+                            break;
+                        }
+                        downstream.onNext(message);
+                        emitted++;
+                        source.taken();
+                        progress = true;
+                        if (cancelled) {
+                            return;
+                        }
+                    }
+                    if (done && source.ring.isEmpty()) {
+                        if (source.error != null) {
+                            cancelSources();
+                            downstream.onError(source.error);
+                            return;
+                        }
+                    } else {
+                        allDone = false;
+                    }
+                }
+                if (allDone) {
+                    downstream.onComplete();
+                    return;
+                }
+                if (!progress) {
+                    idle();
+                }
+            }
+        }
+
+        private void idle() {
+            if (waitStrategy.parks()) {
+                waiting = true;
+                // Check again, as a wake-up before the flag was set would have been missed
+                if (!hasWork()) {
+                    waitStrategy.idle(this);
+                }
+                waiting = false;
+            } else {
+                waitStrategy.idle(this);
+            }
+        }
+
+        private boolean hasWork() {
+            if (cancelled || requestError != null) {
+                return true;
+            }
+            for (Source source : sources) {
+                if (source.done || !source.ring.isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private class Source implements Subscriber<Message<?>> {
+
+            final RingBuffer<Message<?>> ring = new RingBuffer<>(ringBufferSize);
+            // The number of taken messages after which their slots are requested again
+            private final int limit = ring.capacity() - (ring.capacity() >> 2);
+            private final AtomicReference<Subscription> upstream = new AtomicReference<>();
+            // Only accessed by the draining thread
+            private int taken;
+            volatile boolean done;
+            volatile Throwable error;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                if (!upstream.compareAndSet(null, subscription)) {
+                    // Cancelled already, or subscribed twice
+                    subscription.cancel();
+                    return;
+                }
+                subscription.request(ring.capacity());
+            }
+
+            @Override
+            public void onNext(Message<?> message) {
+                if (done) {
+                    return;
+                }
+                if (!ring.offer(message)) {
+                    cancel();
+                    error = MicroProfileReactiveMessagingLogger.LOGGER.ringBufferOverflow(channel);
+                    done = true;
+                }
+                signal();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error = throwable;
+                done = true;
+                signal();
+            }
+
+            @Override
+            public void onComplete() {
+                done = true;
+                signal();
+            }
+
+            void taken() {
+                if (++taken == limit) {
+                    taken = 0;
+                    final Subscription subscription = upstream.get();
+                    if (subscription != null && subscription != CancelledSubscription.INSTANCE) {
+                        subscription.request(limit);
+                    }
+                }
+            }
+
+            void cancel() {
+                final Subscription subscription = upstream.getAndSet(CancelledSubscription.INSTANCE);
+                if (subscription != null && subscription != CancelledSubscription.INSTANCE) {
+                    subscription.cancel();
+                }
+            }
+        }
+    }
+}
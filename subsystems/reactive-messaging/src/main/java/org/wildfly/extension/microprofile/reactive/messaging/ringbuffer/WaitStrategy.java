@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging.ringbuffer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How the thread consuming the ring buffers of a channel waits for messages, or for demand, when there is nothing
+ * it can deliver. There is one such thread for each subscription to the channel, so the CPU cost of the spinning
+ * strategies adds up with every channel using them.
+ */
+public enum WaitStrategy {
+
+    /**
+     * Keeps polling, for the lowest latency at the cost of a fully used CPU core, even when the channel is idle.
+     */
+    BUSY_SPIN("busy-spin", false),
+    /**
+     * Keeps polling, but lets other threads run in between. The thread still uses a CPU core whenever no other
+     * thread wants it, even when the channel is idle.
+     */
+    YIELD("yield", false),
+    /**
+     * Parks the thread until a message or demand arrives, or for at most a millisecond. It adds the latency of waking
+     * the thread up, but while the channel is idle the thread only wakes up once a millisecond to check it again.
+     */
+    PARK("park", true),
+    ;
+
+    /**
+     * Bounds how long a parked thread waits, in case a wake-up races with the thread parking. This is also how often
+     * the thread of an idle channel wakes up.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+    private final boolean parks;
+
+    WaitStrategy(String name, boolean parks) {
+        this.name = name;
+        this.parks = parks;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    public static WaitStrategy forName(String name) {
+        for (WaitStrategy strategy : values()) {
+            if (strategy.name.equals(name)) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    /**
+     * Whether the waiting thread has to be woken up when there is something to deliver.
+     */
+    boolean parks() {
+        return parks;
+    }
+
+    void idle(Object blocker) {
+        switch (this) {
+            case YIELD:
+                Thread.yield();
+                break;
+            case PARK:
+                LockSupport.parkNanos(blocker, MAX_PARK_NANOS);
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.sink;
+
+import java.util.List;
+
+import javax.annotation.Priority;
+import javax.decorator.Decorator;
+import javax.decorator.Delegate;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+import io.smallrye.reactive.messaging.ChannelRegistry;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.streams.operators.SubscriberBuilder;
+import org.wildfly.extension.microprofile.reactive.messaging.ChannelRegistryPriorities;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetricsRegistry;
+
+/**
+ * Decorates the SmallRye {@link ChannelRegistry}, so the connector sinks of the outgoing channels get as many
+ * messages in flight as configured in {@link PipeliningChannels}.
+ */
+@Decorator
+@Priority(ChannelRegistryPriorities.PIPELINING)
+public abstract class PipeliningChannelRegistry implements ChannelRegistry {
+
+    @Inject
+    @Delegate
+    @Any
+    ChannelRegistry delegate;
+
+    @Inject
+    PipeliningChannels channels;
+
+    @Inject
+    Instance<ChannelMetricsRegistry> metricsRegistry;
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public List<SubscriberBuilder<? extends Message, Void>> getSubscribers(String name) {
+        return channels.pipeline(name, delegate.getSubscribers(name),
+                metricsRegistry.isResolvable() ? metricsRegistry.get().getChannelMetrics(name) : null);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.sink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.eclipse.microprofile.reactive.streams.operators.SubscriberBuilder;
+import org.reactivestreams.Subscriber;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.DeploymentConfig;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetrics;
+
+/**
+ * The number of messages the connector of each outgoing channel of a deployment may be sending at the same time,
+ * read from MicroProfile Config:
+ * <pre>
+ * wildfly.reactive-messaging.outgoing.&lt;channel&gt;.max-inflight-messages=&lt;number of messages&gt;
+ * </pre>
+ * It defaults to 1, i.e. one message at a time as the connectors do on their own. Pipelining is opt-in since the
+ * connectors may then complete sends out of order: with the {@code smallrye-kafka} connector, whose producer batches
+ * the records it is given, set {@code max.in.flight.requests.per.connection=1} on the producer as well if the order of
+ * the records matters. With the {@code smallrye-mqtt} connector, it only helps with QoS 1 or 2, as QoS 0 publishes
+ * complete once written, and should not exceed the number of unacknowledged publishes the Vert.x MQTT client accepts.
+ */
+public class PipeliningChannels {
+
+    static final String MAX_INFLIGHT_MESSAGES_SUFFIX = ".max-inflight-messages";
+
+    private final DeploymentConfig config;
+
+    public PipeliningChannels(DeploymentConfig config) {
+        this.config = config;
+    }
+
+    int getMaxInflightMessages(String channel) {
+        return config.getOutgoing(channel, MAX_INFLIGHT_MESSAGES_SUFFIX, Integer.class).orElse(1);
+    }
+
+    /**
+     * Replaces each of the sinks of a channel by {@link PipeliningSubscriber}s subscribing as many instances of it
+     * as the channel may have messages in flight.
+     *
+     * @param metrics the metrics of the channel, or {@code null} if it has none
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    List<SubscriberBuilder<? extends Message, Void>> pipeline(String channel, List<SubscriberBuilder<? extends Message, Void>> sinks, ChannelMetrics metrics) {
+        final int maxInflightMessages = getMaxInflightMessages(channel);
+        if (maxInflightMessages <= 1 || sinks.isEmpty()) {
+            return sinks;
+        }
+        if (metrics != null) {
+            metrics.trackSends();
+        }
+        final List<SubscriberBuilder<? extends Message, Void>> pipelined = new ArrayList<>(sinks.size());
+        for (SubscriberBuilder<? extends Message, Void> sink : sinks) {
+            final PipeliningSubscriber subscriber = new PipeliningSubscriber(maxInflightMessages,
+                    () -> (Subscriber<Message<?>>) (Subscriber) sink.build(), metrics);
+            pipelined.add((SubscriberBuilder) ReactiveStreams.<Message<?>>builder().to(subscriber));
+        }
+        return pipelined;
+    }
+}
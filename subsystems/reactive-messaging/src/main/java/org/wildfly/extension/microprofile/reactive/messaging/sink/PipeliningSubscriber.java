@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.sink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetrics;
+
+/**
+ * Subscribes several instances of a connector's sink to a channel, handing each message to an instance which has
+ * requested one. Connectors like the SmallRye Kafka one only request the next message from their sink once the
+ * previous one has been sent, so {@code n} instances allow {@code n} sends to be in flight at the same time, while
+ * the messages are still handed to the connector in the order they arrive on the channel.
+ * <p>
+ * What is requested from upstream is the sum of what the instances requested, so a slow broker still slows down
+ * the channel.
+ */
+class PipeliningSubscriber implements Subscriber<Message<?>> {
+
+    private final List<Sink> sinks;
+    private final ChannelMetrics metrics;
+
+    // Guarded by this
+    private final ArrayDeque<Sink> ready;
+    private Subscription upstream;
+    private boolean cancelled;
+
+    PipeliningSubscriber(int instances, Supplier<Subscriber<Message<?>>> sinkFactory, ChannelMetrics metrics) {
+        this.metrics = metrics;
+        this.sinks = new ArrayList<>(instances);
+        this.ready = new ArrayDeque<>(instances);
+        for (int i = 0; i < instances; i++) {
+            sinks.add(new Sink(sinkFactory.get()));
+        }
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        synchronized (this) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+        }
+        for (Sink sink : sinks) {
+            sink.subscriber.onSubscribe(sink);
+        }
+    }
+
+    @Override
+    public void onNext(Message<?> message) {
+        final Sink sink;
+        final boolean counted;
+        synchronized (this) {
+            if (cancelled) {
+                // The sinks gave up, and upstream was told so
+                return;
+            }
+            sink = ready.peek();
+            if (sink != null) {
+                if (--sink.demand == 0) {
+                    ready.poll();
+                    sink.ready = false;
+                }
+                counted = !sink.unbounded;
+                if (counted) {
+                    sink.unreplaced++;
+                }
+            } else {
+                cancelled = true;
+                counted = false;
+            }
+        }
+        if (sink == null) {
+            // More was delivered than requested, and dropping the message would lose it silently
+            upstream.cancel();
+            onError(new IllegalStateException("Received a message although none of the " + sinks.size()
+                    + " sinks of the channel requested one"));
+            return;
+        }
+        if (metrics != null && counted) {
+            metrics.sendsStarted(1);
+        }
+        sink.subscriber.onNext(message);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        for (Sink sink : sinks) {
+            sink.subscriber.onError(throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        for (Sink sink : sinks) {
+            sink.subscriber.onComplete();
+        }
+    }
+
+    private class Sink implements Subscription {
+
+        final Subscriber<Message<?>> subscriber;
+        // Guarded by the PipeliningSubscriber
+        long demand;
+        long unreplaced;
+        boolean ready;
+        // A sink requesting everything never tells us when it is done with a message
+        boolean unbounded;
+
+        Sink(Subscriber<Message<?>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            final Subscription subscription;
+            final long completed;
+            synchronized (PipeliningSubscriber.this) {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    cancelled = true;
+                    subscription = upstream;
+                    completed = 0;
+                } else {
+                    // Requesting another message means the sink is done with the ones it was given
+                    completed = Math.min(n, unreplaced);
+                    unreplaced -= completed;
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                    unbounded = demand == Long.MAX_VALUE;
+                    if (!ready) {
+                        ready = true;
+                        PipeliningSubscriber.this.ready.add(this);
+                    }
+                    subscription = upstream;
+                }
+            }
+            if (n <= 0) {
+                subscription.cancel();
+                subscriber.onError(new IllegalArgumentException("Requested " + n + " messages, but the number must be positive"));
+                return;
+            }
+            if (completed > 0 && metrics != null) {
+                metrics.sendsCompleted(completed);
+            }
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            // A sink giving up, e.g. because sending failed, stops the channel, as when there is a single instance
+            final Subscription subscription;
+            synchronized (PipeliningSubscriber.this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                subscription = upstream;
+            }
+            subscription.cancel();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging.stream;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A processor which buffers what it receives from upstream until its single subscriber asks for it, and decides
+ * itself how much to request from upstream.
+ * <p>
+ * The state is guarded by the processor's lock. The subclasses add what they receive in {@link #onNext} and
+ * implement the hooks, which are always called with the lock held, while this class takes care of the
+ * subscriptions, the demand, completion and errors.
+ */
+public abstract class BufferingProcessor<I, O> implements Processor<I, O>, Subscription {
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // Guarded by this
+    private Subscription upstream;
+    private Subscriber<? super O> downstream;
+    private long demand;
+    private boolean upstreamDone;
+    private Throwable error;
+    private boolean cancelled;
+
+    /**
+     * Takes the next element to send on, now that there is demand for one.
+     *
+     * @return the element, or {@code null} if there is none ready yet
+     */
+    protected abstract O poll();
+
+    /**
+     * @return whether nothing is buffered anymore
+     */
+    protected abstract boolean isEmpty();
+
+    /**
+     * Decides how many more elements to request from upstream, once nothing can be sent on.
+     *
+     * @return the number of elements to request, or {@code 0} for none
+     */
+    protected abstract long toRequest();
+
+    /**
+     * Drops whatever is buffered, as the processor has been cancelled or has failed.
+     */
+    protected abstract void clear();
+
+    // Called with the lock held
+    protected final long demand() {
+        return demand;
+    }
+
+    // Called with the lock held
+    protected final boolean isUpstreamDone() {
+        return upstreamDone;
+    }
+
+    // Called with the lock held
+    protected final boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super O> subscriber) {
+        final boolean accepted;
+        final boolean subscribed;
+        synchronized (this) {
+            accepted = downstream == null;
+            if (accepted) {
+                downstream = subscriber;
+            }
+            subscribed = upstream != null;
+        }
+        if (!accepted) {
+            subscriber.onSubscribe(CancelledSubscription.INSTANCE);
+            subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+        } else if (subscribed) {
+            subscriber.onSubscribe(this);
+            drain();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        final Subscriber<? super O> subscriber;
+        synchronized (this) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            subscriber = downstream;
+        }
+        if (subscriber != null) {
+            subscriber.onSubscribe(this);
+            drain();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (this) {
+            error = throwable;
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            upstreamDone = true;
+        }
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            upstream.cancel();
+            onError(new IllegalArgumentException("Requested " + n + " elements, but the number must be positive"));
+            return;
+        }
+        synchronized (this) {
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+        }
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        final Subscription subscription;
+        synchronized (this) {
+            cancelled = true;
+            clear();
+            subscription = upstream;
+        }
+        subscription.cancel();
+    }
+
+    /**
+     * Sends on the elements there is demand for and requests more from upstream, on whichever thread gets here
+     * first. The other threads only make it go round the loop again, so the downstream subscriber is never called
+     * concurrently, and never while holding the lock.
+     */
+    protected final void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            for (;;) {
+                final Subscriber<? super O> subscriber;
+                final Subscription subscription;
+                O element = null;
+                Throwable failure = null;
+                boolean complete = false;
+                long toRequest = 0;
+                synchronized (this) {
+                    if (cancelled || downstream == null || upstream == null) {
+                        break;
+                    }
+                    subscriber = downstream;
+                    subscription = upstream;
+                    if (error != null) {
+                        failure = error;
+                        cancelled = true;
+                        clear();
+                    } else if (demand > 0 && (element = poll()) != null) {
+                        demand--;
+                    } else if (upstreamDone && isEmpty()) {
+                        complete = true;
+                        cancelled = true;
+                    } else if (!upstreamDone) {
+                        toRequest = toRequest();
+                    }
+                }
+                if (failure != null) {
+                    subscriber.onError(failure);
+                    return;
+                } else if (complete) {
+                    subscriber.onComplete();
+                    return;
+                } else if (element != null) {
+                    subscriber.onNext(element);
+                } else {
+                    if (toRequest > 0) {
+                        subscription.request(toRequest);
+                    }
+                    break;
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
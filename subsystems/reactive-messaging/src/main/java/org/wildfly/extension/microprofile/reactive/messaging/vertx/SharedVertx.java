@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.vertx;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+/**
+ * The Vert.x instance shared by the connectors of all the deployments, with the probes measuring how busy its event
+ * loops are.
+ * <p>
+ * Every {@value #PROBE_INTERVAL_MILLIS} ms a task is submitted to each event loop, and the time it waits before it
+ * runs is recorded. An event loop keeping up with its I/O runs it straight away, while one which is saturated, or
+ * blocked by a handler, delays it.
+ */
+public final class SharedVertx {
+
+    static final long PROBE_INTERVAL_MILLIS = 1000;
+
+    private final Vertx vertx;
+    private final Context[] eventLoops;
+    private final AtomicLongArray delays;
+    private final long timerId;
+
+    SharedVertx(Vertx vertx, int eventLoopPoolSize) {
+        this.vertx = vertx;
+        // A context created outside of Vert.x is assigned the next event loop, so this gets one context on each
+        eventLoops = new Context[eventLoopPoolSize];
+        for (int i = 0; i < eventLoopPoolSize; i++) {
+            eventLoops[i] = vertx.getOrCreateContext();
+        }
+        delays = new AtomicLongArray(eventLoopPoolSize);
+        timerId = vertx.setPeriodic(PROBE_INTERVAL_MILLIS, id -> probe());
+    }
+
+    public Vertx getVertx() {
+        return vertx;
+    }
+
+    public boolean isNativeTransportEnabled() {
+        return vertx.isNativeTransportEnabled();
+    }
+
+    /**
+     * @return the longest time, in nanoseconds, a probe task waited for any of the event loops in the last round
+     */
+    public long getEventLoopDelay() {
+        long max = 0;
+        for (int i = 0; i < delays.length(); i++) {
+            max = Math.max(max, delays.get(i));
+        }
+        return max;
+    }
+
+    void close(Handler<AsyncResult<Void>> completionHandler) {
+        vertx.cancelTimer(timerId);
+        vertx.close(completionHandler);
+    }
+
+    private void probe() {
+        for (int i = 0; i < eventLoops.length; i++) {
+            final int eventLoop = i;
+            final long submitted = System.nanoTime();
+            eventLoops[i].runOnContext(v -> delays.set(eventLoop, System.nanoTime() - submitted));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.vertx;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.Extension;
+
+import io.vertx.core.Vertx;
+
+/**
+ * CDI extension handing the {@link SharedVertx} to the connectors of a deployment. The SmallRye connectors only
+ * create a Vert.x instance of their own if there is no {@code Vertx} bean, of the core API or of the Rx or Axle
+ * API they are written against, so this adds one for each API which is installed.
+ * <p>
+ * No bean is added for an API the deployment already has a {@code Vertx} bean for.
+ */
+public class VertxExtension implements Extension {
+
+    private static final String[] WRAPPER_TYPES = {"io.vertx.reactivex.core.Vertx", "io.vertx.axle.core.Vertx"};
+
+    private final SharedVertx vertx;
+
+    public VertxExtension(SharedVertx vertx) {
+        this.vertx = vertx;
+    }
+
+    void addVertxBeans(@Observes AfterBeanDiscovery abd, BeanManager beanManager) {
+        final Vertx core = vertx.getVertx();
+        addBean(abd, beanManager, Vertx.class, core);
+        for (String wrapperTypeName : WRAPPER_TYPES) {
+            final Class<?> wrapperType;
+            try {
+                wrapperType = Class.forName(wrapperTypeName, false, VertxExtension.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                // None of the provisioned connectors uses this API
+                continue;
+            }
+            try {
+                addBean(abd, beanManager, wrapperType, wrapperType.getMethod("newInstance", Vertx.class).invoke(null, core));
+            } catch (ReflectiveOperationException e) {
+                abd.addDefinitionError(e);
+            }
+        }
+    }
+
+    private static void addBean(AfterBeanDiscovery abd, BeanManager beanManager, Class<?> type, Object instance) {
+        if (!beanManager.getBeans(type).isEmpty()) {
+            return;
+        }
+        abd.addBean()
+                .types(type, Object.class)
+                .createWith(c -> instance);
+    }
+}
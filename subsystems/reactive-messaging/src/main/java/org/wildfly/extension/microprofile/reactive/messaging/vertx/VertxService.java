@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.vertx;
+
+import java.util.function.Consumer;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.net.impl.transport.Transport;
+import org.jboss.msc.Service;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+
+/**
+ * Service for the {@link SharedVertx} handed to the connectors of all the deployments, instead of each connector
+ * creating a Vert.x instance of its own.
+ */
+public class VertxService implements Service {
+
+    private final int eventLoopPoolSize;
+    private final int workerPoolSize;
+    private final boolean preferNativeTransport;
+    private final Consumer<SharedVertx> vertxConsumer;
+    private volatile SharedVertx vertx;
+
+    public VertxService(int eventLoopPoolSize, int workerPoolSize, boolean preferNativeTransport, Consumer<SharedVertx> vertxConsumer) {
+        this.eventLoopPoolSize = eventLoopPoolSize;
+        this.workerPoolSize = workerPoolSize;
+        this.preferNativeTransport = preferNativeTransport;
+        this.vertxConsumer = vertxConsumer;
+    }
+
+    @Override
+    public void start(StartContext context) {
+        final VertxOptions options = new VertxOptions()
+                .setEventLoopPoolSize(eventLoopPoolSize)
+                .setWorkerPoolSize(workerPoolSize)
+                .setPreferNativeTransport(preferNativeTransport);
+        final Vertx delegate = Vertx.vertx(options);
+        if (preferNativeTransport && !delegate.isNativeTransportEnabled()) {
+            // Vert.x has fallen back to NIO, and only its transport knows why
+            final Transport nativeTransport = Transport.nativeTransport();
+            MicroProfileReactiveMessagingLogger.LOGGER.nativeTransportUnavailable(nativeTransport != null ? nativeTransport.unavailabilityCause() : null);
+        }
+        vertx = new SharedVertx(delegate, eventLoopPoolSize);
+        vertxConsumer.accept(vertx);
+    }
+
+    @Override
+    public void stop(StopContext context) {
+        vertxConsumer.accept(null);
+        final SharedVertx vertx = this.vertx;
+        this.vertx = null;
+        context.asynchronous();
+        vertx.close(result -> context.complete());
+    }
+}
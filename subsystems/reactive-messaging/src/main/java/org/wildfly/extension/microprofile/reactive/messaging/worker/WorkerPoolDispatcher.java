@@ -0,0 +1,231 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.worker;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.interceptor.InvocationContext;
+
+import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.streams.operators.PublisherBuilder;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.security.manager.WildFlySecurityManager;
+
+/**
+ * Runs a deployment's {@code @Incoming} methods on the worker pools they have been configured to use, and keeps
+ * track of the messages handed to the pools so they can be dealt with when the deployment is stopped.
+ * <p>
+ * Either way, the invocation returns a {@link CompletionStage} completed once the method has run on the pool. SmallRye
+ * waits for it before invoking a method returning a {@code CompletionStage} with the next message. For {@code void}
+ * methods, it is the acknowledgement of the {@link WorkerPoolMessage} which waits for it, provided the method is the
+ * only one consuming its channel and acknowledges messages after processing them, as is the default. Each method thus
+ * only has one message at a time on its pool, unless it acknowledges messages otherwise.
+ */
+public final class WorkerPoolDispatcher {
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final ClassLoader classLoader;
+    private final Map<String, Supplier<ExecutorService>> workerPools;
+    private final Map<Method, String> workerPoolNames = new ConcurrentHashMap<>();
+    private final Map<String, Integer> consumers = new ConcurrentHashMap<>();
+    private final Map<Method, WorkerPoolMessage.Processing> deferredAckMethods = new ConcurrentHashMap<>();
+    private final Map<String, WorkerPoolMessage.Processing> deferredAckChannels = new ConcurrentHashMap<>();
+    private final Set<Task> tasks = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     * @param classLoader the deployment's class loader
+     * @param workerPools the worker pools the deployment depends on, by name
+     */
+    public WorkerPoolDispatcher(ClassLoader classLoader, Map<String, Supplier<ExecutorService>> workerPools) {
+        this.classLoader = classLoader;
+        this.workerPools = workerPools;
+    }
+
+    boolean hasWorkerPool(String workerPoolName) {
+        return workerPools.containsKey(workerPoolName);
+    }
+
+    /**
+     * Counts an {@code @Incoming} method of the deployment, whether it uses a worker pool or not.
+     */
+    void registerConsumer(String channel) {
+        consumers.merge(channel, 1, Integer::sum);
+    }
+
+    void registerMethod(Method method, String channel, String workerPoolName) {
+        workerPoolNames.put(method, workerPoolName);
+        final Acknowledgment acknowledgment = method.getAnnotation(Acknowledgment.class);
+        if (method.getReturnType() == void.class && !Message.class.isAssignableFrom(method.getParameterTypes()[0])
+                && (acknowledgment == null || acknowledgment.value() == Acknowledgment.Strategy.POST_PROCESSING)) {
+            final WorkerPoolMessage.Processing processing = new WorkerPoolMessage.Processing();
+            deferredAckMethods.put(method, processing);
+            deferredAckChannels.put(channel, processing);
+        }
+    }
+
+    /**
+     * Wraps the messages of a channel received by a {@code void} method moved onto a worker pool, so that they are
+     * only acknowledged once processed.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    List<PublisherBuilder<? extends Message>> deferAcks(String channel, List<PublisherBuilder<? extends Message>> publishers) {
+        final WorkerPoolMessage.Processing processing = deferredAckChannels.get(channel);
+        if (processing == null || consumers.getOrDefault(channel, 0) != 1 || publishers.isEmpty()) {
+            return publishers;
+        }
+        final List<PublisherBuilder<? extends Message>> wrapped = new ArrayList<>(publishers.size());
+        for (PublisherBuilder<? extends Message> publisher : publishers) {
+            wrapped.add(publisher.map(message -> new WorkerPoolMessage<>((Message<?>) message, processing)));
+        }
+        return wrapped;
+    }
+
+    /**
+     * Invokes the method on its worker pool.
+     *
+     * @param context the invocation context of the intercepted method
+     * @return a {@link CompletionStage} completed with the result of the method once it has run on the pool
+     * @throws Exception if the pool is not available
+     * @throws RejectedExecutionException if all the threads of the pool are busy and its queue is full
+     */
+    Object dispatch(InvocationContext context) throws Exception {
+        final Method method = context.getMethod();
+        final String workerPoolName = workerPoolNames.get(method);
+        if (workerPoolName == null) {
+            return context.proceed();
+        }
+        final ExecutorService executor = workerPools.get(workerPoolName).get();
+        if (executor == null || closed) {
+            throw MicroProfileReactiveMessagingLogger.LOGGER.workerPoolNotAvailable(workerPoolName, method.toString());
+        }
+
+        final boolean returnsVoid = method.getReturnType() == void.class;
+        final Task task = new Task(context, workerPoolName, returnsVoid);
+        final WorkerPoolMessage.Processing processing = deferredAckMethods.get(method);
+        if (processing != null) {
+            processing.set(task.result);
+        }
+        tasks.add(task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            tasks.remove(task);
+            task.result.completeExceptionally(e);
+            throw e;
+        }
+        return task.result;
+    }
+
+    /**
+     * Stops accepting messages, discards the ones still queued on a pool, and waits for the ones being processed.
+     */
+    void close() {
+        closed = true;
+        for (Task task : tasks) {
+            task.cancel();
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CLOSE_TIMEOUT_SECONDS);
+        try {
+            for (Task task : tasks) {
+                if (!task.done.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    MicroProfileReactiveMessagingLogger.LOGGER.timedOutWaitingForWorkerPoolTasks(tasks.size());
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class Task implements Runnable {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final InvocationContext context;
+        private final String workerPoolName;
+        private final boolean returnsVoid;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        Task(InvocationContext context, String workerPoolName, boolean returnsVoid) {
+            this.context = context;
+            this.workerPoolName = workerPoolName;
+            this.returnsVoid = returnsVoid;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                return;
+            }
+            final ClassLoader current = WildFlySecurityManager.getCurrentContextClassLoaderPrivileged();
+            WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(classLoader);
+            try {
+                Object value = context.proceed();
+                if (value instanceof CompletionStage) {
+                    ((CompletionStage<?>) value).whenComplete(this::complete);
+                } else {
+                    complete(value, null);
+                }
+            } catch (Throwable t) {
+                complete(null, t);
+            } finally {
+                WildFlySecurityManager.setCurrentContextClassLoaderPrivileged(current);
+                tasks.remove(this);
+                done.countDown();
+            }
+        }
+
+        void cancel() {
+            if (state.compareAndSet(QUEUED, CANCELLED)) {
+                result.cancel(false);
+                tasks.remove(this);
+                done.countDown();
+            }
+        }
+
+        private void complete(Object value, Throwable error) {
+            if (error == null) {
+                result.complete(value);
+            } else {
+                if (returnsVoid) {
+                    // Only seen by SmallRye as the failure to acknowledge the message
+                    MicroProfileReactiveMessagingLogger.LOGGER.workerPoolMessageFailed(context.getMethod().toString(), workerPoolName, error);
+                }
+                result.completeExceptionally(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.worker;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.BeforeDestroyed;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.BeforeBeanDiscovery;
+import javax.enterprise.inject.spi.Extension;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
+import javax.enterprise.inject.spi.WithAnnotations;
+import javax.enterprise.inject.spi.configurator.AnnotatedMethodConfigurator;
+import javax.enterprise.inject.spi.configurator.AnnotatedTypeConfigurator;
+
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Outgoing;
+import org.wildfly.extension.microprofile.reactive.messaging._private.MicroProfileReactiveMessagingLogger;
+import org.wildfly.extension.microprofile.reactive.messaging.deployment.DeploymentConfig;
+
+/**
+ * CDI extension moving {@code @Incoming} methods onto a worker pool defined in the subsystem, if configured in
+ * MicroProfile Config with
+ * <pre>
+ * wildfly.reactive-messaging.incoming.&lt;channel&gt;.worker-pool=&lt;worker pool name&gt;
+ * </pre>
+ * This is deliberately not under {@code mp.messaging.incoming.}, since SmallRye treats everything there as the
+ * configuration of a connector. It must be set in {@code META-INF/microprofile-config.properties}, a system property
+ * or an environment variable, without an expression, so the deployment can depend on the worker pool.
+ * <p>
+ * Only methods receiving a single message, and returning {@code void} or a {@link CompletionStage}, can be moved.
+ * Either way, the message is only acknowledged once the method has run on the pool, and a failure of the method
+ * fails the acknowledgement. For {@code void} methods, this requires the method to be the only {@code @Incoming}
+ * method of its channel, and not to acknowledge messages before processing them.
+ */
+public class WorkerPoolExtension implements Extension {
+
+    private static final String CONFIG_SUFFIX = ".worker-pool";
+
+    private final WorkerPoolDispatcher dispatcher;
+    private final DeploymentConfig config;
+    private final List<Throwable> definitionErrors = new ArrayList<>();
+
+    public WorkerPoolExtension(WorkerPoolDispatcher dispatcher, DeploymentConfig config) {
+        this.dispatcher = dispatcher;
+        this.config = config;
+    }
+
+    void addInterceptor(@Observes BeforeBeanDiscovery bbd, BeanManager beanManager) {
+        bbd.addAnnotatedType(beanManager.createAnnotatedType(WorkerPoolInterceptor.class), WorkerPoolInterceptor.class.getName());
+        bbd.addAnnotatedType(beanManager.createAnnotatedType(WorkerPoolChannelRegistry.class), WorkerPoolChannelRegistry.class.getName());
+    }
+
+    <T> void bindInterceptor(@Observes @WithAnnotations(Incoming.class) ProcessAnnotatedType<T> pat) {
+        AnnotatedTypeConfigurator<T> configurator = pat.configureAnnotatedType();
+        for (AnnotatedMethodConfigurator<? super T> method : configurator.methods()) {
+            if (registerMethod(method.getAnnotated())) {
+                method.add(WorkerPoolBinding.Literal.INSTANCE);
+            }
+        }
+    }
+
+    void addDispatcherBean(@Observes AfterBeanDiscovery abd) {
+        for (Throwable error : definitionErrors) {
+            abd.addDefinitionError(error);
+        }
+        abd.addBean()
+                .types(WorkerPoolDispatcher.class, Object.class)
+                .createWith(c -> dispatcher);
+    }
+
+    void closeDispatcher(@Observes @BeforeDestroyed(ApplicationScoped.class) Object event) {
+        dispatcher.close();
+    }
+
+    private boolean registerMethod(AnnotatedMethod<?> annotatedMethod) {
+        Incoming incoming = annotatedMethod.getAnnotation(Incoming.class);
+        if (incoming == null) {
+            return false;
+        }
+        dispatcher.registerConsumer(incoming.value());
+        Optional<String> workerPoolName = config.getIncoming(incoming.value(), CONFIG_SUFFIX, String.class);
+        if (!workerPoolName.isPresent()) {
+            return false;
+        }
+
+        Method method = annotatedMethod.getJavaMember();
+        Class<?> returnType = method.getReturnType();
+        if (annotatedMethod.isAnnotationPresent(Outgoing.class)
+                || method.getParameterCount() != 1
+                || !(returnType == void.class || CompletionStage.class.isAssignableFrom(returnType))) {
+            definitionErrors.add(MicroProfileReactiveMessagingLogger.LOGGER.methodCannotUseWorkerPool(method.toString(), workerPoolName.get()));
+            return false;
+        }
+        if (!dispatcher.hasWorkerPool(workerPoolName.get())) {
+            definitionErrors.add(MicroProfileReactiveMessagingLogger.LOGGER.workerPoolNotConfiguredStatically(workerPoolName.get(), method.toString()));
+            return false;
+        }
+        dispatcher.registerMethod(method, incoming.value(), workerPoolName.get());
+        return true;
+    }
+}
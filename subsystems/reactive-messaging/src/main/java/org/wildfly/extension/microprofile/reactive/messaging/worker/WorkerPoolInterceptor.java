@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.worker;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+/**
+ * Moves the invocation of an {@code @Incoming} method onto the worker pool it has been configured to use.
+ * It runs after the {@code ChannelMetricsInterceptor}, so the processing time recorded for the method includes the
+ * time spent waiting for a thread in the pool.
+ */
+@WorkerPoolBinding
+@Interceptor
+@Priority(Interceptor.Priority.LIBRARY_BEFORE + 100)
+public class WorkerPoolInterceptor {
+
+    @Inject
+    WorkerPoolDispatcher dispatcher;
+
+    @AroundInvoke
+    public Object dispatch(InvocationContext context) throws Exception {
+        return dispatcher.dispatch(context);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging.worker;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+/**
+ * Wraps a message of a channel received by a {@code void} method moved onto a worker pool, so that it is only
+ * acknowledged once the method has run on the pool, and not acknowledged at all if it failed.
+ * <p>
+ * SmallRye invokes such a method with the message's payload and then acknowledges the message, and only does the
+ * same with the next message once that acknowledgement has completed. The {@link WorkerPoolDispatcher} thus puts the
+ * processing of each invocation in the {@link Processing} of the channel, and the acknowledgement of the message
+ * takes it from there. This only holds for a channel consumed by that one method, with post-processing
+ * acknowledgement.
+ */
+final class WorkerPoolMessage<T> implements Message<T> {
+
+    private final Message<T> delegate;
+    private final Processing processing;
+
+    WorkerPoolMessage(Message<T> delegate, Processing processing) {
+        this.delegate = delegate;
+        this.processing = processing;
+    }
+
+    @Override
+    public T getPayload() {
+        return delegate.getPayload();
+    }
+
+    @Override
+    public CompletionStage<Void> ack() {
+        final CompletionStage<?> processing = this.processing.take();
+        if (processing == null) {
+            return delegate.ack();
+        }
+        return processing.thenCompose(ignored -> delegate.ack());
+    }
+
+    @Override
+    public <C> C unwrap(Class<C> unwrapType) {
+        if (unwrapType.isInstance(delegate)) {
+            return unwrapType.cast(delegate);
+        }
+        return delegate.unwrap(unwrapType);
+    }
+
+    /**
+     * Hands the processing of the last invocation of a channel's method to the acknowledgement of its message.
+     */
+    static final class Processing {
+
+        private final AtomicReference<CompletionStage<?>> current = new AtomicReference<>();
+
+        /**
+         * @param processing completed once the method has run
+         */
+        void set(CompletionStage<?> processing) {
+            current.set(processing);
+        }
+
+        /**
+         * @return the processing of the last invocation, or {@code null} if it has already been taken
+         */
+        CompletionStage<?> take() {
+            return current.getAndSet(null);
+        }
+    }
+}
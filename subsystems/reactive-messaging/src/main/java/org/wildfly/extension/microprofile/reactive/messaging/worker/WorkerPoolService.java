@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.worker;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.jboss.msc.Service;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StopContext;
+import org.jboss.threads.JBossThreadFactory;
+
+/**
+ * Service for a worker pool which blocking {@code @Incoming} methods can be moved onto.
+ * <p>
+ * The thread submitting a message is the one the connector delivers messages on, e.g. a Vert.x event loop, so it
+ * must not block. Once all the threads are busy and the queue is full, the message is rejected instead. Back-pressure
+ * comes from SmallRye waiting for each message to have been processed on the pool before handing the method the
+ * next one, so each method only has one message at a time on the pool. The pool is thus large enough if
+ * {@code max-threads} plus {@code queue-size} is at least the number of methods using it.
+ * <p>
+ * With {@link ThreadType#VIRTUAL} the pool's threads are virtual threads. They are still bounded by
+ * {@code max-threads}, but that can then be set to thousands, so many slow consumers can wait at once without each
+ * holding on to a platform thread.
+ */
+public class WorkerPoolService implements Service {
+
+    private final String name;
+    private final ThreadType threadType;
+    private final int coreThreads;
+    private final int maxThreads;
+    private final int queueSize;
+    private final long keepAliveTime;
+    private final Consumer<ExecutorService> executorConsumer;
+    private volatile ThreadPoolExecutor executor;
+
+    public WorkerPoolService(String name, ThreadType threadType, int coreThreads, int maxThreads, int queueSize, long keepAliveTime, Consumer<ExecutorService> executorConsumer) {
+        this.name = name;
+        this.threadType = threadType;
+        this.coreThreads = coreThreads;
+        this.maxThreads = maxThreads;
+        this.queueSize = queueSize;
+        this.keepAliveTime = keepAliveTime;
+        this.executorConsumer = executorConsumer;
+    }
+
+    @Override
+    public void start(StartContext context) {
+        final BlockingQueue<Runnable> queue = queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) : new SynchronousQueue<>();
+        final ThreadFactory threadFactory = threadType == ThreadType.VIRTUAL
+                ? ThreadType.newVirtualThreadFactory("reactive-messaging-worker-pool-" + name + " - ")
+                : new JBossThreadFactory(new ThreadGroup("reactive-messaging-worker-pool-" + name), Boolean.FALSE, null, "%G - %t", null, null);
+        executor = new ThreadPoolExecutor(coreThreads, maxThreads, keepAliveTime, TimeUnit.MILLISECONDS, queue, threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        executorConsumer.accept(executor);
+    }
+
+    @Override
+    public void stop(StopContext context) {
+        executorConsumer.accept(null);
+        // Messages already handed to the pool still get processed, but no new ones are accepted
+        executor.shutdown();
+        executor = null;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Tests the batches sent on by the {@link BatchingProcessor}.
+ */
+public class BatchingProcessorTestCase {
+
+    private ScheduledExecutorService scheduler;
+    private Upstream upstream;
+    private Downstream downstream;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        upstream = new Upstream();
+        downstream = new Downstream();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testFullBatches() {
+        BatchingProcessor<Integer> processor = subscribe(3, 0);
+        downstream.subscription.request(2);
+        // Two batches worth of messages are requested for two batches
+        Assert.assertEquals(6, upstream.requested);
+        for (int i = 0; i < 7; i++) {
+            processor.onNext(Message.of(i));
+        }
+        Assert.assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(3, 4, 5)), downstream.payloads());
+
+        // Nothing is sent on without demand
+        processor.onComplete();
+        Assert.assertEquals(2, downstream.batches.size());
+        Assert.assertFalse(downstream.completed);
+
+        // The last batch is sent on when the channel completes
+        downstream.subscription.request(1);
+        Assert.assertEquals(Arrays.asList(6), downstream.payloads().get(2));
+        Assert.assertTrue(downstream.completed);
+    }
+
+    @Test
+    public void testLinger() throws Exception {
+        BatchingProcessor<Integer> processor = subscribe(10, 20);
+        downstream.subscription.request(Long.MAX_VALUE);
+        processor.onNext(Message.of(1));
+        processor.onNext(Message.of(2));
+        Assert.assertTrue(downstream.batches.isEmpty());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (downstream.batches.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(Arrays.asList(Arrays.asList(1, 2)), downstream.payloads());
+    }
+
+    @Test
+    public void testAck() {
+        BatchingProcessor<Integer> processor = subscribe(2, 0);
+        downstream.subscription.request(1);
+        AtomicInteger acks = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            processor.onNext(Message.of(i, () -> {
+                acks.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            }));
+        }
+        downstream.batches.get(0).ack().toCompletableFuture().join();
+        Assert.assertEquals(2, acks.get());
+    }
+
+    @Test
+    public void testError() {
+        BatchingProcessor<Integer> processor = subscribe(2, 0);
+        downstream.subscription.request(1);
+        processor.onNext(Message.of(1));
+        IllegalStateException error = new IllegalStateException();
+        processor.onError(error);
+        Assert.assertSame(error, downstream.error);
+        Assert.assertTrue(downstream.batches.isEmpty());
+    }
+
+    @Test
+    public void testCancel() {
+        subscribe(2, 0);
+        downstream.subscription.request(1);
+        downstream.subscription.cancel();
+        Assert.assertTrue(upstream.cancelled);
+    }
+
+    private BatchingProcessor<Integer> subscribe(int batchSize, long lingerMillis) {
+        BatchingProcessor<Integer> processor = new BatchingProcessor<>(batchSize, lingerMillis, scheduler);
+        processor.subscribe(downstream);
+        processor.onSubscribe(upstream);
+        Assert.assertNotNull(downstream.subscription);
+        return processor;
+    }
+
+    private static class Upstream implements Subscription {
+        long requested;
+        boolean cancelled;
+
+        @Override
+        public void request(long n) {
+            requested += n;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static class Downstream implements Subscriber<Message<List<Integer>>> {
+        final List<Message<List<Integer>>> batches = new ArrayList<>();
+        volatile Subscription subscription;
+        volatile boolean completed;
+        volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public synchronized void onNext(Message<List<Integer>> batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        synchronized List<List<Integer>> payloads() {
+            List<List<Integer>> payloads = new ArrayList<>();
+            for (Message<List<Integer>> batch : batches) {
+                payloads.add(batch.getPayload());
+            }
+            return payloads;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.credit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetrics;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetricsRegistry;
+
+/**
+ * Tests how the {@link CreditFlowProcessor} gives credit to a connector.
+ */
+public class CreditFlowProcessorTestCase {
+
+    private final List<Long> requests = new ArrayList<>();
+    private final List<Message<?>> received = new ArrayList<>();
+    private Subscription subscription;
+    private boolean completed;
+    private boolean cancelled;
+    private ChannelMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new ChannelMetricsRegistry().getChannelMetrics("in");
+    }
+
+    @Test
+    public void testInitialCreditAndReplenish() {
+        CreditFlowProcessor processor = subscribe(10, 4, Long.MAX_VALUE);
+        // The initial credit is given before anything is requested downstream
+        Assert.assertEquals(1, requests.size());
+        Assert.assertEquals(10L, (long) requests.get(0));
+        Assert.assertEquals(10, metrics.getCredit());
+
+        send(processor, 5);
+        // The messages are buffered until they are requested
+        Assert.assertTrue(received.isEmpty());
+        Assert.assertEquals(5, metrics.getCredit());
+        Assert.assertEquals(5, metrics.getUnsettled());
+
+        subscription.request(3);
+        Assert.assertEquals(3, received.size());
+
+        send(processor, 1);
+        // The credit dropped to the threshold, so it is topped up, minus the 3 buffered messages
+        Assert.assertEquals(2, requests.size());
+        Assert.assertEquals(3L, (long) requests.get(1));
+        Assert.assertEquals(7, metrics.getCredit());
+
+        for (Message<?> message : received) {
+            message.ack();
+        }
+        Assert.assertEquals(3, metrics.getUnsettled());
+    }
+
+    @Test
+    public void testMaxUnsettled() {
+        CreditFlowProcessor processor = subscribe(4, 2, 4);
+        subscription.request(Long.MAX_VALUE);
+        send(processor, 4);
+        Assert.assertEquals(4, received.size());
+        // No credit is given until messages are acknowledged
+        Assert.assertEquals(1, requests.size());
+        Assert.assertEquals(0, metrics.getCredit());
+
+        received.get(0).ack();
+        Assert.assertEquals(2, requests.size());
+        Assert.assertEquals(1L, (long) requests.get(1));
+        // Acknowledging the same message twice only settles it once
+        received.get(0).ack();
+        Assert.assertEquals(2, requests.size());
+        received.get(1).ack();
+        Assert.assertEquals(3, requests.size());
+        Assert.assertEquals(2, metrics.getCredit());
+        Assert.assertEquals(2, metrics.getUnsettled());
+    }
+
+    @Test
+    public void testCompleteAfterBufferedMessages() {
+        CreditFlowProcessor processor = subscribe(4, 2, Long.MAX_VALUE);
+        send(processor, 2);
+        processor.onComplete();
+        Assert.assertFalse(completed);
+        subscription.request(2);
+        Assert.assertEquals(2, received.size());
+        Assert.assertTrue(completed);
+    }
+
+    @Test
+    public void testUnwrap() {
+        CreditFlowProcessor processor = subscribe(4, 2, Long.MAX_VALUE);
+        TestMessage message = new TestMessage();
+        processor.onNext(message);
+        subscription.request(1);
+        Assert.assertSame(message, received.get(0).unwrap(TestMessage.class));
+    }
+
+    @Test
+    public void testCancel() {
+        subscribe(4, 2, Long.MAX_VALUE);
+        subscription.cancel();
+        Assert.assertTrue(cancelled);
+    }
+
+    private void send(CreditFlowProcessor processor, int count) {
+        for (int i = 0; i < count; i++) {
+            processor.onNext(Message.of(i));
+        }
+    }
+
+    private CreditFlowProcessor subscribe(long initialCredit, long replenishThreshold, long maxUnsettled) {
+        CreditFlowProcessor processor = new CreditFlowProcessor(initialCredit, replenishThreshold, maxUnsettled, metrics);
+        processor.subscribe(new Subscriber<Message<?>>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+            }
+
+            @Override
+            public void onNext(Message<?> message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                throw new AssertionError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed = true;
+            }
+        });
+        processor.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                requests.add(n);
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+        });
+        return processor;
+    }
+
+    private static class TestMessage implements Message<String> {
+        @Override
+        public String getPayload() {
+            return "test";
+        }
+    }
+}
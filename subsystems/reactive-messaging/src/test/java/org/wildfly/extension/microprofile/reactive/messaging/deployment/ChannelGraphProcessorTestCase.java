@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.deployment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Outgoing;
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.as.server.deployment.annotation.CompositeIndex;
+import org.jboss.jandex.Indexer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ChannelGraph} built by {@link ChannelGraphProcessor}.
+ */
+public class ChannelGraphProcessorTestCase {
+
+    @Test
+    public void testConnectedChannels() throws Exception {
+        Map<String, String> connectors = new HashMap<>();
+        connectors.put("mp.messaging.incoming.orders.connector", "smallrye-kafka");
+        connectors.put("mp.messaging.outgoing.audit.connector", "smallrye-amqp");
+        ChannelGraph graph = buildGraph(connectors, Processor.class, Audit.class);
+
+        Assert.assertEquals(3, graph.getChannels().size());
+        ChannelGraph.Channel orders = graph.getChannel("orders");
+        Assert.assertEquals("[connector smallrye-kafka]", orders.getPublishers().toString());
+        Assert.assertEquals("[method " + Processor.class.getName() + "#process]", orders.getSubscribers().toString());
+        Assert.assertTrue(orders.isUsedByMethod());
+        ChannelGraph.Channel invoices = graph.getChannel("invoices");
+        Assert.assertEquals("[method " + Processor.class.getName() + "#process]", invoices.getPublishers().toString());
+        Assert.assertEquals("[method " + Audit.class.getName() + "#audit]", invoices.getSubscribers().toString());
+        Assert.assertEquals("[connector smallrye-amqp]", graph.getChannel("audit").getSubscribers().toString());
+
+        ChannelGraphProcessor.validate("test.war", graph, true);
+    }
+
+    @Test(expected = DeploymentUnitProcessingException.class)
+    public void testChannelWithoutPublisher() throws Exception {
+        ChannelGraph graph = buildGraph(Collections.emptyMap(), Processor.class);
+        Assert.assertTrue(graph.getChannel("orders").getPublishers().isEmpty());
+        ChannelGraphProcessor.validate("test.war", graph, true);
+    }
+
+    @Test
+    public void testChannelWithoutPublisherNotFailing() throws Exception {
+        ChannelGraph graph = buildGraph(Collections.emptyMap(), Processor.class);
+        ChannelGraphProcessor.validate("test.war", graph, false);
+    }
+
+    @Test
+    public void testChannelWithoutSubscriber() throws Exception {
+        // Only a warning
+        ChannelGraph graph = buildGraph(Collections.singletonMap("mp.messaging.incoming.orders.connector", "smallrye-kafka"), Processor.class);
+        Assert.assertTrue(graph.getChannel("invoices").getSubscribers().isEmpty());
+        ChannelGraphProcessor.validate("test.war", graph, true);
+    }
+
+    private static ChannelGraph buildGraph(Map<String, String> connectors, Class<?>... classes) throws IOException {
+        Indexer indexer = new Indexer();
+        for (Class<?> clazz : classes) {
+            try (InputStream in = clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class")) {
+                indexer.index(in);
+            }
+        }
+        ChannelGraph graph = new ChannelGraph();
+        ChannelGraphProcessor.addAnnotatedEndpoints(new CompositeIndex(Collections.singleton(indexer.complete())), graph);
+        ChannelGraphProcessor.addConnectors(connectors, graph);
+        return graph;
+    }
+
+    static class Processor {
+        @Incoming("orders")
+        @Outgoing("invoices")
+        public String process(String order) {
+            return order;
+        }
+    }
+
+    static class Audit {
+        @Incoming("invoices")
+        @Outgoing("audit")
+        public String audit(String invoice) {
+            return invoice;
+        }
+    }
+}
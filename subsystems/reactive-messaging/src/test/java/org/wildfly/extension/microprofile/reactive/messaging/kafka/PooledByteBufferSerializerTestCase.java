@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.kafka;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link PooledByteBufferSerializer} and the {@link ByteBufferPool} it returns buffers to.
+ */
+public class PooledByteBufferSerializerTestCase {
+
+    private final PooledByteBufferSerializer serializer = new PooledByteBufferSerializer();
+
+    @Test
+    public void testPooledBuffer() {
+        ByteBuffer buffer = ByteBufferPool.acquire(1500);
+        Assert.assertEquals(2048, buffer.capacity());
+        buffer.put("{\"price\":42}".getBytes(StandardCharsets.UTF_8)).flip();
+
+        byte[] bytes = serializer.serialize("prices", buffer);
+        Assert.assertEquals("{\"price\":42}", new String(bytes, StandardCharsets.UTF_8));
+
+        // The buffer went back into the pool, and is cleared when handed out again
+        ByteBuffer reused = ByteBufferPool.acquire(2000);
+        Assert.assertSame(buffer, reused);
+        Assert.assertEquals(0, reused.position());
+        Assert.assertEquals(2048, reused.limit());
+    }
+
+    @Test
+    public void testUnpooledBuffer() {
+        byte[] array = {1, 2, 3};
+        Assert.assertSame(array, serializer.serialize("prices", ByteBuffer.wrap(array)));
+
+        ByteBuffer slice = ByteBuffer.wrap(new byte[]{1, 2, 3, 4}, 1, 2);
+        Assert.assertArrayEquals(new byte[]{2, 3}, serializer.serialize("prices", slice));
+        // Not from the pool, so left as it was
+        Assert.assertEquals(1, slice.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(2);
+        direct.put((byte) 5).put((byte) 6).flip();
+        Assert.assertArrayEquals(new byte[]{5, 6}, serializer.serialize("prices", direct));
+        Assert.assertNull(serializer.serialize("prices", null));
+    }
+
+    @Test
+    public void testForeignBufferOfPooledSize() {
+        // Has the size of a pooled buffer, but the application still owns it
+        ByteBuffer foreign = ByteBuffer.allocate(ByteBufferPool.MIN_POOLED_CAPACITY);
+        foreign.put((byte) 7).flip();
+        Assert.assertArrayEquals(new byte[]{7}, serializer.serialize("prices", foreign));
+        Assert.assertFalse(ByteBufferPool.release(foreign));
+        Assert.assertNotSame(foreign, ByteBufferPool.acquire(1));
+
+        // A pooled buffer is only returned once
+        ByteBuffer pooled = ByteBufferPool.acquire(1);
+        Assert.assertTrue(ByteBufferPool.release(pooled));
+        Assert.assertFalse(ByteBufferPool.release(pooled));
+    }
+
+    @Test
+    public void testPoolSizes() {
+        Assert.assertEquals(ByteBufferPool.MIN_POOLED_CAPACITY, ByteBufferPool.acquire(1).capacity());
+        Assert.assertEquals(4096, ByteBufferPool.acquire(4096).capacity());
+        Assert.assertEquals(8192, ByteBufferPool.acquire(4097).capacity());
+        ByteBuffer large = ByteBufferPool.acquire(ByteBufferPool.MAX_POOLED_CAPACITY + 1);
+        Assert.assertEquals(ByteBufferPool.MAX_POOLED_CAPACITY + 1, large.capacity());
+        Assert.assertFalse(ByteBufferPool.release(large));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the recording of the {@link ChannelMetrics} for a processor method and the acknowledgements.
+ */
+public class ChannelMetricsTestCase {
+
+    @Test
+    public void testProcessorMethod() throws Exception {
+        ChannelMetricsRegistry registry = new ChannelMetricsRegistry();
+        Method method = ChannelMetricsTestCase.class.getDeclaredMethod("testProcessorMethod");
+        registry.registerMethod(method, "in", "out");
+        MethodMetrics methodMetrics = registry.getMethodMetrics(method);
+
+        long start = methodMetrics.begin();
+        Assert.assertEquals(1, registry.getChannelMetrics("in").getInFlight());
+        methodMetrics.end(start, true, "value");
+        methodMetrics.end(methodMetrics.begin(), true, null);
+        methodMetrics.end(methodMetrics.begin() - TimeUnit.MILLISECONDS.toNanos(50), false, null);
+
+        ChannelMetrics in = registry.getChannelMetrics("in");
+        Assert.assertEquals(3, in.getMessagesIn());
+        Assert.assertEquals(0, in.getMessagesOut());
+        Assert.assertEquals(2, in.getSuccesses());
+        Assert.assertEquals(1, in.getFailures());
+        Assert.assertEquals(0, in.getInFlight());
+        Assert.assertTrue(in.getProcessingTimeTotal() >= TimeUnit.MILLISECONDS.toNanos(50));
+        long[] histogram = in.getProcessingTimeHistogram();
+        Assert.assertEquals(ChannelMetrics.BUCKET_NAMES.length, histogram.length);
+        Assert.assertEquals(1, histogram[4]);
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        Assert.assertEquals(3, total);
+
+        // Only the non-null result was sent on
+        ChannelMetrics out = registry.getChannelMetrics("out");
+        Assert.assertEquals(0, out.getMessagesIn());
+        Assert.assertEquals(1, out.getMessagesOut());
+    }
+
+    @Test
+    public void testAcks() {
+        ChannelMetricsRegistry registry = new ChannelMetricsRegistry();
+        Assert.assertNull(registry.findChannelMetrics("in"));
+        ChannelMetrics metrics = registry.getChannelMetrics("in");
+        Assert.assertSame(metrics, registry.findChannelMetrics("in"));
+
+        CompletableFuture<Void> failedAck = new CompletableFuture<>();
+        failedAck.completeExceptionally(new IllegalStateException());
+        Message<String> acked = new AckCountingMessage<>(Message.of("a", () -> CompletableFuture.completedFuture(null)), metrics);
+        Message<String> failed = new AckCountingMessage<>(Message.of("b", () -> failedAck), metrics);
+        Message<String> unacked = new AckCountingMessage<>(Message.of("c"), metrics);
+        Assert.assertEquals("c", unacked.getPayload());
+
+        acked.ack();
+        // Acknowledging it again does not count
+        acked.ack();
+        failed.ack();
+        Assert.assertEquals(1, metrics.getAcks());
+        Assert.assertEquals(1, metrics.getAckFailures());
+    }
+
+    @Test
+    public void testMessagesByTopic() {
+        ChannelMetrics metrics = new ChannelMetricsRegistry().getChannelMetrics("telemetry");
+        metrics.messageOnTopic("sensors/1");
+        metrics.messageOnTopic("sensors/1");
+        for (int i = 2; i <= ChannelMetrics.MAX_TOPICS + 2; i++) {
+            metrics.messageOnTopic("sensors/" + i);
+        }
+        Map<String, Long> counts = metrics.getMessagesByTopic();
+        Assert.assertEquals(2L, (long) counts.get("sensors/1"));
+        // The topics beyond the limit are counted together
+        Assert.assertEquals(ChannelMetrics.MAX_TOPICS + 1, counts.size());
+        Assert.assertEquals(2L, (long) counts.get(ChannelMetrics.OTHER_TOPICS));
+    }
+
+    @Test
+    public void testConnectorMetricsTrackedOnlyOnceSetUp() {
+        ChannelMetrics metrics = new ChannelMetricsRegistry().getChannelMetrics("prices");
+        Assert.assertFalse(metrics.isSendsTracked());
+        Assert.assertFalse(metrics.isCreditTracked());
+        Assert.assertFalse(metrics.isTopicsTracked());
+
+        metrics.trackCredit();
+        Assert.assertFalse(metrics.isSendsTracked());
+        Assert.assertTrue(metrics.isCreditTracked());
+        Assert.assertFalse(metrics.isTopicsTracked());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.mqtt;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests how {@link MqttTopicCounters} finds out the topic of a message.
+ */
+public class MqttTopicCountersTestCase {
+
+    private final MqttTopicCounters.TopicReader topicReader = new MqttTopicCounters.TopicReader(TopicMessage.class);
+
+    @Test
+    public void testMessageWithTopic() {
+        Assert.assertEquals("sensors/1", topicReader.getTopic(new TopicMessageImpl("sensors/1"), "sensors/+"));
+    }
+
+    @Test
+    public void testMessageWithoutTopic() {
+        Assert.assertEquals("sensors/+", topicReader.getTopic(new TopicMessageImpl(null), "sensors/+"));
+        Assert.assertEquals("telemetry", topicReader.getTopic(Message.of("payload"), "telemetry"));
+    }
+
+    @Test
+    public void testWrappedMessage() {
+        final Message<?> wrapped = new WrappingMessage(new WrappingMessage(new TopicMessageImpl("sensors/1")));
+        Assert.assertEquals("sensors/1", topicReader.getTopic(topicReader.unwrap(wrapped), "sensors/+"));
+        Assert.assertEquals("sensors/+", topicReader.getTopic(topicReader.unwrap(Message.of("payload")), "sensors/+"));
+    }
+
+    @Test
+    public void testConnectorNotAvailable() {
+        final MqttTopicCounters.TopicReader topicReader = new MqttTopicCounters.TopicReader(null);
+        Assert.assertEquals("sensors/+", topicReader.getTopic(topicReader.unwrap(new TopicMessageImpl("sensors/1")), "sensors/+"));
+    }
+
+    // Like the connector's MqttMessage
+    public interface TopicMessage extends Message<String> {
+        String getTopic();
+    }
+
+    // Not public, like the connector's message classes
+    static class TopicMessageImpl implements TopicMessage {
+
+        private final String topic;
+
+        TopicMessageImpl(String topic) {
+            this.topic = topic;
+        }
+
+        @Override
+        public String getPayload() {
+            return "payload";
+        }
+
+        @Override
+        public String getTopic() {
+            return topic;
+        }
+    }
+
+    static class WrappingMessage implements Message<String> {
+
+        private final Message<String> delegate;
+
+        WrappingMessage(Message<String> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String getPayload() {
+            return delegate.getPayload();
+        }
+
+        @Override
+        public <C> C unwrap(Class<C> unwrapType) {
+            if (unwrapType.isInstance(delegate)) {
+                return unwrapType.cast(delegate);
+            }
+            return delegate.unwrap(unwrapType);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.messaging.ringbuffer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Tests how the {@link RingBufferPublisher} passes messages and demand between the publishers of a channel and its
+ * subscriber.
+ */
+public class RingBufferPublisherTestCase {
+
+    private final Set<Subscription> active = ConcurrentHashMap.newKeySet();
+    private final List<Object> received = new CopyOnWriteArrayList<>();
+    private volatile Subscription subscription;
+    private volatile boolean completed;
+    private volatile Throwable error;
+
+    @Test
+    public void testRingBufferCapacity() {
+        Assert.assertEquals(1, new RingBuffer<>(1).capacity());
+        Assert.assertEquals(4, new RingBuffer<>(3).capacity());
+        RingBuffer<Integer> ring = new RingBuffer<>(2);
+        Assert.assertTrue(ring.offer(1));
+        Assert.assertTrue(ring.offer(2));
+        Assert.assertFalse(ring.offer(3));
+        Assert.assertEquals(1, (int) ring.poll());
+        Assert.assertTrue(ring.offer(3));
+        Assert.assertEquals(2, (int) ring.poll());
+        Assert.assertEquals(3, (int) ring.poll());
+        Assert.assertNull(ring.poll());
+        Assert.assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void testBackpressure() {
+        TestPublisher source = new TestPublisher();
+        subscribe(4, WaitStrategy.PARK, source);
+        // The publisher is asked to fill the ring buffer, before anything is requested downstream
+        awaitUntil(() -> source.requests.size() == 1);
+        Assert.assertEquals(4L, (long) source.requests.get(0));
+
+        source.send(4);
+        subscription.request(2);
+        awaitUntil(() -> received.size() == 2);
+        assertNoMoreMessages(2);
+        Assert.assertEquals(1, source.requests.size());
+
+        subscription.request(2);
+        awaitUntil(() -> received.size() == 4);
+        // Three quarters of the slots are free again, so they are requested in one go
+        awaitUntil(() -> source.requests.size() == 2);
+        Assert.assertEquals(3L, (long) source.requests.get(1));
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), received);
+    }
+
+    @Test
+    public void testMergeAndComplete() {
+        TestPublisher first = new TestPublisher();
+        TestPublisher second = new TestPublisher();
+        subscribe(8, WaitStrategy.BUSY_SPIN, first, second);
+        subscription.request(Long.MAX_VALUE);
+        awaitUntil(() -> first.subscriber != null && second.subscriber != null);
+        first.send(3);
+        first.subscriber.onComplete();
+        awaitUntil(() -> received.size() == 3);
+        Assert.assertFalse(completed);
+
+        second.send(2);
+        second.subscriber.onComplete();
+        awaitUntil(() -> completed);
+        Assert.assertEquals(5, received.size());
+        awaitUntil(active::isEmpty);
+    }
+
+    @Test
+    public void testErrorAfterBufferedMessages() {
+        TestPublisher source = new TestPublisher();
+        subscribe(4, WaitStrategy.YIELD, source);
+        awaitUntil(() -> source.subscriber != null);
+        source.send(2);
+        source.subscriber.onError(new RuntimeException("test"));
+        assertNoMoreMessages(0);
+        Assert.assertNull(error);
+
+        subscription.request(2);
+        awaitUntil(() -> error != null);
+        Assert.assertEquals(2, received.size());
+        Assert.assertEquals("test", error.getMessage());
+    }
+
+    @Test
+    public void testOverflow() {
+        TestPublisher source = new TestPublisher();
+        subscribe(2, WaitStrategy.PARK, source);
+        awaitUntil(() -> source.subscriber != null);
+        source.send(3);
+        Assert.assertTrue(source.cancelled);
+        subscription.request(Long.MAX_VALUE);
+        awaitUntil(() -> error != null);
+        Assert.assertEquals(2, received.size());
+        Assert.assertTrue(error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testCancel() {
+        TestPublisher first = new TestPublisher();
+        TestPublisher second = new TestPublisher();
+        subscribe(4, WaitStrategy.PARK, first, second);
+        awaitUntil(() -> first.subscriber != null && second.subscriber != null);
+        Assert.assertEquals(1, active.size());
+        subscription.cancel();
+        Assert.assertTrue(first.cancelled);
+        Assert.assertTrue(second.cancelled);
+        awaitUntil(active::isEmpty);
+    }
+
+    @Test
+    public void testInvalidRequest() {
+        TestPublisher source = new TestPublisher();
+        subscribe(4, WaitStrategy.PARK, source);
+        subscription.request(0);
+        awaitUntil(() -> error != null);
+        Assert.assertTrue(error instanceof IllegalArgumentException);
+        Assert.assertTrue(source.cancelled);
+    }
+
+    private void subscribe(int ringBufferSize, WaitStrategy waitStrategy, TestPublisher... sources) {
+        RingBufferPublisher publisher = new RingBufferPublisher("in", Arrays.asList(sources), ringBufferSize, waitStrategy, active);
+        publisher.subscribe(new Subscriber<Message<?>>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+            }
+
+            @Override
+            public void onNext(Message<?> message) {
+                received.add(message.getPayload());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                error = t;
+            }
+
+            @Override
+            public void onComplete() {
+                completed = true;
+            }
+        });
+    }
+
+    private void assertNoMoreMessages(int expected) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Assert.assertEquals(expected, received.size());
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Timed out", System.nanoTime() < deadline);
+            Thread.yield();
+        }
+    }
+
+    private static class TestPublisher implements Publisher<Message<?>> {
+
+        final List<Long> requests = new CopyOnWriteArrayList<>();
+        volatile Subscriber<? super Message<?>> subscriber;
+        volatile boolean cancelled;
+        private int next;
+
+        @Override
+        public void subscribe(Subscriber<? super Message<?>> s) {
+            s.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    requests.add(n);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+            subscriber = s;
+        }
+
+        void send(int count) {
+            for (int i = 0; i < count; i++) {
+                subscriber.onNext(Message.of(next++));
+            }
+        }
+    }
+}
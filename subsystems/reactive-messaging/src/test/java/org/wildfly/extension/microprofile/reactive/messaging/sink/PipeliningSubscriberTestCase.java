@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.messaging.sink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetrics;
+import org.wildfly.extension.microprofile.reactive.messaging.metrics.ChannelMetricsRegistry;
+
+/**
+ * Tests the {@link PipeliningSubscriber} with sinks sending one message at a time, like the Kafka connector's.
+ */
+public class PipeliningSubscriberTestCase {
+
+    private final List<Sink> sinks = new ArrayList<>();
+    private final List<Object> sent = new ArrayList<>();
+    private long requested;
+    private boolean cancelled;
+
+    @Test
+    public void testInflightMessages() {
+        ChannelMetrics metrics = new ChannelMetricsRegistry().getChannelMetrics("out");
+        PipeliningSubscriber subscriber = subscribe(3, metrics);
+        Assert.assertEquals(3, requested);
+
+        for (int i = 0; i < 3; i++) {
+            subscriber.onNext(Message.of(i));
+        }
+        Assert.assertEquals(3, metrics.getSendsInFlight());
+        Assert.assertEquals(3, requested);
+
+        // The second send completes first, and its sink gets the next message
+        sinks.get(1).sent();
+        Assert.assertEquals(4, requested);
+        Assert.assertEquals(2, metrics.getSendsInFlight());
+        subscriber.onNext(Message.of(3));
+        Assert.assertEquals(2, sinks.get(1).messages.size());
+        Assert.assertEquals(3, metrics.getSendsInFlight());
+
+        for (Sink sink : sinks) {
+            sink.sent();
+        }
+        Assert.assertEquals(0, metrics.getSendsInFlight());
+        // The messages were handed to the connector in order
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), sent);
+
+        subscriber.onComplete();
+        for (Sink sink : sinks) {
+            Assert.assertTrue(sink.completed);
+        }
+    }
+
+    @Test
+    public void testCancel() {
+        subscribe(2, null);
+        sinks.get(0).subscription.cancel();
+        Assert.assertTrue(cancelled);
+    }
+
+    @Test
+    public void testUnrequestedMessage() {
+        PipeliningSubscriber subscriber = subscribe(2, null);
+        subscriber.onNext(Message.of(0));
+        subscriber.onNext(Message.of(1));
+        subscriber.onNext(Message.of(2));
+        Assert.assertTrue(cancelled);
+        for (Sink sink : sinks) {
+            Assert.assertTrue(sink.failure instanceof IllegalStateException);
+        }
+        Assert.assertEquals(Arrays.asList(0, 1), sent);
+    }
+
+    private PipeliningSubscriber subscribe(int instances, ChannelMetrics metrics) {
+        PipeliningSubscriber subscriber = new PipeliningSubscriber(instances, () -> {
+            Sink sink = new Sink();
+            sinks.add(sink);
+            return sink;
+        }, metrics);
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                requested += n;
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+        });
+        return subscriber;
+    }
+
+    private class Sink implements Subscriber<Message<?>> {
+        final List<Message<?>> messages = new ArrayList<>();
+        Subscription subscription;
+        Throwable failure;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(Message<?> message) {
+            messages.add(message);
+            PipeliningSubscriberTestCase.this.sent.add(message.getPayload());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            failure = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        void sent() {
+            subscription.request(1);
+        }
+    }
+}
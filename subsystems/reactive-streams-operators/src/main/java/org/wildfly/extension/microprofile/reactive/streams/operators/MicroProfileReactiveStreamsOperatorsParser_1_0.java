@@ -32,6 +32,9 @@ public class MicroProfileReactiveStreamsOperatorsParser_1_0 extends PersistentRe
 
     static {
         xmlDescription = builder(MicroProfileReactiveStreamsOperatorsExtension.SUBSYSTEM_PATH, NAMESPACE)
+                .addAttribute(MicroProfileReactiveStreamsOperatorsSubsystemDefinition.ENGINE)
+                .addAttribute(MicroProfileReactiveStreamsOperatorsSubsystemDefinition.STATISTICS_ENABLED)
+                .addAttribute(MicroProfileReactiveStreamsOperatorsSubsystemDefinition.PARALLEL_POOL_SIZE)
                 .build();
     }
 
@@ -17,24 +17,44 @@
 package org.wildfly.extension.microprofile.reactive.streams.operators;
 
 import static org.jboss.as.controller.OperationContext.Stage.RUNTIME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
 import static org.jboss.as.server.deployment.Phase.DEPENDENCIES;
+import static org.jboss.as.server.deployment.Phase.POST_MODULE;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
+import org.eclipse.microprofile.reactive.streams.operators.core.ReactiveStreamsEngineResolver;
 import org.jboss.as.controller.AbstractBoottimeAddStepHandler;
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.AbstractWriteAttributeHandler;
 import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.ModelOnlyRemoveStepHandler;
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
 import org.jboss.as.controller.PersistentResourceDefinition;
+import org.jboss.as.controller.ReloadRequiredWriteAttributeHandler;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.SimpleMapAttributeDefinition;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.capability.RuntimeCapability;
+import org.jboss.as.controller.operations.validation.EnumValidator;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.server.AbstractDeploymentChainStep;
 import org.jboss.as.server.DeploymentProcessorTarget;
 import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
 import org.wildfly.extension.microprofile.reactive.streams.operators._private.MicroProfileReactiveStreamsOperatorsLogger;
+import org.wildfly.extension.microprofile.reactive.streams.operators.deployment.ReactiveStreamsEngineProcessor;
 import org.wildfly.extension.microprofile.reactive.streams.operators.deployment.ReactiveStreamsOperatorsDependencyProcessor;
+import org.wildfly.extension.microprofile.reactive.streams.operators.engine.EngineMetrics;
+import org.wildfly.extension.microprofile.reactive.streams.operators.engine.EngineType;
+import org.wildfly.extension.microprofile.reactive.streams.operators.engine.SwitchableEngine;
 
 /**
  * @author <a href="mailto:kabir.khan@jboss.com">Kabir Khan</a>
@@ -48,6 +68,40 @@ public class MicroProfileReactiveStreamsOperatorsSubsystemDefinition extends Per
             .addRequirements(MicroProfileReactiveStreamsOperatorsExtension.WELD_CAPABILITY_NAME)
             .build();
 
+    /**
+     * Can be written without a reload, as the {@link SwitchableEngine} builds the graphs of all the deployments.
+     */
+    static final SimpleAttributeDefinition ENGINE = new SimpleAttributeDefinitionBuilder("engine", ModelType.STRING)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(EngineType.SMALLRYE.toString()))
+            .setValidator(EnumValidator.create(EngineType.class))
+            .build();
+
+    /**
+     * Can be written without a reload too. Metering the graphs costs a wrapper per subscription, so it is off by default.
+     */
+    static final SimpleAttributeDefinition STATISTICS_ENABLED = new SimpleAttributeDefinitionBuilder("statistics-enabled", ModelType.BOOLEAN)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setDefaultValue(new ModelNode(false))
+            .build();
+
+    static final SimpleAttributeDefinition PARALLEL_POOL_SIZE = new SimpleAttributeDefinitionBuilder("parallel-pool-size", ModelType.INT)
+            .setRequired(false)
+            .setAllowExpression(true)
+            .setValidator(new IntRangeValidator(1, true, true))
+            .setRestartAllServices()
+            .build();
+
+    // The metrics of each engine, keyed by its name
+    static final SimpleMapAttributeDefinition GRAPHS_BUILT = engineMetric("graphs-built", ModelType.LONG);
+    static final SimpleMapAttributeDefinition GRAPHS_RUN = engineMetric("graphs-run", ModelType.LONG);
+    static final SimpleMapAttributeDefinition ACTIVE_SUBSCRIPTIONS = engineMetric("active-subscriptions", ModelType.LONG);
+    static final SimpleMapAttributeDefinition AVERAGE_STAGES_PER_GRAPH = engineMetric("average-stages-per-graph", ModelType.DOUBLE);
+
+    static final AttributeDefinition[] METRICS = {GRAPHS_BUILT, GRAPHS_RUN, ACTIVE_SUBSCRIPTIONS, AVERAGE_STAGES_PER_GRAPH};
+
     public MicroProfileReactiveStreamsOperatorsSubsystemDefinition() {
         super(
                 new SimpleResourceDefinition.Parameters(
@@ -61,7 +115,31 @@ public class MicroProfileReactiveStreamsOperatorsSubsystemDefinition extends Per
 
     @Override
     public Collection<AttributeDefinition> getAttributes() {
-        return Collections.emptyList();
+        return Arrays.asList(ENGINE, STATISTICS_ENABLED, PARALLEL_POOL_SIZE);
+    }
+
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        resourceRegistration.registerReadWriteAttribute(ENGINE, null, EngineWriteHandler.INSTANCE);
+        resourceRegistration.registerReadWriteAttribute(STATISTICS_ENABLED, null, StatisticsEnabledWriteHandler.INSTANCE);
+        resourceRegistration.registerReadWriteAttribute(PARALLEL_POOL_SIZE, null, new ReloadRequiredWriteAttributeHandler(PARALLEL_POOL_SIZE));
+        for (AttributeDefinition metric : METRICS) {
+            resourceRegistration.registerMetric(metric, EngineMetricsHandler.INSTANCE);
+        }
+    }
+
+    /**
+     * Graphs run without an explicit engine use the one of the resolver, which the deployments share. With the
+     * defaults, that is the engine {@code ServiceLoader} finds, as without the subsystem, and the graphs are not metered.
+     */
+    private static void updateResolver() {
+        ReactiveStreamsEngineResolver.setInstance(SwitchableEngine.INSTANCE.isRequired() ? SwitchableEngine.INSTANCE : null);
+    }
+
+    private static SimpleMapAttributeDefinition engineMetric(String name, ModelType type) {
+        return new SimpleMapAttributeDefinition.Builder(name, type, true)
+                .setStorageRuntime()
+                .build();
     }
 
     static class AddHandler extends AbstractBoottimeAddStepHandler {
@@ -69,24 +147,109 @@ public class MicroProfileReactiveStreamsOperatorsSubsystemDefinition extends Per
         static AddHandler INSTANCE = new AddHandler();
 
         private AddHandler() {
-            super(Collections.emptyList());
+            super(ENGINE, STATISTICS_ENABLED, PARALLEL_POOL_SIZE);
         }
 
         @Override
         protected void performBoottime(OperationContext context, ModelNode operation, ModelNode model) throws OperationFailedException {
             super.performBoottime(context, operation, model);
 
+            SwitchableEngine.INSTANCE.setEngineType(EngineType.forName(ENGINE.resolveModelAttribute(context, model).asString()));
+            SwitchableEngine.INSTANCE.setStatisticsEnabled(STATISTICS_ENABLED.resolveModelAttribute(context, model).asBoolean());
+            updateResolver();
+
+            // The parallel stages use the common pool, unless they get a pool of their own
+            final ModelNode parallelPoolSize = PARALLEL_POOL_SIZE.resolveModelAttribute(context, model);
+            final Executor previous = ParallelMapExecutor.set(parallelPoolSize.isDefined() ? new ForkJoinPool(parallelPoolSize.asInt()) : ForkJoinPool.commonPool());
+            if (previous != ForkJoinPool.commonPool()) {
+                ((ExecutorService) previous).shutdown();
+            }
+
             context.addStep(new AbstractDeploymentChainStep() {
                 public void execute(DeploymentProcessorTarget processorTarget) {
 
                     // TODO Put these into Phase.java
                     final int DEPENDENCIES_MICROPROFILE_REACTIVE_STREAMS_OPERATORS = 6288;
+                    final int POST_MODULE_MICROPROFILE_REACTIVE_STREAMS_OPERATORS = 14268;
 
                     processorTarget.addDeploymentProcessor(MicroProfileReactiveStreamsOperatorsExtension.SUBSYSTEM_NAME, DEPENDENCIES, DEPENDENCIES_MICROPROFILE_REACTIVE_STREAMS_OPERATORS, new ReactiveStreamsOperatorsDependencyProcessor());
+                    processorTarget.addDeploymentProcessor(MicroProfileReactiveStreamsOperatorsExtension.SUBSYSTEM_NAME, POST_MODULE, POST_MODULE_MICROPROFILE_REACTIVE_STREAMS_OPERATORS, new ReactiveStreamsEngineProcessor(MicroProfileReactiveStreamsOperatorsExtension.WELD_CAPABILITY_NAME));
                 }
             }, RUNTIME);
 
             MicroProfileReactiveStreamsOperatorsLogger.LOGGER.activatingSubsystem();
         }
     }
+
+    private static class EngineWriteHandler extends AbstractWriteAttributeHandler<EngineType> {
+
+        static final EngineWriteHandler INSTANCE = new EngineWriteHandler();
+
+        private EngineWriteHandler() {
+            super(ENGINE);
+        }
+
+        @Override
+        protected boolean applyUpdateToRuntime(OperationContext context, ModelNode operation, String attributeName, ModelNode resolvedValue,
+                                               ModelNode currentValue, HandbackHolder<EngineType> handbackHolder) {
+            handbackHolder.setHandback(SwitchableEngine.INSTANCE.setEngineType(EngineType.forName(resolvedValue.asString())));
+            updateResolver();
+            return false;
+        }
+
+        @Override
+        protected void revertUpdateToRuntime(OperationContext context, ModelNode operation, String attributeName, ModelNode valueToRestore,
+                                             ModelNode valueToRevert, EngineType handback) {
+            SwitchableEngine.INSTANCE.setEngineType(handback);
+            updateResolver();
+        }
+    }
+
+    private static class StatisticsEnabledWriteHandler extends AbstractWriteAttributeHandler<Boolean> {
+
+        static final StatisticsEnabledWriteHandler INSTANCE = new StatisticsEnabledWriteHandler();
+
+        private StatisticsEnabledWriteHandler() {
+            super(STATISTICS_ENABLED);
+        }
+
+        @Override
+        protected boolean applyUpdateToRuntime(OperationContext context, ModelNode operation, String attributeName, ModelNode resolvedValue,
+                                               ModelNode currentValue, HandbackHolder<Boolean> handbackHolder) {
+            handbackHolder.setHandback(SwitchableEngine.INSTANCE.setStatisticsEnabled(resolvedValue.asBoolean()));
+            updateResolver();
+            return false;
+        }
+
+        @Override
+        protected void revertUpdateToRuntime(OperationContext context, ModelNode operation, String attributeName, ModelNode valueToRestore,
+                                             ModelNode valueToRevert, Boolean handback) {
+            SwitchableEngine.INSTANCE.setStatisticsEnabled(handback);
+            updateResolver();
+        }
+    }
+
+    private static class EngineMetricsHandler extends AbstractRuntimeOnlyHandler {
+
+        static final EngineMetricsHandler INSTANCE = new EngineMetricsHandler();
+
+        @Override
+        protected void executeRuntimeStep(OperationContext context, ModelNode operation) {
+            final String attributeName = operation.require(NAME).asString();
+            final ModelNode result = context.getResult();
+            for (EngineType engineType : EngineType.values()) {
+                final EngineMetrics metrics = SwitchableEngine.INSTANCE.getMetrics(engineType);
+                final ModelNode value = result.get(engineType.toString());
+                if (GRAPHS_BUILT.getName().equals(attributeName)) {
+                    value.set(metrics.getGraphsBuilt());
+                } else if (GRAPHS_RUN.getName().equals(attributeName)) {
+                    value.set(metrics.getGraphsRun());
+                } else if (ACTIVE_SUBSCRIPTIONS.getName().equals(attributeName)) {
+                    value.set(metrics.getActiveSubscriptions());
+                } else if (AVERAGE_STAGES_PER_GRAPH.getName().equals(attributeName)) {
+                    value.set(metrics.getAverageStagesPerGraph());
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holds the executor the parallel map stages of {@code ParallelStages} run on, unless given another one. That is the
+ * {@link ForkJoinPool} created for the subsystem's {@code parallel-pool-size} attribute, or the common pool if it is
+ * undefined.
+ * <p>
+ * This is kept apart from {@code ParallelStages}, as the deployments can see all the classes of its package.
+ */
+public final class ParallelMapExecutor {
+
+    private static volatile Executor executor = ForkJoinPool.commonPool();
+
+    private ParallelMapExecutor() {
+    }
+
+    public static Executor get() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor.
+     *
+     * @return the previous executor
+     */
+    static Executor set(Executor executor) {
+        final Executor previous = ParallelMapExecutor.executor;
+        ParallelMapExecutor.executor = executor;
+        return previous;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.deployment;
+
+import org.jboss.as.controller.capability.CapabilityServiceSupport;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentPhaseContext;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.as.weld.WeldCapability;
+import org.wildfly.extension.microprofile.reactive.streams.operators._private.MicroProfileReactiveStreamsOperatorsLogger;
+import org.wildfly.extension.microprofile.reactive.streams.operators.engine.ReactiveStreamsEngineExtension;
+
+/**
+ * Lets the CDI deployments using Reactive Streams (Operators) inject the engine installed by the subsystem, so the
+ * graphs they run with it are built with the engine selected by the subsystem's {@code engine} attribute, and are
+ * counted in its metrics.
+ */
+public class ReactiveStreamsEngineProcessor implements DeploymentUnitProcessor {
+
+    private final String weldCapabilityName;
+
+    public ReactiveStreamsEngineProcessor(String weldCapabilityName) {
+        this.weldCapabilityName = weldCapabilityName;
+    }
+
+    @Override
+    public void deploy(DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
+        final DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
+        if (deploymentUnit.getAttachment(ReactiveStreamsOperatorsAttachments.USES_REACTIVE_STREAMS) == null) {
+            return;
+        }
+
+        final CapabilityServiceSupport support = deploymentUnit.getAttachment(Attachments.CAPABILITY_SERVICE_SUPPORT);
+        final WeldCapability weldCapability;
+        try {
+            weldCapability = support.getCapabilityRuntimeAPI(weldCapabilityName, WeldCapability.class);
+        } catch (CapabilityServiceSupport.NoSuchCapabilityException e) {
+            throw MicroProfileReactiveStreamsOperatorsLogger.LOGGER.deploymentRequiresCapability(deploymentUnit.getName(), weldCapabilityName);
+        }
+        if (weldCapability.isPartOfWeldDeployment(deploymentUnit)) {
+            weldCapability.registerExtensionInstance(new ReactiveStreamsEngineExtension(), deploymentUnit);
+        }
+    }
+
+    @Override
+    public void undeploy(DeploymentUnit context) {
+    }
+}
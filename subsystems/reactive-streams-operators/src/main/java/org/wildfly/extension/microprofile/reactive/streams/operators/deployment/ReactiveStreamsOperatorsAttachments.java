@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.deployment;
+
+import org.jboss.as.server.deployment.AttachmentKey;
+
+/**
+ * Deployment unit attachments used by the Reactive Streams Operators subsystem.
+ */
+public final class ReactiveStreamsOperatorsAttachments {
+
+    /**
+     * Marks the deployments whose annotations or class signatures refer to Reactive Streams (Operators), so the engine
+     * is made injectable in them. The modules of its API and engine are added to every deployment.
+     */
+    public static final AttachmentKey<Boolean> USES_REACTIVE_STREAMS = AttachmentKey.create(Boolean.class);
+
+    private ReactiveStreamsOperatorsAttachments() {
+    }
+}
@@ -16,29 +16,131 @@
 
 package org.wildfly.extension.microprofile.reactive.streams.operators.deployment;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 import org.jboss.as.server.deployment.Attachments;
 import org.jboss.as.server.deployment.DeploymentPhaseContext;
 import org.jboss.as.server.deployment.DeploymentUnit;
 import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.as.server.deployment.annotation.CompositeIndex;
 import org.jboss.as.server.deployment.module.ModuleDependency;
 import org.jboss.as.server.deployment.module.ModuleSpecification;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.FieldInfo;
+import org.jboss.jandex.MethodInfo;
+import org.jboss.jandex.Type;
 import org.jboss.modules.Module;
 import org.jboss.modules.ModuleLoader;
+import org.jboss.modules.filter.PathFilters;
 
 /**
  * @author <a href="mailto:kabir.khan@jboss.com">Kabir Khan</a>
  */
 public class ReactiveStreamsOperatorsDependencyProcessor implements DeploymentUnitProcessor {
 
+    /**
+     * Reactive Messaging methods are built on Reactive Streams Operators, whichever types their signatures use
+     */
+    private static final DotName[] REACTIVE_MESSAGING_ANNOTATIONS = {
+            DotName.createSimple("org.eclipse.microprofile.reactive.messaging.Incoming"),
+            DotName.createSimple("org.eclipse.microprofile.reactive.messaging.Outgoing"),
+            DotName.createSimple("io.smallrye.reactive.messaging.annotations.Channel"),
+            DotName.createSimple("io.smallrye.reactive.messaging.annotations.Stream")
+    };
+
+    private static final String[] REACTIVE_PACKAGES = {
+            "org.eclipse.microprofile.reactive.streams.operators.",
+            "org.reactivestreams."
+    };
+
+    private static final String API_MODULE = "org.eclipse.microprofile.reactive-streams-operators.api";
+
+    private static final String SUBSYSTEM_MODULE = "org.wildfly.extension.microprofile.reactive-streams-operators-smallrye";
+
+    private static final String[] STAGE_PACKAGES = {
+            "org/wildfly/extension/microprofile/reactive/streams/operators/parallel",
+            "org/wildfly/extension/microprofile/reactive/streams/operators/primitive"
+    };
+
+    private static final Set<DotName> CONTEXT_PROPAGATION_TYPES = new HashSet<>(Arrays.asList(
+            DotName.createSimple("org.eclipse.microprofile.context.ManagedExecutor"),
+            DotName.createSimple("org.eclipse.microprofile.context.ThreadContext")));
+
     @Override
     public void deploy(DeploymentPhaseContext phaseContext) {
         DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
 
+        // The APIs may be used in method bodies only, e.g. ReactiveStreams.of(...), which the index does not cover, so
+        // the modules are added to every deployment
         addModuleDependencies(deploymentUnit);
+
+        // Injecting the engine, or anything built on it, needs an injection point the index does cover
+        final CompositeIndex index = deploymentUnit.getAttachment(Attachments.COMPOSITE_ANNOTATION_INDEX);
+        if (index == null || usesReactiveStreams(index)) {
+            deploymentUnit.putAttachment(ReactiveStreamsOperatorsAttachments.USES_REACTIVE_STREAMS, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Whether the deployment uses Reactive Messaging, or has a class whose supertypes, fields or method signatures
+     * refer to the Reactive Streams (Operators) APIs or a context propagation executor.
+     */
+    private static boolean usesReactiveStreams(CompositeIndex index) {
+        for (DotName annotation : REACTIVE_MESSAGING_ANNOTATIONS) {
+            if (!index.getAnnotations(annotation).isEmpty()) {
+                return true;
+            }
+        }
+        for (ClassInfo classInfo : index.getKnownClasses()) {
+            if (isReactive(classInfo.superName())) {
+                return true;
+            }
+            for (DotName interfaceName : classInfo.interfaceNames()) {
+                if (isReactive(interfaceName)) {
+                    return true;
+                }
+            }
+            for (FieldInfo field : classInfo.fields()) {
+                if (isReactive(field.type().name())) {
+                    return true;
+                }
+            }
+            for (MethodInfo method : classInfo.methods()) {
+                if (isReactive(method.returnType().name())) {
+                    return true;
+                }
+                for (Type parameter : method.parameters()) {
+                    if (isReactive(parameter.name())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isReactive(DotName name) {
+        if (name == null) {
+            return false;
+        }
+        if (CONTEXT_PROPAGATION_TYPES.contains(name)) {
+            return true;
+        }
+        final String className = name.toString();
+        for (String reactivePackage : REACTIVE_PACKAGES) {
+            if (className.startsWith(reactivePackage)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public void undeploy(DeploymentUnit context) {
+        context.removeAttachment(ReactiveStreamsOperatorsAttachments.USES_REACTIVE_STREAMS);
     }
 
     private void addModuleDependencies(DeploymentUnit deploymentUnit) {
@@ -46,8 +148,16 @@ public class ReactiveStreamsOperatorsDependencyProcessor implements DeploymentUn
         final ModuleLoader moduleLoader = Module.getBootModuleLoader();
 
         moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, "org.eclipse.microprofile.reactive-streams-operators.core", false, false, true, false));
-        moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, "org.eclipse.microprofile.reactive-streams-operators.api", false, false, true, false));
+        moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, API_MODULE, false, false, true, false));
         moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, "org.reactivestreams", false, false, true, false));
         moduleSpecification.addSystemDependency(new ModuleDependency(moduleLoader, "io.smallrye.reactive.streams-operators", false, false, true, false));
+
+        // Of the subsystem itself, the deployments only see the parallel and primitive stages
+        final ModuleDependency subsystem = new ModuleDependency(moduleLoader, SUBSYSTEM_MODULE, false, false, false, false);
+        for (String stagePackage : STAGE_PACKAGES) {
+            subsystem.addImportFilter(PathFilters.is(stagePackage), true);
+        }
+        subsystem.addImportFilter(PathFilters.acceptAll(), false);
+        moduleSpecification.addSystemDependency(subsystem);
     }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.engine;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics collected for an engine. All the counters are {@link LongAdder}s, so threads building and running
+ * graphs at the same time do not contend on a single memory location.
+ */
+public final class EngineMetrics {
+
+    private final LongAdder graphsBuilt = new LongAdder();
+    private final LongAdder graphsRun = new LongAdder();
+    private final LongAdder stages = new LongAdder();
+    private final LongAdder activeSubscriptions = new LongAdder();
+
+    EngineMetrics() {
+    }
+
+    void graphBuilt(int stageCount) {
+        graphsBuilt.increment();
+        stages.add(stageCount);
+    }
+
+    void graphRun() {
+        graphsRun.increment();
+    }
+
+    void subscribed() {
+        activeSubscriptions.increment();
+    }
+
+    void unsubscribed() {
+        activeSubscriptions.decrement();
+    }
+
+    /**
+     * The number of graphs built, including the ones which are run.
+     */
+    public long getGraphsBuilt() {
+        return graphsBuilt.sum();
+    }
+
+    /**
+     * The number of graphs run, e.g. by {@code run()}, rather than built into a publisher, subscriber or processor.
+     */
+    public long getGraphsRun() {
+        return graphsRun.sum();
+    }
+
+    /**
+     * The number of subscriptions to the built graphs which have neither completed, failed nor been cancelled yet,
+     * counting a graph being run as one.
+     */
+    public long getActiveSubscriptions() {
+        return activeSubscriptions.sum();
+    }
+
+    public double getAverageStagesPerGraph() {
+        final long graphs = graphsBuilt.sum();
+        return graphs == 0 ? 0 : (double) stages.sum() / graphs;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.engine;
+
+import io.smallrye.reactive.streams.Engine;
+import org.eclipse.microprofile.reactive.streams.operators.spi.ReactiveStreamsEngine;
+
+/**
+ * The {@link ReactiveStreamsEngine}s the subsystem can run the graphs of the deployments with.
+ */
+public enum EngineType {
+
+    SMALLRYE("smallrye") {
+        @Override
+        public ReactiveStreamsEngine newEngine() {
+            return new Engine();
+        }
+    },
+    FUSING("fusing") {
+        @Override
+        public ReactiveStreamsEngine newEngine() {
+            return new FusingEngine();
+        }
+    },
+    ;
+
+    private final String name;
+
+    EngineType(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    public static EngineType forName(String name) {
+        for (EngineType type : values()) {
+            if (type.name.equals(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    public abstract ReactiveStreamsEngine newEngine();
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.engine;
+
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * A {@link Collector} which passes each element through a run of {@link FusedStep}s before accumulating it, so the
+ * stages preceding a collect stage do not need operators of their own.
+ * <p>
+ * Failures of the steps are thrown by the accumulator, which fails the collection and cancels upstream, just as a
+ * failing stage would.
+ */
+final class FusedCollector<A, R> implements Collector<Object, A, R> {
+
+    private final FusedStep[] steps;
+    private final Collector<Object, A, R> collector;
+    private final BiConsumer<A, Object> accumulator;
+
+    FusedCollector(FusedStep[] steps, Collector<Object, A, R> collector) {
+        this.steps = steps;
+        this.collector = collector;
+        this.accumulator = collector.accumulator();
+    }
+
+    @Override
+    public Supplier<A> supplier() {
+        return collector.supplier();
+    }
+
+    @Override
+    public BiConsumer<A, Object> accumulator() {
+        return (container, element) -> {
+            final Object result = FusedStep.applyAll(steps, element);
+            if (result != FusedStep.DROP) {
+                accumulator.accept(container, result);
+            }
+        };
+    }
+
+    @Override
+    public BinaryOperator<A> combiner() {
+        return collector.combiner();
+    }
+
+    @Override
+    public Function<A, R> finisher() {
+        return collector.finisher();
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return collector.characteristics();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.engine;
+
+import java.util.Objects;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Publishes the elements of a source after passing them through a run of {@link FusedStep}s, in a single loop per
+ * element rather than through an operator per stage.
+ * <p>
+ * Each subscriber gets a subscription to the source of its own, so this can be subscribed to as often as the source.
+ * Requests are passed to the source unchanged, which also makes it the one signalling invalid requests.
+ */
+final class FusedPublisher implements Publisher<Object> {
+
+    private final Publisher<?> source;
+    private final FusedStep[] steps;
+
+    FusedPublisher(Publisher<?> source, FusedStep[] steps) {
+        this.source = source;
+        this.steps = steps;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Object> subscriber) {
+        Objects.requireNonNull(subscriber);
+        source.subscribe(new FusedSubscriber(steps, subscriber));
+    }
+
+    private static final class FusedSubscriber implements Subscriber<Object>, Subscription {
+
+        private final FusedStep[] steps;
+        private final Subscriber<? super Object> downstream;
+        private Subscription upstream;
+        private boolean done;
+
+        FusedSubscriber(FusedStep[] steps, Subscriber<? super Object> downstream) {
+            this.steps = steps;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(Object element) {
+            if (done) {
+                return;
+            }
+            final Object result;
+            try {
+                result = FusedStep.applyAll(steps, element);
+            } catch (Throwable t) {
+                done = true;
+                upstream.cancel();
+                downstream.onError(t);
+                return;
+            }
+            if (result == FusedStep.DROP) {
+                upstream.request(1);
+            } else if (result == FusedStep.STOP) {
+                done = true;
+                upstream.cancel();
+                downstream.onComplete();
+            } else {
+                downstream.onNext(result);
+            }
+        }
+
+        @Override
+        public void onError(Throwable failure) {
+            if (!done) {
+                done = true;
+                downstream.onError(failure);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!done) {
+                done = true;
+                downstream.onComplete();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.engine;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.eclipse.microprofile.reactive.streams.operators.spi.Stage;
+
+/**
+ * A synchronous stage applied to each element inside a fused loop, rather than by an operator of its own.
+ */
+abstract class FusedStep {
+
+    /**
+     * Returned by {@link #apply(Object)} if the element is filtered out.
+     */
+    static final Object DROP = new Object();
+
+    /**
+     * Returned by {@link #apply(Object)} if the element ends the stream, which is completed without it.
+     */
+    static final Object STOP = new Object();
+
+    /**
+     * Applies this step to an element.
+     *
+     * @return the element to pass on, {@link #DROP} or {@link #STOP}
+     */
+    abstract Object apply(Object element);
+
+    /**
+     * Whether the stage can be fused into a loop over the elements.
+     */
+    static boolean isFusable(Stage stage) {
+        return isFoldable(stage) || stage instanceof Stage.TakeWhile;
+    }
+
+    /**
+     * Whether the stage can be folded into the accumulator of a following {@link Stage.Collect}, which unlike
+     * {@link Stage.TakeWhile} needs it to neither end the stream nor cancel upstream.
+     */
+    static boolean isFoldable(Stage stage) {
+        return stage instanceof Stage.Map || stage instanceof Stage.Filter || stage instanceof Stage.Peek;
+    }
+
+    /**
+     * Applies the steps to an element in turn.
+     *
+     * @return the element to pass on, {@link #DROP} or {@link #STOP}
+     */
+    static Object applyAll(FusedStep[] steps, Object element) {
+        Object result = element;
+        for (FusedStep step : steps) {
+            result = step.apply(result);
+            if (result == DROP || result == STOP) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    static FusedStep[] of(List<Stage> stages) {
+        final FusedStep[] steps = new FusedStep[stages.size()];
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = of(stages.get(i));
+        }
+        return steps;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FusedStep of(Stage stage) {
+        if (stage instanceof Stage.Map) {
+            return new MapStep((Function<Object, Object>) ((Stage.Map) stage).getMapper());
+        } else if (stage instanceof Stage.Filter) {
+            return new FilterStep((Predicate<Object>) ((Stage.Filter) stage).getPredicate());
+        } else if (stage instanceof Stage.Peek) {
+            return new PeekStep((Consumer<Object>) ((Stage.Peek) stage).getConsumer());
+        } else if (stage instanceof Stage.TakeWhile) {
+            return new TakeWhileStep((Predicate<Object>) ((Stage.TakeWhile) stage).getPredicate());
+        }
+        throw new IllegalArgumentException(stage.toString());
+    }
+
+    private static final class MapStep extends FusedStep {
+        private final Function<Object, Object> mapper;
+
+        MapStep(Function<Object, Object> mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        Object apply(Object element) {
+            final Object result = mapper.apply(element);
+            if (result == null) {
+                throw new NullPointerException("The mapper returned null");
+            }
+            return result;
+        }
+    }
+
+    private static final class FilterStep extends FusedStep {
+        private final Predicate<Object> predicate;
+
+        FilterStep(Predicate<Object> predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        Object apply(Object element) {
+            return predicate.test(element) ? element : DROP;
+        }
+    }
+
+    private static final class PeekStep extends FusedStep {
+        private final Consumer<Object> consumer;
+
+        PeekStep(Consumer<Object> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        Object apply(Object element) {
+            consumer.accept(element);
+            return element;
+        }
+    }
+
+    private static final class TakeWhileStep extends FusedStep {
+        private final Predicate<Object> predicate;
+
+        TakeWhileStep(Predicate<Object> predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        Object apply(Object element) {
+            return predicate.test(element) ? element : STOP;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+
+import io.smallrye.reactive.streams.Engine;
+import org.eclipse.microprofile.reactive.streams.operators.spi.Graph;
+import org.eclipse.microprofile.reactive.streams.operators.spi.ReactiveStreamsEngine;
+import org.eclipse.microprofile.reactive.streams.operators.spi.Stage;
+import org.eclipse.microprofile.reactive.streams.operators.spi.SubscriberWithCompletionStage;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+
+/**
+ * A {@link ReactiveStreamsEngine} fusing adjacent synchronous stages, so they are applied to each element in a single
+ * loop instead of by an operator per stage, each with its own subscription and request handling.
+ * <p>
+ * Runs of map, filter, peek and takeWhile stages following a publisher are fused into a {@link FusedPublisher}.
+ * Map, filter and peek stages preceding a collect stage are folded into its collector, which also applies to the
+ * graphs of subscribers. Everything else, including the asynchronous stages, is built by the SmallRye engine, as are
+ * the graphs of processors, which have no publisher to fuse the stages onto.
+ * <p>
+ * Graphs which only transform elements already in memory into a result, which are run to completion on the calling
+ * thread anyway, are evaluated in a loop right away.
+ */
+public class FusingEngine implements ReactiveStreamsEngine {
+
+    private final ReactiveStreamsEngine delegate;
+
+    public FusingEngine() {
+        this(new Engine());
+    }
+
+    FusingEngine(ReactiveStreamsEngine delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Publisher<T> buildPublisher(Graph graph) {
+        final List<Stage> stages = fuse(graph.getStages(), true);
+        if (stages != null && stages.size() == 1 && stages.get(0) instanceof Stage.PublisherStage) {
+            return (Publisher<T>) ((Stage.PublisherStage) stages.get(0)).getRsPublisher();
+        }
+        return delegate.buildPublisher(graphOf(graph, stages));
+    }
+
+    @Override
+    public <T, R> SubscriberWithCompletionStage<T, R> buildSubscriber(Graph graph) {
+        return delegate.buildSubscriber(graphOf(graph, fuse(graph.getStages(), false)));
+    }
+
+    @Override
+    public <T, R> Processor<T, R> buildProcessor(Graph graph) {
+        return delegate.buildProcessor(graph);
+    }
+
+    @Override
+    public <T> CompletionStage<T> buildCompletion(Graph graph) {
+        final CompletionStage<T> completed = runInMemory(graph.getStages());
+        if (completed != null) {
+            return completed;
+        }
+        return delegate.buildCompletion(graphOf(graph, fuse(graph.getStages(), true)));
+    }
+
+    /**
+     * Runs a graph made of elements already in memory, fusable stages and a collect stage, such as
+     * {@code ReactiveStreams.of(...).map(...).toList()}, as a plain loop on the calling thread. That is where such a
+     * graph would run anyway, but this does without any subscriptions.
+     *
+     * @return the completed or failed result of the graph, or {@code null} if the graph is not of that kind
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> CompletionStage<T> runInMemory(Collection<Stage> graphStages) {
+        if (graphStages.size() < 2) {
+            return null;
+        }
+        final Iterator<Stage> stages = graphStages.iterator();
+        final Stage first = stages.next();
+        if (!(first instanceof Stage.Of)) {
+            return null;
+        }
+        final List<Stage> fusable = new ArrayList<>(graphStages.size() - 2);
+        Stage stage = stages.next();
+        while (stages.hasNext()) {
+            if (!FusedStep.isFusable(stage)) {
+                return null;
+            }
+            fusable.add(stage);
+            stage = stages.next();
+        }
+        if (!(stage instanceof Stage.Collect)) {
+            return null;
+        }
+
+        final FusedStep[] steps = FusedStep.of(fusable);
+        final Collector<Object, Object, Object> collector = (Collector<Object, Object, Object>) ((Stage.Collect) stage).getCollector();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            final Object container = collector.supplier().get();
+            final BiConsumer<Object, Object> accumulator = collector.accumulator();
+            for (Object element : ((Stage.Of) first).getElements()) {
+                if (element == null) {
+                    throw new NullPointerException("The elements contain null");
+                }
+                final Object fused = FusedStep.applyAll(steps, element);
+                if (fused == FusedStep.STOP) {
+                    break;
+                } else if (fused != FusedStep.DROP) {
+                    accumulator.accept(container, fused);
+                }
+            }
+            result.complete((T) collector.finisher().apply(container));
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        }
+        return result;
+    }
+
+    /**
+     * Fuses the stages of a graph.
+     *
+     * @param hasSource whether the graph starts with a publisher, rather than being subscribed to
+     * @return the fused stages, or {@code null} if nothing could be fused
+     */
+    private List<Stage> fuse(Collection<Stage> graphStages, boolean hasSource) {
+        final List<Stage> stages = graphStages instanceof List ? (List<Stage>) graphStages : new ArrayList<>(graphStages);
+        final List<Stage> result = new ArrayList<>(stages.size());
+        boolean fused = false;
+        int i = 0;
+        while (i < stages.size()) {
+            if (!FusedStep.isFusable(stages.get(i))) {
+                result.add(stages.get(i++));
+                continue;
+            }
+            int end = i + 1;
+            while (end < stages.size() && FusedStep.isFusable(stages.get(end))) {
+                end++;
+            }
+            // The stages before a collect stage up to the last takeWhile are folded into the collector
+            int loopEnd = end;
+            if (end < stages.size() && stages.get(end) instanceof Stage.Collect) {
+                while (loopEnd > i && FusedStep.isFoldable(stages.get(loopEnd - 1))) {
+                    loopEnd--;
+                }
+            }
+            if (hasSource && loopEnd - i > 1) {
+                final Publisher<?> publisher = new FusedPublisher(toPublisher(result), FusedStep.of(stages.subList(i, loopEnd)));
+                result.clear();
+                result.add((Stage.PublisherStage) () -> publisher);
+                fused = true;
+            } else {
+                result.addAll(stages.subList(i, loopEnd));
+            }
+            if (loopEnd < end) {
+                result.add(fuseCollect(stages.subList(loopEnd, end), (Stage.Collect) stages.get(end)));
+                fused = true;
+                end++;
+            }
+            i = end;
+        }
+        return fused ? result : null;
+    }
+
+    private Publisher<?> toPublisher(List<Stage> stages) {
+        if (stages.size() == 1 && stages.get(0) instanceof Stage.PublisherStage) {
+            return ((Stage.PublisherStage) stages.get(0)).getRsPublisher();
+        }
+        final List<Stage> source = new ArrayList<>(stages);
+        return delegate.buildPublisher(() -> source);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Stage.Collect fuseCollect(List<Stage> stages, Stage.Collect collect) {
+        final Collector<?, ?, ?> collector = new FusedCollector<>(FusedStep.of(stages), (Collector<Object, Object, Object>) collect.getCollector());
+        return () -> collector;
+    }
+
+    private static Graph graphOf(Graph graph, List<Stage> stages) {
+        if (stages == null) {
+            return graph;
+        }
+        final Collection<Stage> fused = Collections.unmodifiableList(stages);
+        return () -> fused;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.engine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.microprofile.reactive.streams.operators.spi.Graph;
+import org.eclipse.microprofile.reactive.streams.operators.spi.ReactiveStreamsEngine;
+import org.eclipse.microprofile.reactive.streams.operators.spi.SubscriberWithCompletionStage;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A {@link ReactiveStreamsEngine} collecting the {@link EngineMetrics} of the engine it delegates to.
+ * <p>
+ * To count the active subscriptions, the built publishers and processors wrap their subscribers, and the built
+ * subscribers wrap their subscriptions. Graphs which are run count as subscribed to until their result is complete,
+ * so the graphs the {@link FusingEngine} evaluates right away are not counted at all.
+ */
+final class MeteredEngine implements ReactiveStreamsEngine {
+
+    private final ReactiveStreamsEngine delegate;
+    private final EngineMetrics metrics = new EngineMetrics();
+
+    MeteredEngine(ReactiveStreamsEngine delegate) {
+        this.delegate = delegate;
+    }
+
+    EngineMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public <T> Publisher<T> buildPublisher(Graph graph) {
+        metrics.graphBuilt(graph.getStages().size());
+        return new MeteredPublisher<>(delegate.buildPublisher(graph), metrics);
+    }
+
+    @Override
+    public <T, R> SubscriberWithCompletionStage<T, R> buildSubscriber(Graph graph) {
+        metrics.graphBuilt(graph.getStages().size());
+        final SubscriberWithCompletionStage<T, R> built = delegate.buildSubscriber(graph);
+        final Subscriber<T> subscriber = new MeteredSubscriber<>(built.getSubscriber(), metrics);
+        return new SubscriberWithCompletionStage<T, R>() {
+            @Override
+            public CompletionStage<R> getCompletion() {
+                return built.getCompletion();
+            }
+
+            @Override
+            public Subscriber<T> getSubscriber() {
+                return subscriber;
+            }
+        };
+    }
+
+    @Override
+    public <T, R> Processor<T, R> buildProcessor(Graph graph) {
+        metrics.graphBuilt(graph.getStages().size());
+        return new MeteredProcessor<>(delegate.buildProcessor(graph), metrics);
+    }
+
+    @Override
+    public <T> CompletionStage<T> buildCompletion(Graph graph) {
+        metrics.graphBuilt(graph.getStages().size());
+        metrics.graphRun();
+        final CompletionStage<T> completion = delegate.buildCompletion(graph);
+        if (completion instanceof CompletableFuture && ((CompletableFuture<T>) completion).isDone()) {
+            return completion;
+        }
+        metrics.subscribed();
+        completion.whenComplete((result, failure) -> metrics.unsubscribed());
+        return completion;
+    }
+
+    private static class MeteredPublisher<T> implements Publisher<T> {
+
+        private final Publisher<T> delegate;
+        private final EngineMetrics metrics;
+
+        MeteredPublisher(Publisher<T> delegate, EngineMetrics metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super T> subscriber) {
+            delegate.subscribe(new MeteredSubscriber<>(subscriber, metrics));
+        }
+    }
+
+    private static final class MeteredProcessor<T, R> extends MeteredPublisher<R> implements Processor<T, R> {
+
+        private final Processor<T, R> processor;
+
+        MeteredProcessor(Processor<T, R> processor, EngineMetrics metrics) {
+            super(processor, metrics);
+            this.processor = processor;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            processor.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(T element) {
+            processor.onNext(element);
+        }
+
+        @Override
+        public void onError(Throwable failure) {
+            processor.onError(failure);
+        }
+
+        @Override
+        public void onComplete() {
+            processor.onComplete();
+        }
+    }
+
+    /**
+     * Counts a subscription as active from {@code onSubscribe} until it completes, fails or is cancelled, whichever
+     * comes first.
+     */
+    private static final class MeteredSubscriber<T> implements Subscriber<T>, Subscription {
+
+        private final Subscriber<? super T> delegate;
+        private final EngineMetrics metrics;
+        private final AtomicBoolean active = new AtomicBoolean();
+        private volatile Subscription upstream;
+
+        MeteredSubscriber(Subscriber<? super T> delegate, EngineMetrics metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            upstream = subscription;
+            if (active.compareAndSet(false, true)) {
+                metrics.subscribed();
+            }
+            delegate.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T element) {
+            delegate.onNext(element);
+        }
+
+        @Override
+        public void onError(Throwable failure) {
+            end();
+            delegate.onError(failure);
+        }
+
+        @Override
+        public void onComplete() {
+            end();
+            delegate.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            end();
+            upstream.cancel();
+        }
+
+        private void end() {
+            if (active.compareAndSet(true, false)) {
+                metrics.unsubscribed();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.engine;
+
+import javax.annotation.Priority;
+import javax.enterprise.inject.Alternative;
+import javax.enterprise.inject.Produces;
+import javax.interceptor.Interceptor;
+
+import org.eclipse.microprofile.reactive.streams.operators.core.ReactiveStreamsEngineResolver;
+import org.eclipse.microprofile.reactive.streams.operators.spi.ReactiveStreamsEngine;
+
+/**
+ * Makes the {@link SwitchableEngine} installed by the subsystem the one injected into the deployment, in place of the
+ * SmallRye engine otherwise produced by SmallRye's CDI integration.
+ */
+@Alternative
+@Priority(Interceptor.Priority.LIBRARY_AFTER)
+public class ReactiveStreamsEngineProducer {
+
+    @Produces
+    ReactiveStreamsEngine engine() {
+        return ReactiveStreamsEngineResolver.instance();
+    }
+}
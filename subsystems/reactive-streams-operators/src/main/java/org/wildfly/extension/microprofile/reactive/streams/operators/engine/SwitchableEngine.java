@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.engine;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import org.eclipse.microprofile.reactive.streams.operators.spi.Graph;
+import org.eclipse.microprofile.reactive.streams.operators.spi.ReactiveStreamsEngine;
+import org.eclipse.microprofile.reactive.streams.operators.spi.SubscriberWithCompletionStage;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Publisher;
+
+/**
+ * The {@link ReactiveStreamsEngine} the subsystem installs, which builds each graph with the engine currently selected
+ * by the subsystem's {@code engine} attribute. Selecting another engine only affects the graphs built afterwards,
+ * so the deployments do not need to be redeployed, and the graphs which are already running are left alone.
+ * <p>
+ * While statistics are enabled, the {@link EngineMetrics} are collected for each engine separately. Otherwise the
+ * graphs are built by the selected engine as is. The subsystem only installs this engine if it is needed at all, see
+ * {@link #isRequired()}.
+ */
+public final class SwitchableEngine implements ReactiveStreamsEngine {
+
+    public static final SwitchableEngine INSTANCE = new SwitchableEngine(EngineType.SMALLRYE, false);
+
+    private final Map<EngineType, ReactiveStreamsEngine> engines = new EnumMap<>(EngineType.class);
+    private final Map<EngineType, MeteredEngine> meteredEngines = new EnumMap<>(EngineType.class);
+    private volatile EngineType current;
+    private volatile boolean statisticsEnabled;
+
+    SwitchableEngine(EngineType engineType, boolean statisticsEnabled) {
+        for (EngineType type : EngineType.values()) {
+            final ReactiveStreamsEngine engine = type.newEngine();
+            engines.put(type, engine);
+            meteredEngines.put(type, new MeteredEngine(engine));
+        }
+        this.current = engineType;
+        this.statisticsEnabled = statisticsEnabled;
+    }
+
+    public EngineType getEngineType() {
+        return current;
+    }
+
+    /**
+     * Selects the engine the graphs built from now on are built with.
+     *
+     * @return the previously selected engine
+     */
+    public EngineType setEngineType(EngineType engineType) {
+        final EngineType previous = current;
+        current = engineType;
+        return previous;
+    }
+
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Starts or stops collecting the metrics of the graphs built from now on.
+     *
+     * @return whether statistics were previously enabled
+     */
+    public boolean setStatisticsEnabled(boolean statisticsEnabled) {
+        final boolean previous = this.statisticsEnabled;
+        this.statisticsEnabled = statisticsEnabled;
+        return previous;
+    }
+
+    /**
+     * Whether the deployments need this engine, rather than the one {@code ServiceLoader} finds for them: only if
+     * another engine than SmallRye's is selected, or statistics are enabled.
+     */
+    public boolean isRequired() {
+        return current != EngineType.SMALLRYE || statisticsEnabled;
+    }
+
+    public EngineMetrics getMetrics(EngineType engineType) {
+        return meteredEngines.get(engineType).getMetrics();
+    }
+
+    private ReactiveStreamsEngine engine() {
+        return statisticsEnabled ? meteredEngines.get(current) : engines.get(current);
+    }
+
+    @Override
+    public <T> Publisher<T> buildPublisher(Graph graph) {
+        return engine().buildPublisher(graph);
+    }
+
+    @Override
+    public <T, R> SubscriberWithCompletionStage<T, R> buildSubscriber(Graph graph) {
+        return engine().buildSubscriber(graph);
+    }
+
+    @Override
+    public <T, R> Processor<T, R> buildProcessor(Graph graph) {
+        return engine().buildProcessor(graph);
+    }
+
+    @Override
+    public <T> CompletionStage<T> buildCompletion(Graph graph) {
+        return engine().buildCompletion(graph);
+    }
+}
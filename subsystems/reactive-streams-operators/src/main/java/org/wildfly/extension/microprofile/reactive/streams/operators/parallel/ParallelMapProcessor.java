@@ -0,0 +1,260 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.parallel;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Maps the elements on an {@link Executor}, with up to {@code parallelism} elements being mapped at the same time.
+ * <p>
+ * Elements are only requested from upstream as the mapped ones are passed on, so there are never more than
+ * {@code parallelism} elements which have been received, but not been passed on yet. If {@code ordered}, the mapped
+ * elements are passed on in the order they were received in, otherwise as soon as they have been mapped. Failures
+ * are passed on as soon as they happen, dropping the elements mapped in the meantime.
+ * <p>
+ * The signals to the subscriber are serialized by the usual work-in-progress counter, so whichever thread maps an
+ * element or requests more passes on what can be passed on.
+ */
+final class ParallelMapProcessor<T, R> implements Processor<T, R>, Subscription {
+
+    private final int parallelism;
+    private final boolean ordered;
+    private final Executor executor;
+    private final Function<? super T, ? extends R> mapper;
+
+    /**
+     * The elements which have not been passed on yet: in the order they were received in, including the ones being
+     * mapped, if ordered, and in the order they were mapped in otherwise.
+     */
+    private final Queue<Task<R>> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * The number of elements which have been received, but not passed on yet.
+     */
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicReference<Subscription> upstream = new AtomicReference<>();
+    private final AtomicReference<Subscriber<? super R>> subscriber = new AtomicReference<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    /**
+     * The subscriber, once it has been handed its subscription.
+     */
+    private volatile Subscriber<? super R> downstream;
+    private volatile boolean upstreamDone;
+    private volatile boolean cancelled;
+    // Only accessed while draining
+    private long emitted;
+    private boolean done;
+
+    ParallelMapProcessor(int parallelism, boolean ordered, Executor executor, Function<? super T, ? extends R> mapper) {
+        this.parallelism = parallelism;
+        this.ordered = ordered;
+        this.executor = executor;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super R> s) {
+        Objects.requireNonNull(s);
+        if (!subscriber.compareAndSet(null, s)) {
+            s.onSubscribe(CancelledSubscription.INSTANCE);
+            s.onError(new IllegalStateException("A parallel map stage can only be subscribed to once"));
+            return;
+        }
+        s.onSubscribe(this);
+        downstream = s;
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        Objects.requireNonNull(s);
+        if (upstream.compareAndSet(null, s)) {
+            s.request(parallelism);
+        } else {
+            s.cancel();
+        }
+    }
+
+    @Override
+    public void onNext(T element) {
+        Objects.requireNonNull(element);
+        if (upstreamDone || cancelled) {
+            return;
+        }
+        final Task<R> task = new Task<>();
+        outstanding.incrementAndGet();
+        if (ordered) {
+            queue.offer(task);
+        }
+        try {
+            executor.execute(() -> map(task, element));
+        } catch (RejectedExecutionException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        Objects.requireNonNull(t);
+        if (!upstreamDone) {
+            failure.compareAndSet(null, t);
+            upstreamDone = true;
+            drain();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (!upstreamDone) {
+            upstreamDone = true;
+            drain();
+        }
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("Rule 3.9: the number of requested elements must be positive, but is " + n));
+            return;
+        }
+        long current;
+        long next;
+        do {
+            current = requested.get();
+            next = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while (!requested.compareAndSet(current, next));
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        cancelUpstream();
+        drain();
+    }
+
+    private void map(Task<R> task, T element) {
+        if (cancelled || failure.get() != null) {
+            return;
+        }
+        final R result;
+        try {
+            result = mapper.apply(element);
+        } catch (Throwable t) {
+            fail(t);
+            return;
+        }
+        if (result == null) {
+            fail(new NullPointerException("The mapper returned null"));
+            return;
+        }
+        task.result = result;
+        if (!ordered) {
+            queue.offer(task);
+        }
+        drain();
+    }
+
+    private void fail(Throwable t) {
+        if (failure.compareAndSet(null, t)) {
+            cancelUpstream();
+            drain();
+        }
+    }
+
+    private void cancelUpstream() {
+        final Subscription s = upstream.getAndSet(CancelledSubscription.INSTANCE);
+        if (s != null) {
+            s.cancel();
+        }
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            final Subscriber<? super R> s = downstream;
+            if (cancelled || done) {
+                queue.clear();
+            } else if (s != null) {
+                final long r = requested.get();
+                long e = emitted;
+                for (;;) {
+                    if (cancelled) {
+                        queue.clear();
+                        break;
+                    }
+                    final Throwable t = failure.get();
+                    if (t != null) {
+                        done = true;
+                        queue.clear();
+                        s.onError(t);
+                        break;
+                    }
+                    if (upstreamDone && outstanding.get() == 0) {
+                        done = true;
+                        s.onComplete();
+                        break;
+                    }
+                    final Task<R> task = e == r ? null : queue.peek();
+                    if (task == null || task.result == null) {
+                        break;
+                    }
+                    queue.poll();
+                    outstanding.decrementAndGet();
+                    s.onNext(task.result);
+                    e++;
+                    upstream.get().request(1);
+                }
+                emitted = e;
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private static final class Task<R> {
+        volatile R result;
+    }
+
+    private enum CancelledSubscription implements Subscription {
+        INSTANCE;
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
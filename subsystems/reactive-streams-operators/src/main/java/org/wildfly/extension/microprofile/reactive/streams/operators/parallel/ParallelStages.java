@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.parallel;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import org.reactivestreams.Processor;
+import org.wildfly.extension.microprofile.reactive.streams.operators.ParallelMapExecutor;
+
+/**
+ * Stages which spread CPU heavy work across cores, for use with
+ * {@link org.eclipse.microprofile.reactive.streams.operators.PublisherBuilder#via(Processor)}, e.g.:
+ * <pre>
+ * ReactiveStreams.of(images)
+ *         .via(ParallelStages.parallelMap(4, Image::thumbnail))
+ *         .toList()
+ *         .run();
+ * </pre>
+ * The stages are {@link Processor}s, so each of them can only be used in a single graph which is run once.
+ * <p>
+ * Unless given an executor, the stages run on the executor of the Reactive Streams Operators subsystem, which is
+ * a {@link java.util.concurrent.ForkJoinPool} of the size set by its {@code parallel-pool-size} attribute, or the
+ * common pool if that is undefined. An executor can be a {@code ManagedExecutor}, to propagate contexts to the mapper.
+ */
+public final class ParallelStages {
+
+    private ParallelStages() {
+    }
+
+    /**
+     * Maps the elements with up to {@code parallelism} of them being mapped at the same time, and passes them on in
+     * the order they were received in.
+     *
+     * @param parallelism the maximum number of elements being mapped at the same time, which is also the maximum
+     *                    number of elements requested ahead of those passed on
+     * @param mapper the function to map the elements with, which must not return {@code null}
+     */
+    public static <T, R> Processor<T, R> parallelMap(int parallelism, Function<? super T, ? extends R> mapper) {
+        return parallelMap(parallelism, ParallelMapExecutor.get(), mapper);
+    }
+
+    /**
+     * Maps the elements on the given executor, with up to {@code parallelism} of them being mapped at the same time,
+     * and passes them on in the order they were received in.
+     *
+     * @see #parallelMap(int, Function)
+     */
+    public static <T, R> Processor<T, R> parallelMap(int parallelism, Executor executor, Function<? super T, ? extends R> mapper) {
+        return create(parallelism, true, executor, mapper);
+    }
+
+    /**
+     * Maps the elements with up to {@code parallelism} of them being mapped at the same time, and passes each of
+     * them on as soon as it has been mapped, so a slow element does not hold up the ones after it.
+     *
+     * @see #parallelMap(int, Function)
+     */
+    public static <T, R> Processor<T, R> parallelMapUnordered(int parallelism, Function<? super T, ? extends R> mapper) {
+        return parallelMapUnordered(parallelism, ParallelMapExecutor.get(), mapper);
+    }
+
+    /**
+     * Maps the elements on the given executor, with up to {@code parallelism} of them being mapped at the same time,
+     * and passes each of them on as soon as it has been mapped.
+     *
+     * @see #parallelMapUnordered(int, Function)
+     */
+    public static <T, R> Processor<T, R> parallelMapUnordered(int parallelism, Executor executor, Function<? super T, ? extends R> mapper) {
+        return create(parallelism, false, executor, mapper);
+    }
+
+    private static <T, R> Processor<T, R> create(int parallelism, boolean ordered, Executor executor, Function<? super T, ? extends R> mapper) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be at least 1, but is " + parallelism);
+        }
+        return new ParallelMapProcessor<>(parallelism, ordered, Objects.requireNonNull(executor), Objects.requireNonNull(mapper));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.primitive;
+
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.DoubleUnaryOperator;
+
+import org.eclipse.microprofile.reactive.streams.operators.ProcessorBuilder;
+
+/**
+ * Builds stages applied to the elements as {@code double}s, which are only boxed again when they are passed on.
+ *
+ * @param <T> the type of the elements the built stages receive
+ * @see PrimitiveStages
+ */
+public final class DoubleStageBuilder<T> {
+
+    private final PrimitiveChain chain;
+
+    DoubleStageBuilder(PrimitiveChain chain) {
+        this.chain = chain;
+    }
+
+    /**
+     * Maps the elements.
+     */
+    public DoubleStageBuilder<T> map(DoubleUnaryOperator mapper) {
+        return new DoubleStageBuilder<>(chain.then(PrimitiveChain.Kind.DOUBLE_MAP, mapper));
+    }
+
+    /**
+     * Drops the elements not matching the predicate.
+     */
+    public DoubleStageBuilder<T> filter(DoublePredicate predicate) {
+        return new DoubleStageBuilder<>(chain.then(PrimitiveChain.Kind.DOUBLE_FILTER, predicate));
+    }
+
+    /**
+     * Passes the elements to the consumer.
+     */
+    public DoubleStageBuilder<T> peek(DoubleConsumer consumer) {
+        return new DoubleStageBuilder<>(chain.then(PrimitiveChain.Kind.DOUBLE_PEEK, consumer));
+    }
+
+    /**
+     * Maps the elements to {@code int}s.
+     */
+    public IntStageBuilder<T> mapToInt(DoubleToIntFunction mapper) {
+        return new IntStageBuilder<>(chain.then(PrimitiveChain.Kind.DOUBLE_TO_INT, mapper));
+    }
+
+    /**
+     * Maps the elements to {@code long}s.
+     */
+    public LongStageBuilder<T> mapToLong(DoubleToLongFunction mapper) {
+        return new LongStageBuilder<>(chain.then(PrimitiveChain.Kind.DOUBLE_TO_LONG, mapper));
+    }
+
+    /**
+     * Maps the elements to objects, which must not be {@code null}, and builds the stages.
+     */
+    public <R> ProcessorBuilder<T, R> mapToObj(DoubleFunction<? extends R> mapper) {
+        return chain.then(PrimitiveChain.Kind.DOUBLE_TO_OBJ, mapper).build(Object.class);
+    }
+
+    /**
+     * Builds the stages, which pass on the elements as {@link Double}s.
+     */
+    public ProcessorBuilder<T, Double> boxed() {
+        return chain.build(double.class);
+    }
+}
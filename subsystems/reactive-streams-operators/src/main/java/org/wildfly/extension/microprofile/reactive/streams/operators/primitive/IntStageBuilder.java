@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.primitive;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+import org.eclipse.microprofile.reactive.streams.operators.ProcessorBuilder;
+
+/**
+ * Builds stages applied to the elements as {@code int}s, which are only boxed again when they are passed on.
+ *
+ * @param <T> the type of the elements the built stages receive
+ * @see PrimitiveStages
+ */
+public final class IntStageBuilder<T> {
+
+    private final PrimitiveChain chain;
+
+    IntStageBuilder(PrimitiveChain chain) {
+        this.chain = chain;
+    }
+
+    /**
+     * Maps the elements.
+     */
+    public IntStageBuilder<T> map(IntUnaryOperator mapper) {
+        return new IntStageBuilder<>(chain.then(PrimitiveChain.Kind.INT_MAP, mapper));
+    }
+
+    /**
+     * Drops the elements not matching the predicate.
+     */
+    public IntStageBuilder<T> filter(IntPredicate predicate) {
+        return new IntStageBuilder<>(chain.then(PrimitiveChain.Kind.INT_FILTER, predicate));
+    }
+
+    /**
+     * Passes the elements to the consumer.
+     */
+    public IntStageBuilder<T> peek(IntConsumer consumer) {
+        return new IntStageBuilder<>(chain.then(PrimitiveChain.Kind.INT_PEEK, consumer));
+    }
+
+    /**
+     * Maps the elements to {@code long}s.
+     */
+    public LongStageBuilder<T> mapToLong(IntToLongFunction mapper) {
+        return new LongStageBuilder<>(chain.then(PrimitiveChain.Kind.INT_TO_LONG, mapper));
+    }
+
+    /**
+     * Maps the elements to {@code double}s.
+     */
+    public DoubleStageBuilder<T> mapToDouble(IntToDoubleFunction mapper) {
+        return new DoubleStageBuilder<>(chain.then(PrimitiveChain.Kind.INT_TO_DOUBLE, mapper));
+    }
+
+    /**
+     * Maps the elements to objects, which must not be {@code null}, and builds the stages.
+     */
+    public <R> ProcessorBuilder<T, R> mapToObj(IntFunction<? extends R> mapper) {
+        return chain.then(PrimitiveChain.Kind.INT_TO_OBJ, mapper).build(Object.class);
+    }
+
+    /**
+     * Builds the stages, which pass on the elements as {@link Integer}s.
+     */
+    public ProcessorBuilder<T, Integer> boxed() {
+        return chain.build(int.class);
+    }
+}
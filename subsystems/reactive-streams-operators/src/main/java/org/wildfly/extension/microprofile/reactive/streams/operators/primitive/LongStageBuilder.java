@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.primitive;
+
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+
+import org.eclipse.microprofile.reactive.streams.operators.ProcessorBuilder;
+
+/**
+ * Builds stages applied to the elements as {@code long}s, which are only boxed again when they are passed on.
+ *
+ * @param <T> the type of the elements the built stages receive
+ * @see PrimitiveStages
+ */
+public final class LongStageBuilder<T> {
+
+    private final PrimitiveChain chain;
+
+    LongStageBuilder(PrimitiveChain chain) {
+        this.chain = chain;
+    }
+
+    /**
+     * Maps the elements.
+     */
+    public LongStageBuilder<T> map(LongUnaryOperator mapper) {
+        return new LongStageBuilder<>(chain.then(PrimitiveChain.Kind.LONG_MAP, mapper));
+    }
+
+    /**
+     * Drops the elements not matching the predicate.
+     */
+    public LongStageBuilder<T> filter(LongPredicate predicate) {
+        return new LongStageBuilder<>(chain.then(PrimitiveChain.Kind.LONG_FILTER, predicate));
+    }
+
+    /**
+     * Passes the elements to the consumer.
+     */
+    public LongStageBuilder<T> peek(LongConsumer consumer) {
+        return new LongStageBuilder<>(chain.then(PrimitiveChain.Kind.LONG_PEEK, consumer));
+    }
+
+    /**
+     * Maps the elements to {@code int}s.
+     */
+    public IntStageBuilder<T> mapToInt(LongToIntFunction mapper) {
+        return new IntStageBuilder<>(chain.then(PrimitiveChain.Kind.LONG_TO_INT, mapper));
+    }
+
+    /**
+     * Maps the elements to {@code double}s.
+     */
+    public DoubleStageBuilder<T> mapToDouble(LongToDoubleFunction mapper) {
+        return new DoubleStageBuilder<>(chain.then(PrimitiveChain.Kind.LONG_TO_DOUBLE, mapper));
+    }
+
+    /**
+     * Maps the elements to objects, which must not be {@code null}, and builds the stages.
+     */
+    public <R> ProcessorBuilder<T, R> mapToObj(LongFunction<? extends R> mapper) {
+        return chain.then(PrimitiveChain.Kind.LONG_TO_OBJ, mapper).build(Object.class);
+    }
+
+    /**
+     * Builds the stages, which pass on the elements as {@link Long}s.
+     */
+    public ProcessorBuilder<T, Long> boxed() {
+        return chain.build(long.class);
+    }
+}
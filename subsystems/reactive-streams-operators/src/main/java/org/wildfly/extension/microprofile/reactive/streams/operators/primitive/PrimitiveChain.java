@@ -0,0 +1,207 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.primitive;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleToIntFunction;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongToDoubleFunction;
+import java.util.function.LongToIntFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import org.eclipse.microprofile.reactive.streams.operators.ProcessorBuilder;
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+
+/**
+ * The steps of a primitive stage builder. They are applied to each element in a single loop, which keeps the value
+ * in a primitive local variable from one step to the next, so an element is only boxed once, after the last step.
+ * <p>
+ * Chains are immutable, adding a step returns a new chain.
+ */
+final class PrimitiveChain {
+
+    /**
+     * Returned by {@link #apply(Object)} if the element is filtered out.
+     */
+    private static final Object DROP = new Object();
+
+    enum Kind {
+        TO_INT, TO_LONG, TO_DOUBLE,
+        INT_MAP, INT_FILTER, INT_PEEK, INT_TO_LONG, INT_TO_DOUBLE, INT_TO_OBJ,
+        LONG_MAP, LONG_FILTER, LONG_PEEK, LONG_TO_INT, LONG_TO_DOUBLE, LONG_TO_OBJ,
+        DOUBLE_MAP, DOUBLE_FILTER, DOUBLE_PEEK, DOUBLE_TO_INT, DOUBLE_TO_LONG, DOUBLE_TO_OBJ
+    }
+
+    private final Kind[] kinds;
+    private final Object[] functions;
+
+    private PrimitiveChain(Kind[] kinds, Object[] functions) {
+        this.kinds = kinds;
+        this.functions = functions;
+    }
+
+    /**
+     * Starts a chain with a step turning the elements into primitives.
+     */
+    static PrimitiveChain of(Kind kind, Object function) {
+        return new PrimitiveChain(new Kind[]{kind}, new Object[]{Objects.requireNonNull(function)});
+    }
+
+    PrimitiveChain then(Kind kind, Object function) {
+        final Kind[] kinds = Arrays.copyOf(this.kinds, this.kinds.length + 1);
+        final Object[] functions = Arrays.copyOf(this.functions, this.functions.length + 1);
+        kinds[kinds.length - 1] = kind;
+        functions[functions.length - 1] = Objects.requireNonNull(function);
+        return new PrimitiveChain(kinds, functions);
+    }
+
+    /**
+     * Builds a single map stage applying the steps, followed by the stages dropping the filtered out elements if
+     * the chain has any filters.
+     *
+     * @param result the type the last step leaves the element in
+     */
+    @SuppressWarnings("unchecked")
+    <T, R> ProcessorBuilder<T, R> build(Class<?> result) {
+        for (Kind kind : kinds) {
+            if (kind == Kind.INT_FILTER || kind == Kind.LONG_FILTER || kind == Kind.DOUBLE_FILTER) {
+                return ReactiveStreams.<T>builder()
+                        .map(element -> apply(element, result))
+                        .filter(element -> element != DROP)
+                        .map(element -> (R) element);
+            }
+        }
+        return ReactiveStreams.<T>builder().map(element -> (R) apply(element, result));
+    }
+
+    /**
+     * Applies the steps to an element in turn.
+     *
+     * @param result the type the last step leaves the element in, {@code int.class}, {@code long.class},
+     *               {@code double.class} or {@code Object.class}
+     * @return the boxed result, or {@link #DROP}
+     */
+    @SuppressWarnings("unchecked")
+    Object apply(Object element, Class<?> result) {
+        int i = 0;
+        long l = 0;
+        double d = 0;
+        Object o = null;
+        for (int step = 0; step < kinds.length; step++) {
+            final Object function = functions[step];
+            switch (kinds[step]) {
+                case TO_INT:
+                    i = ((ToIntFunction<Object>) function).applyAsInt(element);
+                    break;
+                case TO_LONG:
+                    l = ((ToLongFunction<Object>) function).applyAsLong(element);
+                    break;
+                case TO_DOUBLE:
+                    d = ((ToDoubleFunction<Object>) function).applyAsDouble(element);
+                    break;
+                case INT_MAP:
+                    i = ((IntUnaryOperator) function).applyAsInt(i);
+                    break;
+                case INT_FILTER:
+                    if (!((IntPredicate) function).test(i)) {
+                        return DROP;
+                    }
+                    break;
+                case INT_PEEK:
+                    ((IntConsumer) function).accept(i);
+                    break;
+                case INT_TO_LONG:
+                    l = ((IntToLongFunction) function).applyAsLong(i);
+                    break;
+                case INT_TO_DOUBLE:
+                    d = ((IntToDoubleFunction) function).applyAsDouble(i);
+                    break;
+                case INT_TO_OBJ:
+                    o = ((IntFunction<?>) function).apply(i);
+                    break;
+                case LONG_MAP:
+                    l = ((LongUnaryOperator) function).applyAsLong(l);
+                    break;
+                case LONG_FILTER:
+                    if (!((LongPredicate) function).test(l)) {
+                        return DROP;
+                    }
+                    break;
+                case LONG_PEEK:
+                    ((LongConsumer) function).accept(l);
+                    break;
+                case LONG_TO_INT:
+                    i = ((LongToIntFunction) function).applyAsInt(l);
+                    break;
+                case LONG_TO_DOUBLE:
+                    d = ((LongToDoubleFunction) function).applyAsDouble(l);
+                    break;
+                case LONG_TO_OBJ:
+                    o = ((LongFunction<?>) function).apply(l);
+                    break;
+                case DOUBLE_MAP:
+                    d = ((DoubleUnaryOperator) function).applyAsDouble(d);
+                    break;
+                case DOUBLE_FILTER:
+                    if (!((DoublePredicate) function).test(d)) {
+                        return DROP;
+                    }
+                    break;
+                case DOUBLE_PEEK:
+                    ((DoubleConsumer) function).accept(d);
+                    break;
+                case DOUBLE_TO_INT:
+                    i = ((DoubleToIntFunction) function).applyAsInt(d);
+                    break;
+                case DOUBLE_TO_LONG:
+                    l = ((DoubleToLongFunction) function).applyAsLong(d);
+                    break;
+                case DOUBLE_TO_OBJ:
+                    o = ((DoubleFunction<?>) function).apply(d);
+                    break;
+                default:
+                    throw new IllegalStateException(kinds[step].toString());
+            }
+        }
+        if (result == int.class) {
+            return i;
+        } else if (result == long.class) {
+            return l;
+        } else if (result == double.class) {
+            return d;
+        }
+        return o;
+    }
+}
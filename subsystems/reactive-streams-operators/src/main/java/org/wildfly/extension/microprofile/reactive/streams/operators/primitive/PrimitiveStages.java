@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.primitive;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Builders of stages for numeric streams, which apply their steps to primitives, e.g.:
+ * <pre>
+ * ProcessorBuilder&lt;Integer, Double&gt; converter = PrimitiveStages.ints()
+ *         .filter(price -&gt; price &gt; 0)
+ *         .mapToDouble(price -&gt; price * 0.88)
+ *         .boxed();
+ * </pre>
+ * Reactive Streams can only pass on objects, so the elements are still boxed between the built stages and the
+ * ones around them. Within the built stages however, the steps are applied in a single map stage which keeps the
+ * element as a primitive, so each element is boxed once, rather than once per map stage as with the usual
+ * {@code ProcessorBuilder} methods. The built {@code ProcessorBuilder} can be used with {@code via()} or returned
+ * by a Reactive Messaging processor method.
+ * <p>
+ * The builders are immutable, so each step returns a new builder.
+ */
+public final class PrimitiveStages {
+
+    private PrimitiveStages() {
+    }
+
+    /**
+     * Starts stages receiving {@link Integer}s.
+     */
+    public static IntStageBuilder<Integer> ints() {
+        return mapToInt(Integer::intValue);
+    }
+
+    /**
+     * Starts stages receiving {@link Long}s.
+     */
+    public static LongStageBuilder<Long> longs() {
+        return mapToLong(Long::longValue);
+    }
+
+    /**
+     * Starts stages receiving {@link Double}s.
+     */
+    public static DoubleStageBuilder<Double> doubles() {
+        return mapToDouble(Double::doubleValue);
+    }
+
+    /**
+     * Starts stages mapping the elements they receive to {@code int}s.
+     */
+    public static <T> IntStageBuilder<T> mapToInt(ToIntFunction<? super T> mapper) {
+        return new IntStageBuilder<>(PrimitiveChain.of(PrimitiveChain.Kind.TO_INT, mapper));
+    }
+
+    /**
+     * Starts stages mapping the elements they receive to {@code long}s.
+     */
+    public static <T> LongStageBuilder<T> mapToLong(ToLongFunction<? super T> mapper) {
+        return new LongStageBuilder<>(PrimitiveChain.of(PrimitiveChain.Kind.TO_LONG, mapper));
+    }
+
+    /**
+     * Starts stages mapping the elements they receive to {@code double}s.
+     */
+    public static <T> DoubleStageBuilder<T> mapToDouble(ToDoubleFunction<? super T> mapper) {
+        return new DoubleStageBuilder<>(PrimitiveChain.of(PrimitiveChain.Kind.TO_DOUBLE, mapper));
+    }
+}
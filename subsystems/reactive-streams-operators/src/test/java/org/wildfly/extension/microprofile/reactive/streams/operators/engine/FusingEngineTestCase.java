@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.eclipse.microprofile.reactive.streams.operators.CompletionSubscriber;
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+
+/**
+ * Runs graphs with the {@link FusingEngine}, checking they behave as with an operator per stage.
+ */
+public class FusingEngineTestCase {
+
+    private final FusingEngine engine = new FusingEngine();
+
+    @Test
+    public void testFusedCollect() throws Exception {
+        CompletionStage<List<String>> cs = ReactiveStreams.of("this", "is", "only", "a", "test")
+                .map(String::toUpperCase)
+                .filter(s -> s.length() > 3)
+                .collect(Collectors.toList())
+                .run(engine);
+
+        Assert.assertEquals(Arrays.asList("THIS", "ONLY", "TEST"), get(cs));
+    }
+
+    @Test
+    public void testInMemoryGraphCompletesRightAway() throws Exception {
+        CompletionStage<Optional<Integer>> cs = ReactiveStreams.fromIterable(Arrays.asList(1, 2, 3, 4, 5))
+                .filter(i -> i % 2 == 1)
+                .map(i -> i * i)
+                .reduce(Integer::sum)
+                .run(engine);
+
+        Assert.assertTrue(cs.toCompletableFuture().isDone());
+        Assert.assertEquals(Optional.of(35), get(cs));
+    }
+
+    @Test
+    public void testInMemoryGraphStopsAtTakeWhile() throws Exception {
+        CompletionStage<List<Integer>> cs = ReactiveStreams.iterate(1, i -> i + 1)
+                .takeWhile(i -> i < 4)
+                .toList()
+                .run(engine);
+
+        Assert.assertEquals(Arrays.asList(1, 2, 3), get(cs));
+    }
+
+    @Test
+    public void testInMemoryGraphWithNullElementFails() {
+        CompletionStage<List<Integer>> cs = ReactiveStreams.fromIterable(Arrays.asList(1, null))
+                .toList()
+                .run(engine);
+
+        Assert.assertTrue(failure(cs) instanceof NullPointerException);
+    }
+
+    @Test
+    public void testFusedPublisherCanBeSubscribedToAgain() throws Exception {
+        final List<Integer> peeked = new ArrayList<>();
+        Publisher<Integer> publisher = ReactiveStreams.of(1, 2, 3, 4, 5, 6)
+                .peek(peeked::add)
+                .filter(i -> i % 2 == 0)
+                .map(i -> i * 10)
+                .buildRs(engine);
+        Assert.assertSame(FusedPublisher.class, publisher.getClass());
+
+        Assert.assertEquals(Arrays.asList(20, 40, 60), get(ReactiveStreams.fromPublisher(publisher).toList().run(engine)));
+        Assert.assertEquals(Arrays.asList(20, 40, 60), get(ReactiveStreams.fromPublisher(publisher).toList().run(engine)));
+        Assert.assertEquals(12, peeked.size());
+    }
+
+    @Test
+    public void testTakeWhileCancelsUpstream() throws Exception {
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        CompletionStage<List<Integer>> cs = ReactiveStreams.iterate(1, i -> i + 1)
+                .onTerminate(() -> cancelled.set(true))
+                .map(i -> i * 2)
+                .takeWhile(i -> i < 10)
+                .map(i -> i + 1)
+                .toList()
+                .run(engine);
+
+        Assert.assertEquals(Arrays.asList(3, 5, 7, 9), get(cs));
+        Assert.assertTrue(cancelled.get());
+    }
+
+    @Test
+    public void testFusedStagesBetweenAsynchronousStages() throws Exception {
+        CompletionStage<List<Integer>> cs = ReactiveStreams.of(1, 2, 3)
+                .flatMapIterable(i -> Arrays.asList(i, i))
+                .map(i -> i + 1)
+                .filter(i -> i != 3)
+                .flatMapCompletionStage(i -> CompletableFuture.supplyAsync(() -> i * 2))
+                .peek(i -> { })
+                .map(i -> -i)
+                .toList()
+                .run(engine);
+
+        Assert.assertEquals(Arrays.asList(-4, -4, -8, -8), get(cs));
+    }
+
+    @Test
+    public void testFailureCancelsUpstream() {
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        final IllegalStateException failure = new IllegalStateException();
+        CompletionStage<List<Integer>> cs = ReactiveStreams.iterate(1, i -> i + 1)
+                .onTerminate(() -> cancelled.set(true))
+                .map(i -> i)
+                .peek(i -> {
+                    if (i == 3) {
+                        throw failure;
+                    }
+                })
+                .takeWhile(i -> true)
+                .toList()
+                .run(engine);
+
+        Assert.assertSame(failure, failure(cs));
+        Assert.assertTrue(cancelled.get());
+    }
+
+    @Test
+    public void testMapToNullFails() {
+        CompletionStage<List<Integer>> cs = ReactiveStreams.of(1, 2, 3)
+                .map(i -> i == 2 ? null : i)
+                .toList()
+                .run(engine);
+
+        Assert.assertTrue(failure(cs) instanceof NullPointerException);
+    }
+
+    @Test
+    public void testFusedSubscriber() throws Exception {
+        CompletionSubscriber<Integer, List<Integer>> subscriber = ReactiveStreams.<Integer>builder()
+                .map(i -> i + 1)
+                .filter(i -> i > 2)
+                .toList()
+                .build(engine);
+        ReactiveStreams.of(1, 2, 3).to(subscriber).run(engine);
+
+        Assert.assertEquals(Arrays.asList(3, 4), get(subscriber.getCompletion()));
+    }
+
+    @Test
+    public void testProcessor() throws Exception {
+        CompletionStage<List<Integer>> cs = ReactiveStreams.of(1, 2, 3)
+                .via(ReactiveStreams.<Integer>builder().map(i -> i * 3).filter(i -> i > 3).buildRs(engine))
+                .toList()
+                .run(engine);
+
+        Assert.assertEquals(Arrays.asList(6, 9), get(cs));
+    }
+
+    private static <T> T get(CompletionStage<T> cs) throws Exception {
+        return cs.toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    private static Throwable failure(CompletionStage<?> cs) {
+        try {
+            get(cs);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        throw new AssertionError("The graph did not fail");
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.engine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.microprofile.reactive.streams.operators.CompletionSubscriber;
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Switches the engine of a {@link SwitchableEngine}, checking the metrics collected for each engine.
+ */
+public class SwitchableEngineTestCase {
+
+    private final SwitchableEngine engine = new SwitchableEngine(EngineType.SMALLRYE, true);
+
+    @Test
+    public void testSwitch() throws Exception {
+        Assert.assertEquals(Arrays.asList(2, 4), get(ReactiveStreams.of(1, 2).map(i -> i * 2).toList().run(engine)));
+        Assert.assertEquals(EngineType.SMALLRYE, engine.setEngineType(EngineType.FUSING));
+        Assert.assertEquals(Arrays.asList(2, 4), get(ReactiveStreams.of(1, 2).map(i -> i * 2).toList().run(engine)));
+        Assert.assertEquals(Arrays.asList(3), get(ReactiveStreams.of(1, 2).filter(i -> i > 1).map(i -> i + 1).toList().run(engine)));
+
+        final EngineMetrics smallrye = engine.getMetrics(EngineType.SMALLRYE);
+        Assert.assertEquals(1, smallrye.getGraphsBuilt());
+        Assert.assertEquals(1, smallrye.getGraphsRun());
+        Assert.assertEquals(3.0, smallrye.getAverageStagesPerGraph(), 0.0);
+
+        final EngineMetrics fusing = engine.getMetrics(EngineType.FUSING);
+        Assert.assertEquals(2, fusing.getGraphsBuilt());
+        Assert.assertEquals(2, fusing.getGraphsRun());
+        Assert.assertEquals(3.5, fusing.getAverageStagesPerGraph(), 0.0);
+        Assert.assertEquals(0, fusing.getActiveSubscriptions());
+    }
+
+    @Test
+    public void testStatisticsDisabled() throws Exception {
+        final SwitchableEngine unmetered = new SwitchableEngine(EngineType.SMALLRYE, false);
+        Assert.assertFalse(unmetered.isRequired());
+        Assert.assertEquals(Arrays.asList(2, 4), get(ReactiveStreams.of(1, 2).map(i -> i * 2).toList().run(unmetered)));
+        Assert.assertEquals(0, unmetered.getMetrics(EngineType.SMALLRYE).getGraphsBuilt());
+
+        unmetered.setEngineType(EngineType.FUSING);
+        Assert.assertTrue(unmetered.isRequired());
+        Assert.assertEquals(Arrays.asList(2, 4), get(ReactiveStreams.of(1, 2).map(i -> i * 2).toList().run(unmetered)));
+        Assert.assertEquals(0, unmetered.getMetrics(EngineType.FUSING).getGraphsBuilt());
+
+        unmetered.setEngineType(EngineType.SMALLRYE);
+        Assert.assertFalse(unmetered.setStatisticsEnabled(true));
+        Assert.assertTrue(unmetered.isRequired());
+        Assert.assertEquals(Arrays.asList(2, 4), get(ReactiveStreams.of(1, 2).map(i -> i * 2).toList().run(unmetered)));
+        Assert.assertEquals(1, unmetered.getMetrics(EngineType.SMALLRYE).getGraphsBuilt());
+    }
+
+    @Test
+    public void testBuiltGraphsAreNotRun() {
+        ReactiveStreams.of(1, 2).map(i -> i * 2).buildRs(engine);
+        ReactiveStreams.<Integer>builder().map(i -> i * 2).buildRs(engine);
+        ReactiveStreams.<Integer>builder().toList().build(engine);
+
+        final EngineMetrics metrics = engine.getMetrics(EngineType.SMALLRYE);
+        Assert.assertEquals(3, metrics.getGraphsBuilt());
+        Assert.assertEquals(0, metrics.getGraphsRun());
+        Assert.assertEquals(0, metrics.getActiveSubscriptions());
+    }
+
+    @Test
+    public void testActiveSubscriptionOfPublisher() {
+        final Publisher<Integer> publisher = ReactiveStreams.generate(() -> 1).buildRs(engine);
+        final AtomicReference<Subscription> subscription = new AtomicReference<>();
+        publisher.subscribe(new Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription.set(s);
+            }
+
+            @Override
+            public void onNext(Integer element) {
+            }
+
+            @Override
+            public void onError(Throwable failure) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        final EngineMetrics metrics = engine.getMetrics(EngineType.SMALLRYE);
+        Assert.assertEquals(1, metrics.getActiveSubscriptions());
+        subscription.get().cancel();
+        Assert.assertEquals(0, metrics.getActiveSubscriptions());
+    }
+
+    @Test
+    public void testActiveSubscriptionOfRunGraph() throws Exception {
+        final CompletableFuture<Integer> element = new CompletableFuture<>();
+        final CompletionStage<List<Integer>> cs = ReactiveStreams.fromCompletionStage(element).toList().run(engine);
+
+        final EngineMetrics metrics = engine.getMetrics(EngineType.SMALLRYE);
+        Assert.assertEquals(1, metrics.getActiveSubscriptions());
+        element.complete(1);
+        Assert.assertEquals(Arrays.asList(1), get(cs));
+        Assert.assertEquals(0, metrics.getActiveSubscriptions());
+    }
+
+    @Test
+    public void testActiveSubscriptionOfSubscriber() throws Exception {
+        final CompletableFuture<Integer> element = new CompletableFuture<>();
+        final CompletionSubscriber<Integer, List<Integer>> subscriber = ReactiveStreams.<Integer>builder().toList().build(engine);
+        ReactiveStreams.fromCompletionStage(element).to(subscriber).run(engine);
+
+        // The graph being run and the subscription of the subscriber
+        final EngineMetrics metrics = engine.getMetrics(EngineType.SMALLRYE);
+        Assert.assertEquals(2, metrics.getActiveSubscriptions());
+        element.complete(1);
+        Assert.assertEquals(Arrays.asList(1), get(subscriber.getCompletion()));
+        Assert.assertEquals(0, metrics.getActiveSubscriptions());
+    }
+
+    private static <T> T get(CompletionStage<T> cs) throws Exception {
+        return cs.toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+}
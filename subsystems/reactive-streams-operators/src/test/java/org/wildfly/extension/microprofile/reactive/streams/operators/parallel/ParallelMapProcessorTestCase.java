@@ -0,0 +1,239 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.parallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Runs graphs through the {@link ParallelStages}.
+ */
+public class ParallelMapProcessorTestCase {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testOrdered() throws Exception {
+        // The later elements are mapped faster, so they would overtake the earlier ones
+        CompletionStage<List<Integer>> cs = ReactiveStreams.iterate(1, i -> i + 1)
+                .limit(20)
+                .via(ParallelStages.parallelMap(4, executor, (Integer i) -> {
+                    sleep(20 - i);
+                    return i * 2;
+                }))
+                .toList()
+                .run();
+
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            expected.add(i * 2);
+        }
+        Assert.assertEquals(expected, get(cs));
+    }
+
+    @Test
+    public void testUnordered() throws Exception {
+        // The first element is only mapped once the second one has been passed on
+        final CountDownLatch second = new CountDownLatch(1);
+        CompletionStage<List<Integer>> cs = ReactiveStreams.of(1, 2)
+                .via(ParallelStages.parallelMapUnordered(2, executor, (Integer i) -> {
+                    if (i == 1) {
+                        await(second);
+                    }
+                    return i;
+                }))
+                .peek(i -> second.countDown())
+                .toList()
+                .run();
+
+        Assert.assertEquals(Arrays.asList(2, 1), get(cs));
+    }
+
+    @Test
+    public void testUnorderedKeepsAllElements() throws Exception {
+        CompletionStage<List<Integer>> cs = ReactiveStreams.iterate(1, i -> i + 1)
+                .limit(1000)
+                .via(ParallelStages.parallelMapUnordered(4, executor, (Integer i) -> i))
+                .toList()
+                .run();
+
+        final List<Integer> result = new ArrayList<>(get(cs));
+        Collections.sort(result);
+        Assert.assertEquals(1000, result.size());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(i + 1, (int) result.get(i));
+        }
+    }
+
+    @Test
+    public void testParallelismBoundsTheRequests() throws Exception {
+        final AtomicInteger received = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        CompletionStage<List<Integer>> cs = ReactiveStreams.iterate(1, i -> i + 1)
+                .limit(10)
+                .peek(i -> received.incrementAndGet())
+                .via(ParallelStages.parallelMap(3, executor, (Integer i) -> {
+                    await(release);
+                    return i;
+                }))
+                .toList()
+                .run();
+
+        // Nothing has been passed on, so no more than the first three elements may have been requested
+        Thread.sleep(100);
+        Assert.assertEquals(3, received.get());
+        release.countDown();
+        Assert.assertEquals(10, get(cs).size());
+    }
+
+    @Test
+    public void testMapperFailure() {
+        final RuntimeException boom = new RuntimeException("boom");
+        CompletionStage<List<Integer>> cs = ReactiveStreams.of(1, 2, 3)
+                .via(ParallelStages.parallelMap(2, executor, (Integer i) -> {
+                    if (i == 2) {
+                        throw boom;
+                    }
+                    return i;
+                }))
+                .toList()
+                .run();
+
+        Assert.assertSame(boom, failure(cs));
+    }
+
+    @Test
+    public void testMapperReturningNullFails() {
+        CompletionStage<List<Object>> cs = ReactiveStreams.of(1, 2, 3)
+                .via(ParallelStages.parallelMap(2, executor, (Integer i) -> null))
+                .toList()
+                .run();
+
+        Assert.assertTrue(failure(cs) instanceof NullPointerException);
+    }
+
+    @Test
+    public void testSecondSubscriberIsRejected() throws Exception {
+        final Processor<Integer, Integer> processor = ParallelStages.parallelMap(2, executor, i -> i);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        processor.subscribe(new TestSubscriber(failure));
+        final AtomicReference<Throwable> second = new AtomicReference<>();
+        processor.subscribe(new TestSubscriber(second));
+
+        Assert.assertNull(failure.get());
+        Assert.assertTrue(second.get() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testInvalidRequestFails() {
+        final Processor<Integer, Integer> processor = ParallelStages.parallelMap(2, executor, i -> i);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        processor.subscribe(new TestSubscriber(failure) {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(0);
+            }
+        });
+
+        Assert.assertTrue(failure.get() instanceof IllegalArgumentException);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelismMustBePositive() {
+        ParallelStages.parallelMap(0, executor, i -> i);
+    }
+
+    private static class TestSubscriber implements Subscriber<Integer> {
+        private final AtomicReference<Throwable> failure;
+
+        TestSubscriber(AtomicReference<Throwable> failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        public void onNext(Integer element) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            failure.set(t);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> T get(CompletionStage<T> cs) throws Exception {
+        return cs.toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    private static Throwable failure(CompletionStage<?> cs) {
+        try {
+            get(cs);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        throw new AssertionError("The graph did not fail");
+    }
+}
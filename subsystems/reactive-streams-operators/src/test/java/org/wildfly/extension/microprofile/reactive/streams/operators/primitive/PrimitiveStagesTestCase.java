@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wildfly.extension.microprofile.reactive.streams.operators.primitive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.reactive.streams.operators.ProcessorBuilder;
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.extension.microprofile.reactive.streams.operators.engine.FusingEngine;
+
+/**
+ * Runs graphs through the stages built by {@link PrimitiveStages}.
+ */
+public class PrimitiveStagesTestCase {
+
+    @Test
+    public void testIntToDouble() throws Exception {
+        final ProcessorBuilder<Integer, Double> converter = PrimitiveStages.ints()
+                .map(i -> i * 10)
+                .filter(i -> i > 10)
+                .mapToDouble(i -> i * 0.5)
+                .boxed();
+
+        Assert.assertEquals(Arrays.asList(10.0, 15.0), run(converter, 1, 2, 3));
+    }
+
+    @Test
+    public void testAllConversions() throws Exception {
+        final ProcessorBuilder<String, String> stages = PrimitiveStages.<String>mapToLong(Long::parseLong)
+                .map(l -> l + 1)
+                .mapToDouble(l -> l / 2.0)
+                .mapToInt(d -> (int) Math.ceil(d))
+                .mapToLong(i -> i * 3L)
+                .mapToInt(l -> (int) l)
+                .mapToDouble(i -> i)
+                .mapToLong(d -> (long) d)
+                .mapToObj(l -> "#" + l);
+
+        Assert.assertEquals(Arrays.asList("#3", "#6", "#6"), run(stages, "0", "2", "3"));
+    }
+
+    @Test
+    public void testPeek() throws Exception {
+        final List<Long> peeked = new ArrayList<>();
+        final ProcessorBuilder<Long, Long> stages = PrimitiveStages.longs()
+                .peek(peeked::add)
+                .filter(l -> l % 2 == 0)
+                .boxed();
+
+        Assert.assertEquals(Arrays.asList(2L, 4L), run(stages, 1L, 2L, 3L, 4L));
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L, 4L), peeked);
+    }
+
+    @Test
+    public void testWithFusingEngine() throws Exception {
+        final ProcessorBuilder<Double, Double> stages = PrimitiveStages.doubles()
+                .filter(d -> d >= 0)
+                .map(Math::sqrt)
+                .boxed();
+
+        CompletionStage<List<Double>> cs = ReactiveStreams.of(4.0, -1.0, 9.0)
+                .via(stages)
+                .toList()
+                .run(new FusingEngine());
+
+        Assert.assertEquals(Arrays.asList(2.0, 3.0), get(cs));
+    }
+
+    @Test
+    public void testBuildersAreImmutable() throws Exception {
+        final IntStageBuilder<Integer> ints = PrimitiveStages.ints();
+        final ProcessorBuilder<Integer, Integer> doubled = ints.map(i -> i * 2).boxed();
+        final ProcessorBuilder<Integer, Integer> unchanged = ints.boxed();
+
+        Assert.assertEquals(Arrays.asList(2, 4), run(doubled, 1, 2));
+        Assert.assertEquals(Arrays.asList(1, 2), run(unchanged, 1, 2));
+    }
+
+    @Test
+    public void testFailure() {
+        final RuntimeException boom = new RuntimeException("boom");
+        final ProcessorBuilder<Integer, Integer> stages = PrimitiveStages.ints()
+                .map(i -> {
+                    throw boom;
+                })
+                .boxed();
+
+        try {
+            run(stages, 1);
+            Assert.fail("The graph did not fail");
+        } catch (ExecutionException e) {
+            Assert.assertSame(boom, e.getCause());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullFunction() {
+        PrimitiveStages.ints().map(null);
+    }
+
+    @SafeVarargs
+    private static <T, R> List<R> run(ProcessorBuilder<T, R> stages, T... elements) throws Exception {
+        return get(ReactiveStreams.of(elements).via(stages).toList().run());
+    }
+
+    private static <T> T get(CompletionStage<T> cs) throws Exception {
+        return cs.toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+}
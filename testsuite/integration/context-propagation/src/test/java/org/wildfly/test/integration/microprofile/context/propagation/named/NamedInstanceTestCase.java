@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.test.integration.microprofile.context.propagation.named;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import io.smallrye.context.api.NamedInstance;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.eclipse.microprofile.context.ThreadContext;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.as.arquillian.api.ServerSetup;
+import org.jboss.as.arquillian.api.ServerSetupTask;
+import org.jboss.as.arquillian.container.ManagementClient;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests that the {@code managed-executor}s and {@code thread-context}s of the subsystem are injected with
+ * {@code @NamedInstance}. The deployment depends on them, so it is only started once they are.
+ */
+@RunWith(Arquillian.class)
+@ServerSetup(NamedInstanceTestCase.NamedInstanceSetupTask.class)
+public class NamedInstanceTestCase {
+
+    private static final String MANAGED_EXECUTOR = "test-executor";
+    private static final String THREAD_CONTEXT = "test-context";
+
+    @Inject
+    @NamedInstance(MANAGED_EXECUTOR)
+    ManagedExecutor managedExecutor;
+
+    @Inject
+    @NamedInstance(THREAD_CONTEXT)
+    ThreadContext threadContext;
+
+    @Deployment
+    public static WebArchive getDeployment() {
+        final WebArchive webArchive = ShrinkWrap.create(WebArchive.class, "ctx-ppgn-named.war")
+                .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml")
+                .addClass(NamedInstanceTestCase.class);
+        return webArchive;
+    }
+
+    @Test
+    public void testManagedExecutorUsesPool() throws Exception {
+        final String threadName = managedExecutor.supplyAsync(() -> Thread.currentThread().getName())
+                .get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(threadName, threadName.startsWith("managed-executor-" + MANAGED_EXECUTOR));
+    }
+
+    @Test
+    public void testThreadContextWasInjected() throws Exception {
+        Assert.assertNotNull(threadContext);
+        final ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        Assert.assertSame(tccl, threadContext.contextualCallable(() -> Thread.currentThread().getContextClassLoader()).call());
+    }
+
+    public static class NamedInstanceSetupTask implements ServerSetupTask {
+
+        private static final ModelNode MANAGED_EXECUTOR_ADDRESS = Operations.createAddress(
+                "subsystem", "microprofile-context-propagation-smallrye", "managed-executor", MANAGED_EXECUTOR);
+        private static final ModelNode THREAD_CONTEXT_ADDRESS = Operations.createAddress(
+                "subsystem", "microprofile-context-propagation-smallrye", "thread-context", THREAD_CONTEXT);
+
+        @Override
+        public void setup(ManagementClient managementClient, String containerId) throws Exception {
+            execute(managementClient, Operations.createAddOperation(MANAGED_EXECUTOR_ADDRESS));
+            execute(managementClient, Operations.createAddOperation(THREAD_CONTEXT_ADDRESS));
+        }
+
+        @Override
+        public void tearDown(ManagementClient managementClient, String containerId) throws Exception {
+            execute(managementClient, Operations.createRemoveOperation(THREAD_CONTEXT_ADDRESS));
+            execute(managementClient, Operations.createRemoveOperation(MANAGED_EXECUTOR_ADDRESS));
+        }
+
+        private static void execute(ManagementClient managementClient, ModelNode operation) throws Exception {
+            final ModelNode result = managementClient.getControllerClient().execute(operation);
+            Assert.assertTrue(Operations.getFailureDescription(result).asString(), Operations.isSuccessfulOutcome(result));
+        }
+    }
+}
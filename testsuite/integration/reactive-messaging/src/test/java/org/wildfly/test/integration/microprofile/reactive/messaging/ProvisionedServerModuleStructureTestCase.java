@@ -41,6 +41,8 @@ public class ProvisionedServerModuleStructureTestCase {
                 .addNotExpected("io/vertx/client/amqp")
                 .addNotExpected("io/vertx/client/kafka")
                 .addNotExpected("io/vertx/client/mqtt")
+                // The native transport comes with io.netty
+                .addNotExpected("io/netty/transport/native")
                 .build();
 
         checker.checkModules();
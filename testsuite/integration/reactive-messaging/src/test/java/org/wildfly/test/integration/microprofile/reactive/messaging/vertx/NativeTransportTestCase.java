@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.test.integration.microprofile.reactive.messaging.vertx;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.container.test.api.RunAsClient;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.arquillian.test.api.ArquillianResource;
+import org.jboss.as.arquillian.container.ManagementClient;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests that the shared Vert.x instance set up by the {@code reactive-messaging-native-transport} layer uses the Netty
+ * native transport on Linux on x86_64, which the Netty of WildFly has the native library for.
+ */
+@RunWith(Arquillian.class)
+@RunAsClient
+public class NativeTransportTestCase {
+
+    private static final ModelNode ADDRESS = Operations.createAddress(
+            "subsystem", "microprofile-reactive-messaging-smallrye", "vertx", "default");
+
+    @ArquillianResource
+    ManagementClient managementClient;
+
+    @Deployment(testable = false)
+    public static WebArchive getDeployment() {
+        return ShrinkWrap.create(WebArchive.class, "rx-messaging-native-transport.war")
+                .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml");
+    }
+
+    @Test
+    public void testNativeTransport() throws Exception {
+        // The server runs on the same machine as the test
+        Assume.assumeTrue("Linux".equals(System.getProperty("os.name")));
+        final String arch = System.getProperty("os.arch");
+        Assume.assumeTrue("amd64".equals(arch) || "x86_64".equals(arch));
+
+        final ModelNode result = managementClient.getControllerClient().execute(
+                Operations.createReadAttributeOperation(ADDRESS, "native-transport"));
+        Assert.assertTrue(Operations.getFailureDescription(result).asString(), Operations.isSuccessfulOutcome(result));
+        Assert.assertTrue(Operations.readResult(result).asBoolean());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.test.integration.microprofile.reactive.messaging.worker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Records the words and numbers received, the threads they were received on, and the messages acknowledged before
+ * they were processed.
+ */
+@ApplicationScoped
+public class WorkerPoolBean {
+    /**
+     * Long enough for an acknowledgement which does not wait for the processing to happen before it.
+     */
+    private static final long PROCESSING_MILLIS = 50;
+
+    private final CountDownLatch latch = new CountDownLatch(6);
+    private final CountDownLatch acks = new CountDownLatch(6);
+    private final List<String> words = new ArrayList<>();
+    private final List<Integer> numbers = new ArrayList<>();
+    private final List<String> threadNames = new ArrayList<>();
+    private final List<Object> ackedBeforeProcessing = new ArrayList<>();
+
+    public CountDownLatch getLatch() {
+        return latch;
+    }
+
+    public CountDownLatch getAcks() {
+        return acks;
+    }
+
+    public void addWord(String word) {
+        process();
+        synchronized (this) {
+            words.add(word);
+            threadNames.add(Thread.currentThread().getName());
+        }
+        latch.countDown();
+    }
+
+    public void addNumber(int number) {
+        process();
+        synchronized (this) {
+            numbers.add(number);
+            threadNames.add(Thread.currentThread().getName());
+        }
+        latch.countDown();
+    }
+
+    public CompletionStage<Void> ack(Object value) {
+        synchronized (this) {
+            if (!words.contains(value) && !numbers.contains(value)) {
+                ackedBeforeProcessing.add(value);
+            }
+        }
+        acks.countDown();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    public synchronized List<String> getWords() {
+        return new ArrayList<>(words);
+    }
+
+    public synchronized List<Integer> getNumbers() {
+        return new ArrayList<>(numbers);
+    }
+
+    public synchronized List<String> getThreadNames() {
+        return new ArrayList<>(threadNames);
+    }
+
+    public synchronized List<Object> getAckedBeforeProcessing() {
+        return new ArrayList<>(ackedBeforeProcessing);
+    }
+
+    private static void process() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(PROCESSING_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
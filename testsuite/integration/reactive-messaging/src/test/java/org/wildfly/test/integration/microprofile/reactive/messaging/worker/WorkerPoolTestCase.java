@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.test.integration.microprofile.reactive.messaging.worker;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.Outgoing;
+import org.eclipse.microprofile.reactive.streams.operators.PublisherBuilder;
+import org.eclipse.microprofile.reactive.streams.operators.ReactiveStreams;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.as.arquillian.api.ServerSetup;
+import org.jboss.as.arquillian.api.ServerSetupTask;
+import org.jboss.as.arquillian.container.ManagementClient;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.as.test.shared.TimeoutUtil;
+import org.jboss.dmr.ModelNode;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.asset.StringAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests that {@code @Incoming} methods configured to use a worker pool of the subsystem run on it, including one
+ * taking a primitive, and that their messages are only acknowledged once processed. The deployment depends on the
+ * worker pool, so it is only started once the pool is.
+ */
+@RunWith(Arquillian.class)
+@ServerSetup(WorkerPoolTestCase.WorkerPoolSetupTask.class)
+public class WorkerPoolTestCase {
+
+    private static final long TIMEOUT = TimeoutUtil.adjust(5000);
+    private static final String WORKER_POOL = "test-pool";
+
+    @Inject
+    WorkerPoolBean bean;
+
+    @Deployment
+    public static WebArchive getDeployment() {
+        final WebArchive webArchive = ShrinkWrap.create(WebArchive.class, "rx-messaging-worker-pool.war")
+                .addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml")
+                .addAsResource(new StringAsset("wildfly.reactive-messaging.incoming.words.worker-pool=" + WORKER_POOL + "\n"
+                                + "wildfly.reactive-messaging.incoming.numbers.worker-pool=" + WORKER_POOL + "\n"),
+                        "META-INF/microprofile-config.properties")
+                .addClass(WorkerPoolTestCase.class)
+                .addClass(WorkerPoolBean.class)
+                .addClass(TimeoutUtil.class);
+        return webArchive;
+    }
+
+    @Outgoing("words")
+    public PublisherBuilder<Message<String>> source() {
+        return ReactiveStreams.of("moved", "to", "pool").map(word -> Message.of(word, () -> bean.ack(word)));
+    }
+
+    @Incoming("words")
+    public void sink(String word) {
+        bean.addWord(word);
+    }
+
+    @Outgoing("numbers")
+    public PublisherBuilder<Message<Integer>> numbers() {
+        // Outside of the cache of boxed integers, so each boxing of a number is a different instance
+        return ReactiveStreams.of(1000, 2000, 3000).map(number -> Message.of(number, () -> bean.ack(number)));
+    }
+
+    @Incoming("numbers")
+    public void sum(int number) {
+        bean.addNumber(number);
+    }
+
+    @Test
+    public void test() throws InterruptedException {
+        boolean wait = bean.getLatch().await(TIMEOUT, TimeUnit.MILLISECONDS);
+        Assert.assertTrue("Timed out", wait);
+        Assert.assertEquals(Arrays.asList("moved", "to", "pool"), bean.getWords());
+        Assert.assertEquals(Arrays.asList(1000, 2000, 3000), bean.getNumbers());
+        Assert.assertTrue("Timed out waiting for the acknowledgements", bean.getAcks().await(TIMEOUT, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(Collections.emptyList(), bean.getAckedBeforeProcessing());
+        for (String threadName : bean.getThreadNames()) {
+            Assert.assertTrue(threadName, threadName.startsWith("reactive-messaging-worker-pool-" + WORKER_POOL));
+        }
+    }
+
+    public static class WorkerPoolSetupTask implements ServerSetupTask {
+
+        private static final ModelNode ADDRESS = Operations.createAddress(
+                "subsystem", "microprofile-reactive-messaging-smallrye", "worker-pool", WORKER_POOL);
+
+        @Override
+        public void setup(ManagementClient managementClient, String containerId) throws Exception {
+            execute(managementClient, Operations.createAddOperation(ADDRESS));
+        }
+
+        @Override
+        public void tearDown(ManagementClient managementClient, String containerId) throws Exception {
+            execute(managementClient, Operations.createRemoveOperation(ADDRESS));
+        }
+
+        private static void execute(ManagementClient managementClient, ModelNode operation) throws Exception {
+            final ModelNode result = managementClient.getControllerClient().execute(operation);
+            Assert.assertTrue(Operations.getFailureDescription(result).asString(), Operations.isSuccessfulOutcome(result));
+        }
+    }
+}
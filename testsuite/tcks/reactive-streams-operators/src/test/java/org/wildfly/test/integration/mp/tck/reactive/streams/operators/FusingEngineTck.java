@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.test.integration.mp.tck.reactive.streams.operators;
+
+import org.eclipse.microprofile.reactive.streams.operators.tck.ReactiveStreamsTck;
+import org.reactivestreams.tck.TestEnvironment;
+import org.wildfly.extension.microprofile.reactive.streams.operators.engine.FusingEngine;
+
+/**
+ * Runs the engine part of the TCK directly against the fusing engine. Unlike the in-container run, this covers all
+ * the graphs the TCK builds, not just the ones reaching the engine through CDI.
+ */
+public class FusingEngineTck extends ReactiveStreamsTck<FusingEngine> {
+
+    public FusingEngineTck() {
+        super(new TestEnvironment(200));
+    }
+
+    @Override
+    protected FusingEngine createEngine() {
+        return new FusingEngine();
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2019 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.test.integration.mp.tck.reactive.streams.operators;
+
+import io.smallrye.reactive.streams.Engine;
+import org.eclipse.microprofile.reactive.streams.operators.tck.ReactiveStreamsTck;
+import org.reactivestreams.tck.TestEnvironment;
+
+/**
+ * Runs the engine part of the TCK directly against the SmallRye engine, the subsystem's default, as the baseline
+ * for {@link FusingEngineTck}.
+ */
+public class SmallRyeEngineTck extends ReactiveStreamsTck<Engine> {
+
+    public SmallRyeEngineTck() {
+        super(new TestEnvironment(200));
+    }
+
+    @Override
+    protected Engine createEngine() {
+        return new Engine();
+    }
+}